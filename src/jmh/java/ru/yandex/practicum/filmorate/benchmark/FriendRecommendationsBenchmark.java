@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.repository.friends.InMemoryFriendsRepository;
+import ru.yandex.practicum.filmorate.service.FriendRecommendationsCache;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Рекомендации друзей на случайном графе со средним числом друзей degree: обход без кэша для случайного
+// пользователя и чтение из кэша для 1000 "горячих" пользователей.
+// Граф на 10M пользователей занимает около 20 ГБ: -p users=10000000 -jvmArgs -Xmx32g.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class FriendRecommendationsBenchmark {
+    private static final int FAN_OUT = 200;
+    private static final int LIMIT = 10;
+    private static final int HOT_USERS = 1_000;
+
+    @Param({"100000", "1000000"})
+    private int users;
+
+    @Param({"200"})
+    private int degree;
+
+    private InMemoryFriendsRepository friendsRepository;
+    private FriendRecommendationsCache cache;
+
+    @Setup
+    public void setUp() {
+        friendsRepository = new InMemoryFriendsRepository();
+        cache = new FriendRecommendationsCache(new SimpleMeterRegistry());
+        Random random = new Random(42);
+        long edges = (long) users * degree / 2;
+        for (long i = 0; i < edges; i++) {
+            long userId = random.nextInt(users) + 1;
+            long friendId = random.nextInt(users) + 1;
+            if (userId != friendId) {
+                friendsRepository.acceptFriendship(userId, friendId);
+                friendsRepository.acceptFriendship(friendId, userId);
+            }
+        }
+        for (long userId = 1; userId <= HOT_USERS; userId++) {
+            recommendCached(userId);
+        }
+    }
+
+    @Benchmark
+    public List<FriendRecommendation> traversal() {
+        long userId = ThreadLocalRandom.current().nextInt(users) + 1;
+        List<Long> viaFriendIds = friendsRepository.findFriendsSample(userId, FAN_OUT);
+        return friendsRepository.findFriendsOfFriends(userId, viaFriendIds, LIMIT, FAN_OUT);
+    }
+
+    @Benchmark
+    public List<FriendRecommendation> cached() {
+        return recommendCached(ThreadLocalRandom.current().nextLong(HOT_USERS) + 1);
+    }
+
+    private List<FriendRecommendation> recommendCached(Long userId) {
+        return cache.get(userId, LIMIT,
+                id -> friendsRepository.findFriendsSample(id, FAN_OUT),
+                viaFriendIds -> friendsRepository.findFriendsOfFriends(userId, viaFriendIds, LIMIT, FAN_OUT));
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.film.InMemoryFilmRepository;
+import ru.yandex.practicum.filmorate.repository.friends.InMemoryFriendsRepository;
+import ru.yandex.practicum.filmorate.repository.likes.InMemoryLikesRepository;
+import ru.yandex.practicum.filmorate.repository.likes.InMemoryTrendingLikesRepository;
+import ru.yandex.practicum.filmorate.repository.user.InMemoryUserRepository;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FriendRecommendationsCache;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Список друзей и общие друзья двух пользователей, у каждого из которых degree друзей, половина из них общие.
+// countMutualFriends - число общих друзей с пакетом из BATCH_SIZE пользователей, как на странице списка.
+// deleteAndAddFriend - удаление и возврат друга из середины списка, то есть цена изменения списка знаменитости.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class FriendsBenchmark {
+    private static final long FIRST_USER = 1L;
+    private static final long SECOND_USER = 2L;
+    private static final int BATCH_SIZE = 50;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int degree;
+
+    private InMemoryFriendsRepository friendsRepository;
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        InMemoryUserRepository userRepository = new InMemoryUserRepository();
+        friendsRepository = new InMemoryFriendsRepository();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FilmService filmService = new FilmService(new InMemoryFilmRepository(), new InMemoryLikesRepository(),
+                new InMemoryTrendingLikesRepository(), new PopularFilmsCache(meterRegistry), userRepository);
+        userService = new UserService(userRepository, friendsRepository,
+                new FriendRecommendationsCache(meterRegistry), filmService);
+
+        long users = 2L + degree + degree / 2;
+        for (long i = 0; i < users; i++) {
+            userRepository.save(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("user" + i)
+                    .name("user" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+
+        // Друзья первого пользователя: 3..degree+2, второго: degree/2+3..degree+degree/2+2.
+        for (long friendId = 3; friendId < 3 + degree; friendId++) {
+            friendsRepository.sendFriendship(FIRST_USER, friendId);
+            friendsRepository.sendFriendship(SECOND_USER, friendId + degree / 2);
+        }
+    }
+
+    @Benchmark
+    public List<Long> findFriendsById() {
+        return friendsRepository.findFriendsById(FIRST_USER);
+    }
+
+    @Benchmark
+    public boolean areFriends() {
+        return friendsRepository.areFriends(FIRST_USER, 3L + degree / 2);
+    }
+
+    @Benchmark
+    public List<User> getMutualFriends() {
+        return userService.getMutualFriends(FIRST_USER, SECOND_USER);
+    }
+
+    @Benchmark
+    public int[] countMutualFriends() {
+        return friendsRepository.countMutualFriends(FIRST_USER, Collections.nCopies(BATCH_SIZE, SECOND_USER));
+    }
+
+    @Benchmark
+    public void deleteAndAddFriend() {
+        long friendId = 3L + degree / 2;
+        friendsRepository.deleteFriendship(FIRST_USER, friendId);
+        friendsRepository.sendFriendship(FIRST_USER, friendId);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.repository.friends.InMemoryFriendsRepository;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Пропускная способность изменений и чтений дружбы при росте числа потоков: 1, 2, 4 и 8 потоков на одном репозитории.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FriendsConcurrencyBenchmark {
+    private static final int USERS = 1_000_000;
+
+    private InMemoryFriendsRepository friendsRepository;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        friendsRepository = new InMemoryFriendsRepository();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void friends1Thread() {
+        changeOrRead();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void friends2Threads() {
+        changeOrRead();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void friends4Threads() {
+        changeOrRead();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void friends8Threads() {
+        changeOrRead();
+    }
+
+    private void changeOrRead() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long userId = random.nextInt(USERS) + 1;
+        long friendId = random.nextInt(USERS) + 1;
+        switch (random.nextInt(4)) {
+            case 0 -> friendsRepository.sendFriendship(userId, friendId);
+            case 1 -> friendsRepository.deleteFriendship(userId, friendId);
+            default -> friendsRepository.findFriendsById(userId);
+        }
+    }
+}
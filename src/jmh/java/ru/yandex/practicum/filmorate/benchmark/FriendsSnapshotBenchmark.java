@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.repository.friends.InMemoryFriendsRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Холодный старт графа друзей: загрузка CSR-снимка против повторения всех sendFriendship,
+// и запись снимка. Граф случайный, в среднем degree друзей на пользователя, 10% заявок остаются без ответа.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class FriendsSnapshotBenchmark {
+    @Param({"100000", "1000000"})
+    private int users;
+
+    @Param({"20"})
+    private int degree;
+
+    private InMemoryFriendsRepository friendsRepository;
+    private long[] edgeUsers;
+    private long[] edgeFriends;
+    private boolean[] accepted;
+    private Path snapshot;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        int requests = users * degree / 2;
+        edgeUsers = new long[requests];
+        edgeFriends = new long[requests];
+        accepted = new boolean[requests];
+        for (int i = 0; i < requests; i++) {
+            edgeUsers[i] = random.nextInt(users) + 1;
+            edgeFriends[i] = random.nextInt(users) + 1;
+            accepted[i] = random.nextInt(10) != 0;
+        }
+        friendsRepository = replaySendFriendship();
+
+        snapshot = Files.createTempFile("friends", ".csr");
+        friendsRepository.exportSnapshot(snapshot);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Benchmark
+    public InMemoryFriendsRepository importSnapshot() throws IOException {
+        InMemoryFriendsRepository repository = new InMemoryFriendsRepository();
+        repository.importSnapshot(snapshot);
+        return repository;
+    }
+
+    @Benchmark
+    public InMemoryFriendsRepository replaySendFriendship() {
+        InMemoryFriendsRepository repository = new InMemoryFriendsRepository();
+        for (int i = 0; i < edgeUsers.length; i++) {
+            repository.sendFriendship(edgeUsers[i], edgeFriends[i]);
+            if (accepted[i]) {
+                repository.acceptFriendship(edgeFriends[i], edgeUsers[i]);
+            }
+        }
+        return repository;
+    }
+
+    @Benchmark
+    public long exportSnapshot() throws IOException {
+        friendsRepository.exportSnapshot(snapshot);
+        return Files.size(snapshot);
+    }
+}
@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.repository.likes.InMemoryLikesRepository;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Пропускная способность лайков при росте числа потоков: 1, 2, 4 и 8 потоков на одном репозитории.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LikesConcurrencyBenchmark {
+    private static final int FILMS = 100_000;
+    private static final int USERS = 1_000_000;
+
+    private InMemoryLikesRepository likesRepository;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        likesRepository = new InMemoryLikesRepository();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void likes1Thread() {
+        likeOrUnlike();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void likes2Threads() {
+        likeOrUnlike();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void likes4Threads() {
+        likeOrUnlike();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void likes8Threads() {
+        likeOrUnlike();
+    }
+
+    private void likeOrUnlike() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long filmId = random.nextInt(FILMS);
+        long userId = random.nextInt(USERS);
+        if (random.nextInt(4) == 0) {
+            likesRepository.deleteLike(filmId, userId);
+        } else {
+            likesRepository.addLike(filmId, userId);
+        }
+    }
+}
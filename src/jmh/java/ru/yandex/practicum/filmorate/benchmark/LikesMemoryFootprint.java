@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jol.info.GraphLayout;
+import ru.yandex.practicum.filmorate.collection.LongBitmap;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+// Занимаемая лайками память: прежняя раскладка HashMap<Long, HashSet<Long>> против LongBitmap на фильм.
+// Запуск: mvn -P benchmark -DskipTests test-compile exec:exec@footprint
+public class LikesMemoryFootprint {
+    private static final int FILMS = 1_000;
+    private static final int USERS = 1_000_000;
+    private static final int[] LIKES_PER_FILM = {10, 100, 1_000};
+
+    public static void main(String[] args) {
+        System.out.printf("%-15s %-12s %15s %15s %10s%n", "likes per film", "likes", "HashSet B/like", "Bitmap B/like", "ratio");
+        for (int likesPerFilm : LIKES_PER_FILM) {
+            Random random = new Random(42);
+            Map<Long, Set<Long>> hashSets = new HashMap<>();
+            Map<Long, LongBitmap> bitmaps = new HashMap<>();
+            long likes = 0;
+
+            for (long filmId = 1; filmId <= FILMS; filmId++) {
+                Set<Long> hashSet = new HashSet<>();
+                LongBitmap bitmap = new LongBitmap();
+                for (int i = 0; i < likesPerFilm; i++) {
+                    long userId = random.nextInt(USERS) + 1;
+                    hashSet.add(userId);
+                    bitmap.add(userId);
+                }
+                likes += hashSet.size();
+                hashSets.put(filmId, hashSet);
+                bitmaps.put(filmId, bitmap);
+            }
+
+            double hashSetBytes = (double) GraphLayout.parseInstance(hashSets).totalSize() / likes;
+            double bitmapBytes = (double) GraphLayout.parseInstance(bitmaps).totalSize() / likes;
+            System.out.printf("%-15d %-12d %15.1f %15.1f %10.1f%n",
+                    likesPerFilm, likes, hashSetBytes, bitmapBytes, hashSetBytes / bitmapBytes);
+        }
+    }
+}
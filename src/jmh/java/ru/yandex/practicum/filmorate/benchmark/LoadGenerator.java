@@ -0,0 +1,259 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Нагрузочный прогон REST-слоя против запущенного приложения: смесь чтений, лайков, заявок в друзья
+// и запросов популярных фильмов. Для каждого маршрута выводит пропускную способность и p50/p99/p999.
+// Запуск: mvn -P benchmark -DskipTests test-compile exec:exec@load -Dload.args="threads=16 duration=60"
+public class LoadGenerator {
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private final URI baseUri;
+    private final int threads;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final int users;
+    private final int films;
+    private final HttpClient client;
+
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<Long> filmIds = new ArrayList<>();
+    private volatile boolean recording;
+
+    LoadGenerator(Map<String, String> options) {
+        this.baseUri = URI.create(options.getOrDefault("baseUrl", "http://localhost:8081"));
+        this.threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        this.warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        this.users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        this.films = Integer.parseInt(options.getOrDefault("films", "1000"));
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        new LoadGenerator(options).run();
+    }
+
+    void run() throws Exception {
+        seed();
+
+        Worker[] workers = new Worker[threads];
+        Thread[] workerThreads = new Thread[threads];
+        long deadline = System.nanoTime() + Duration.ofSeconds(warmupSeconds + durationSeconds).toNanos();
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(deadline);
+            workerThreads[i] = new Thread(workers[i], "load-" + i);
+            workerThreads[i].start();
+        }
+
+        Thread.sleep(Duration.ofSeconds(warmupSeconds).toMillis());
+        recording = true;
+        for (Thread workerThread : workerThreads) {
+            workerThread.join();
+        }
+
+        report(workers);
+    }
+
+    private void seed() throws IOException, InterruptedException {
+        for (int i = 0; i < users; i++) {
+            String body = String.format("{\"email\":\"load%d@mail.ru\",\"login\":\"load%d\",\"name\":\"load%d\","
+                    + "\"birthday\":\"2000-01-01\"}", i, i, i);
+            userIds.add(extractId(send(post("/users", body))));
+        }
+        for (int i = 0; i < films; i++) {
+            String body = String.format("{\"name\":\"film%d\",\"description\":\"load\",\"releaseDate\":\"2000-01-01\","
+                    + "\"duration\":\"PT2H\"}", i);
+            filmIds.add(extractId(send(post("/films", body))));
+        }
+    }
+
+    private void report(Worker[] workers) {
+        System.out.printf("%-36s %10s %8s %10s %10s %10s %10s %10s%n",
+                "route", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Route route : Route.values()) {
+            Samples merged = new Samples();
+            long errors = 0;
+            for (Worker worker : workers) {
+                merged.addAll(worker.samples.get(route));
+                errors += worker.errors.get(route)[0];
+            }
+            if (merged.size == 0) {
+                continue;
+            }
+
+            long[] latencies = Arrays.copyOf(merged.values, merged.size);
+            Arrays.sort(latencies);
+            System.out.printf("%-36s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    route.label, latencies.length, errors, (double) latencies.length / durationSeconds,
+                    millis(percentile(latencies, 0.50)), millis(percentile(latencies, 0.99)),
+                    millis(percentile(latencies, 0.999)), millis(latencies[latencies.length - 1]));
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).GET().build();
+    }
+
+    private HttpRequest put(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).PUT(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static long extractId(HttpResponse<String> response) {
+        Matcher matcher = ID_PATTERN.matcher(response.body());
+        if (response.statusCode() / 100 != 2 || !matcher.find()) {
+            throw new IllegalStateException("Не удалось создать данные для прогона: " + response.statusCode()
+                    + " " + response.body());
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    // Маршруты и их доля в смеси запросов.
+    private enum Route {
+        GET_FILM("GET /films/{id}", 30),
+        GET_USER("GET /users/{id}", 15),
+        GET_FRIENDS("GET /users/{id}/friends", 5),
+        PUT_LIKE("PUT /films/{id}/like/{userId}", 20),
+        PUT_FRIEND("PUT /users/{id}/friends/{friendId}", 10),
+        GET_POPULAR("GET /films/popular", 20);
+
+        private static final int TOTAL_WEIGHT = Arrays.stream(values()).mapToInt(route -> route.weight).sum();
+
+        private final String label;
+        private final int weight;
+
+        Route(String label, int weight) {
+            this.label = label;
+            this.weight = weight;
+        }
+
+        static Route pick(int roll) {
+            for (Route route : values()) {
+                roll -= route.weight;
+                if (roll < 0) {
+                    return route;
+                }
+            }
+            return GET_FILM;
+        }
+    }
+
+    private final class Worker implements Runnable {
+        private final long deadline;
+        private final Map<Route, Samples> samples = new EnumMap<>(Route.class);
+        private final Map<Route, long[]> errors = new EnumMap<>(Route.class);
+
+        Worker(long deadline) {
+            this.deadline = deadline;
+            for (Route route : Route.values()) {
+                samples.put(route, new Samples());
+                errors.put(route, new long[1]);
+            }
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline) {
+                Route route = Route.pick(random.nextInt(Route.TOTAL_WEIGHT));
+                HttpRequest request = request(route, random);
+                long start = System.nanoTime();
+                boolean failed;
+                try {
+                    failed = send(request).statusCode() / 100 != 2;
+                } catch (IOException e) {
+                    failed = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long elapsed = System.nanoTime() - start;
+
+                if (recording) {
+                    samples.get(route).add(elapsed);
+                    if (failed) {
+                        errors.get(route)[0]++;
+                    }
+                }
+            }
+        }
+
+        private HttpRequest request(Route route, ThreadLocalRandom random) {
+            long filmId = filmIds.get(random.nextInt(filmIds.size()));
+            long userId = userIds.get(random.nextInt(userIds.size()));
+            long otherUserId = userIds.get(random.nextInt(userIds.size()));
+            return switch (route) {
+                case GET_FILM -> get("/films/" + filmId);
+                case GET_USER -> get("/users/" + userId);
+                case GET_FRIENDS -> get("/users/" + userId + "/friends");
+                case PUT_LIKE -> put("/films/" + filmId + "/like/" + userId);
+                case PUT_FRIEND -> put("/users/" + userId + "/friends/" + otherUserId);
+                case GET_POPULAR -> get("/films/popular?count=10");
+            };
+        }
+    }
+
+    private static final class Samples {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(Samples other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.repository.likes.InMemoryLikesRepository;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение выборки популярных фильмов через индекс с полной сортировкой всех фильмов по лайкам.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class PopularFilmsBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int films;
+
+    @Param({"10"})
+    private int count;
+
+    private final Map<Long, Set<Long>> likes = new HashMap<>();
+    private InMemoryLikesRepository likesRepository;
+
+    @Setup
+    public void setUp() {
+        likesRepository = new InMemoryLikesRepository();
+        Random random = new Random(42);
+        for (long filmId = 1; filmId <= films; filmId++) {
+            int filmLikes = random.nextInt(5);
+            for (int i = 0; i < filmLikes; i++) {
+                long userId = random.nextInt(100_000);
+                likes.computeIfAbsent(filmId, k -> new HashSet<>()).add(userId);
+                likesRepository.addLike(filmId, userId);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Long> fullSort() {
+        return likes.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Long, Set<Long>> e) -> e.getValue().size()).reversed())
+                .limit(count)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    @Benchmark
+    public List<Long> popularityIndex() {
+        return likesRepository.findTopFilmsByLikes(count);
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.user.InMemoryUserRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class UserRepositoryBenchmark {
+    private static final int LOOKUP_SIZE = 1_000;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int users;
+
+    private InMemoryUserRepository userRepository;
+    private List<Long> lookupIds;
+
+    @Setup
+    public void setUp() {
+        userRepository = new InMemoryUserRepository();
+        for (int i = 0; i < users; i++) {
+            userRepository.save(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("user" + i)
+                    .name("user" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+
+        Random random = new Random(42);
+        lookupIds = new ArrayList<>(LOOKUP_SIZE);
+        for (int i = 0; i < LOOKUP_SIZE; i++) {
+            lookupIds.add(random.nextLong(users) + 1);
+        }
+    }
+
+    @Benchmark
+    public List<User> findByIds() {
+        return userRepository.findByIds(lookupIds);
+    }
+
+    @Benchmark
+    public List<User> findAll() {
+        return userRepository.findAll();
+    }
+}
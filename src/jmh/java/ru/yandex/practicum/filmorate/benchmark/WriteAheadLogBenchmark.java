@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.repository.likes.InMemoryLikesRepository;
+import ru.yandex.practicum.filmorate.wal.FsyncPolicy;
+import ru.yandex.practicum.filmorate.wal.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Цена журнала изменений на лайк при разных политиках fsync: 1 и 8 потоков. При ALWAYS потоки делят один fsync
+// на группу записей, поэтому время на лайк с ростом числа потоков падает.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteAheadLogBenchmark {
+    private static final int FILMS = 100_000;
+    private static final int USERS = 1_000_000;
+
+    @Param({"ALWAYS", "INTERVAL", "NEVER"})
+    private FsyncPolicy fsync;
+
+    private Path directory;
+    private WriteAheadLog writeAheadLog;
+    private InMemoryLikesRepository likesRepository;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("filmorate-wal");
+        writeAheadLog = new WriteAheadLog(directory, fsync, Duration.ofMillis(50));
+        writeAheadLog.start(0);
+        likesRepository = new InMemoryLikesRepository(writeAheadLog);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        writeAheadLog.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean like1Thread() {
+        return like();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean like8Threads() {
+        return like();
+    }
+
+    private boolean like() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return likesRepository.addLike((long) random.nextInt(FILMS), (long) random.nextInt(USERS));
+    }
+}
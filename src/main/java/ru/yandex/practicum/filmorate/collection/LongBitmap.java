@@ -0,0 +1,406 @@
+package ru.yandex.practicum.filmorate.collection;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+// Сжатое множество long в стиле Roaring: старшие 48 бит - ключ контейнера, младшие 16 бит хранятся
+// в контейнере. Разреженные контейнеры - отсортированный char[], плотные - битовая карта на 65536 значений.
+// Пока значений мало и они разбросаны по разным контейнерам, множество хранится плоским отсортированным long[].
+public class LongBitmap {
+    private static final int CONTAINER_BITS = 16;
+    private static final int LOW_MASK = 0xFFFF;
+    private static final int MIN_VALUES_PER_CONTAINER = 8;
+
+    private long[] flat = new long[2];
+    private long[] keys;
+    private Container[] containers;
+    private int size;
+    private long cardinality;
+
+    public boolean add(long value) {
+        if (flat != null) {
+            return addFlat(value);
+        }
+
+        long key = value >> CONTAINER_BITS;
+        char low = (char) (value & LOW_MASK);
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key, new ArrayContainer());
+        }
+
+        Container container = containers[index];
+        int before = container.cardinality();
+        containers[index] = container.add(low);
+        if (containers[index].cardinality() == before) {
+            return false;
+        }
+        cardinality++;
+        return true;
+    }
+
+    public boolean remove(long value) {
+        if (flat != null) {
+            int index = Arrays.binarySearch(flat, 0, size, value);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(flat, index + 1, flat, index, size - index - 1);
+            size--;
+            cardinality--;
+            return true;
+        }
+
+        int index = Arrays.binarySearch(keys, 0, size, value >> CONTAINER_BITS);
+        if (index < 0) {
+            return false;
+        }
+
+        Container container = containers[index];
+        int before = container.cardinality();
+        Container updated = container.remove((char) (value & LOW_MASK));
+        if (updated.cardinality() == before) {
+            return false;
+        }
+        cardinality--;
+        if (updated.cardinality() == 0) {
+            removeContainer(index);
+        } else {
+            containers[index] = updated;
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (flat != null) {
+            return Arrays.binarySearch(flat, 0, size, value) >= 0;
+        }
+
+        int index = Arrays.binarySearch(keys, 0, size, value >> CONTAINER_BITS);
+        return index >= 0 && containers[index].contains((char) (value & LOW_MASK));
+    }
+
+    public long cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public void forEach(LongConsumer action) {
+        if (flat != null) {
+            for (int i = 0; i < size; i++) {
+                action.accept(flat[i]);
+            }
+            return;
+        }
+
+        for (int i = 0; i < size; i++) {
+            long high = keys[i] << CONTAINER_BITS;
+            containers[i].forEach(low -> action.accept(high | low));
+        }
+    }
+
+    public long[] toArray() {
+        long[] values = new long[Math.toIntExact(cardinality)];
+        int[] position = {0};
+        forEach(value -> values[position[0]++] = value);
+        return values;
+    }
+
+    // Итератор по возрастанию, начиная с первого значения не меньше from.
+    public PrimitiveIterator.OfLong iteratorFrom(long from) {
+        return new BitmapIterator(from);
+    }
+
+    private boolean addFlat(long value) {
+        int index = Arrays.binarySearch(flat, 0, size, value);
+        if (index >= 0) {
+            return false;
+        }
+
+        index = -index - 1;
+        if (size == flat.length) {
+            if (shouldSwitchToContainers()) {
+                switchToContainers();
+                return add(value);
+            }
+            flat = Arrays.copyOf(flat, size * 2);
+        }
+        System.arraycopy(flat, index, flat, index + 1, size - index);
+        flat[index] = value;
+        size++;
+        cardinality++;
+        return true;
+    }
+
+    private boolean shouldSwitchToContainers() {
+        int distinctKeys = 0;
+        long previousKey = 0;
+        for (int i = 0; i < size; i++) {
+            long key = flat[i] >> CONTAINER_BITS;
+            if (i == 0 || key != previousKey) {
+                distinctKeys++;
+                previousKey = key;
+            }
+        }
+        return size >= distinctKeys * MIN_VALUES_PER_CONTAINER;
+    }
+
+    private void switchToContainers() {
+        long[] values = flat;
+        int count = size;
+        flat = null;
+        keys = new long[4];
+        containers = new Container[4];
+        size = 0;
+        cardinality = 0;
+        for (int i = 0; i < count; i++) {
+            add(values[i]);
+        }
+    }
+
+    private void insertContainer(int index, long key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    private class BitmapIterator implements PrimitiveIterator.OfLong {
+        private int containerIndex;
+        private int low;
+        private long next;
+        private boolean hasNext;
+
+        BitmapIterator(long from) {
+            if (flat != null) {
+                int index = Arrays.binarySearch(flat, 0, size, from);
+                containerIndex = index >= 0 ? index : -index - 1;
+                advance();
+                return;
+            }
+
+            long key = from >> CONTAINER_BITS;
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index >= 0) {
+                containerIndex = index;
+                low = (int) (from & LOW_MASK);
+            } else {
+                containerIndex = -index - 1;
+                low = 0;
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext) {
+                throw new NoSuchElementException();
+            }
+            long value = next;
+            advance();
+            return value;
+        }
+
+        private void advance() {
+            if (flat != null) {
+                hasNext = containerIndex < size;
+                if (hasNext) {
+                    next = flat[containerIndex++];
+                }
+                return;
+            }
+
+            while (containerIndex < size) {
+                int found = low > LOW_MASK ? -1 : containers[containerIndex].nextValue(low);
+                if (found >= 0) {
+                    next = (keys[containerIndex] << CONTAINER_BITS) | found;
+                    low = found + 1;
+                    hasNext = true;
+                    return;
+                }
+                containerIndex++;
+                low = 0;
+            }
+            hasNext = false;
+        }
+    }
+
+    private interface Container {
+        Container add(char low);
+
+        Container remove(char low);
+
+        boolean contains(char low);
+
+        int cardinality();
+
+        // Наименьшее значение контейнера не меньше from или -1.
+        int nextValue(int from);
+
+        void forEach(LongConsumer action);
+    }
+
+    private static final class ArrayContainer implements Container {
+        private static final int MAX_SIZE = 4096;
+
+        private char[] values = new char[4];
+        private int size;
+
+        @Override
+        public Container add(char low) {
+            int index = Arrays.binarySearch(values, 0, size, low);
+            if (index >= 0) {
+                return this;
+            }
+            if (size == MAX_SIZE) {
+                return toBitmap().add(low);
+            }
+
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(size + (size >> 1) + 1, MAX_SIZE));
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = low;
+            size++;
+            return this;
+        }
+
+        @Override
+        public Container remove(char low) {
+            int index = Arrays.binarySearch(values, 0, size, low);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return size;
+        }
+
+        @Override
+        public int nextValue(int from) {
+            int index = Arrays.binarySearch(values, 0, size, (char) from);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return index < size ? values[index] : -1;
+        }
+
+        @Override
+        public void forEach(LongConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(values[i]);
+            }
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer implements Container {
+        private final long[] words = new long[1024];
+        private int cardinality;
+
+        @Override
+        public Container add(char low) {
+            long word = words[low >>> 6];
+            long updated = word | (1L << low);
+            if (updated != word) {
+                words[low >>> 6] = updated;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        public Container remove(char low) {
+            long word = words[low >>> 6];
+            long updated = word & ~(1L << low);
+            if (updated == word) {
+                return this;
+            }
+            words[low >>> 6] = updated;
+            cardinality--;
+            return cardinality <= ArrayContainer.MAX_SIZE / 2 ? toArrayContainer() : this;
+        }
+
+        @Override
+        public boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public int nextValue(int from) {
+            int wordIndex = from >>> 6;
+            long word = words[wordIndex] & (-1L << from);
+            while (true) {
+                if (word != 0) {
+                    return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                }
+                if (++wordIndex == words.length) {
+                    return -1;
+                }
+                word = words[wordIndex];
+            }
+        }
+
+        @Override
+        public void forEach(LongConsumer action) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept((i << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        private ArrayContainer toArrayContainer() {
+            ArrayContainer array = new ArrayContainer();
+            forEach(value -> array.add((char) value));
+            return array;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.collection;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// Счетчики по ключам long на открытой адресации без упаковки. Ключ Long.MIN_VALUE зарезервирован под пустую ячейку.
+public class LongIntCounter {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int EXCLUDED = Integer.MIN_VALUE / 2;
+
+    private long[] keys;
+    private int[] counts;
+    private int mask;
+    private int size;
+
+    public LongIntCounter(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    public void increment(long key) {
+        add(key, 1);
+    }
+
+    // Исключенный ключ не попадает в topKeys, сколько бы раз его ни увеличивали.
+    public void exclude(long key) {
+        add(key, EXCLUDED - get(key));
+    }
+
+    public int get(long key) {
+        int index = indexOf(key);
+        return keys[index] == EMPTY ? 0 : counts[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEachKey(LongConsumer action) {
+        for (long key : keys) {
+            if (key != EMPTY) {
+                action.accept(key);
+            }
+        }
+    }
+
+    // Ключи с наибольшими счетчиками, при равенстве - с меньшим ключом, по убыванию счетчика.
+    public long[] topKeys(int limit) {
+        int topSize = 0;
+        long[] topKeys = new long[Math.min(limit, size)];
+        int[] topCounts = new int[topKeys.length];
+        if (topKeys.length == 0) {
+            return topKeys;
+        }
+
+        for (int i = 0; i < keys.length; i++) {
+            long key = keys[i];
+            if (key == EMPTY) {
+                continue;
+            }
+            int count = counts[i];
+            if (count <= 0) {
+                continue;
+            }
+            if (topSize == topKeys.length && !ranksHigher(count, key, topCounts[topSize - 1], topKeys[topSize - 1])) {
+                continue;
+            }
+
+            int position = topSize == topKeys.length ? topSize - 1 : topSize++;
+            while (position > 0 && ranksHigher(count, key, topCounts[position - 1], topKeys[position - 1])) {
+                topKeys[position] = topKeys[position - 1];
+                topCounts[position] = topCounts[position - 1];
+                position--;
+            }
+            topKeys[position] = key;
+            topCounts[position] = count;
+        }
+        return topSize == topKeys.length ? topKeys : Arrays.copyOf(topKeys, topSize);
+    }
+
+    private void add(long key, int delta) {
+        int index = indexOf(key);
+        if (keys[index] == EMPTY) {
+            keys[index] = key;
+            size++;
+            if (size * 2 > keys.length) {
+                counts[index] = delta;
+                rehash();
+                return;
+            }
+        }
+        counts[index] += delta;
+    }
+
+    private static boolean ranksHigher(int count, long key, int otherCount, long otherKey) {
+        return count > otherCount || (count == otherCount && key < otherKey);
+    }
+
+    private int indexOf(long key) {
+        int index = (int) mix(key) & mask;
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                counts[index] = oldCounts[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        counts = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static long mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+}
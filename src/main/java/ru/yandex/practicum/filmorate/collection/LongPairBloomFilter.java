@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.collection;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Фильтр Блума по парам long: mightContain без ложных отрицаний, ложные срабатывания - около 1% при
+// заявленном числе пар. Удалять пары нельзя, удаленная пара только повышает долю ложных срабатываний.
+// Биты ставятся атомарно, поэтому добавлять можно из нескольких потоков без блокировок.
+public class LongPairBloomFilter {
+    private static final int BITS_PER_PAIR = 10;
+    private static final int HASHES = 7;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+
+    public LongPairBloomFilter(long expectedPairs) {
+        long bits = Math.max(64, expectedPairs * BITS_PER_PAIR);
+        this.words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) >>> 6));
+        this.bitCount = (long) words.length() << 6;
+    }
+
+    public void add(long first, long second) {
+        long hash1 = mix(first * 31 + second);
+        long hash2 = mix(hash1 ^ second) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            long mask = 1L << bit;
+            int index = (int) (bit >>> 6);
+            long word = words.get(index);
+            while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                word = words.get(index);
+            }
+        }
+    }
+
+    public boolean mightContain(long first, long second) {
+        long hash1 = mix(first * 31 + second);
+        long hash2 = mix(hash1 ^ second) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        for (int i = 0; i < words.length(); i++) {
+            words.set(i, 0);
+        }
+    }
+
+    private static long mix(long value) {
+        long hash = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,261 @@
+package ru.yandex.practicum.filmorate.collection;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// Отсортированное множество long из блоков не длиннее BLOCK_CAPACITY. Вставка и удаление сдвигают значения
+// только внутри одного блока, а не во всем массиве, поэтому подходят для множеств из миллионов значений.
+// Для каждого блока хранятся первое значение (поиск блока) и число значений во всех предыдущих блоках
+// (доступ по номеру), эти счетчики пересчитываются при каждом изменении.
+public class SegmentedLongArray implements SortedLongSet {
+    static final int BLOCK_CAPACITY = 4096;
+    private static final int GALLOP_RATIO = 32;
+
+    private long[][] blocks = new long[4][];
+    private int[] blockSizes = new int[4];
+    private long[] firstValues = new long[4];
+    private int[] countsBefore = new int[4];
+    private int blockCount;
+    private int size;
+
+    // Строит множество из отсортированного массива без повторов, блоки заполняются наполовину,
+    // чтобы первые вставки не делили их сразу.
+    public static SegmentedLongArray ofSorted(long[] values) {
+        SegmentedLongArray array = new SegmentedLongArray();
+        int blockSize = BLOCK_CAPACITY / 2;
+        for (int from = 0; from < values.length; from += blockSize) {
+            int to = Math.min(values.length, from + blockSize);
+            array.insertBlock(array.blockCount, Arrays.copyOfRange(values, from, to), to - from);
+        }
+        return array;
+    }
+
+    @Override
+    public boolean add(long value) {
+        if (blockCount == 0) {
+            insertBlock(0, new long[]{value}, 1);
+            return true;
+        }
+
+        int block = blockFor(value);
+        int index = Arrays.binarySearch(blocks[block], 0, blockSizes[block], value);
+        if (index >= 0) {
+            return false;
+        }
+        if (blockSizes[block] == BLOCK_CAPACITY) {
+            split(block);
+            block = blockFor(value);
+            index = Arrays.binarySearch(blocks[block], 0, blockSizes[block], value);
+        }
+
+        index = -index - 1;
+        int blockSize = blockSizes[block];
+        long[] values = blocks[block];
+        if (blockSize == values.length) {
+            values = Arrays.copyOf(values, Math.min(BLOCK_CAPACITY, blockSize + (blockSize >> 1) + 1));
+            blocks[block] = values;
+        }
+        System.arraycopy(values, index, values, index + 1, blockSize - index);
+        values[index] = value;
+        blockSizes[block]++;
+        firstValues[block] = values[0];
+        adjustCountsAfter(block, 1);
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(long value) {
+        if (blockCount == 0) {
+            return false;
+        }
+        int block = blockFor(value);
+        long[] values = blocks[block];
+        int index = Arrays.binarySearch(values, 0, blockSizes[block], value);
+        if (index < 0) {
+            return false;
+        }
+
+        System.arraycopy(values, index + 1, values, index, blockSizes[block] - index - 1);
+        blockSizes[block]--;
+        size--;
+        if (blockSizes[block] == 0) {
+            removeBlock(block);
+        } else {
+            firstValues[block] = values[0];
+            adjustCountsAfter(block, -1);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(long value) {
+        if (blockCount == 0) {
+            return false;
+        }
+        int block = blockFor(value);
+        return Arrays.binarySearch(blocks[block], 0, blockSizes[block], value) >= 0;
+    }
+
+    @Override
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int block = Arrays.binarySearch(countsBefore, 0, blockCount, index);
+        block = block >= 0 ? block : -block - 2;
+        return blocks[block][index - countsBefore[block]];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void forEach(LongConsumer action) {
+        for (int block = 0; block < blockCount; block++) {
+            long[] values = blocks[block];
+            for (int i = 0; i < blockSizes[block]; i++) {
+                action.accept(values[i]);
+            }
+        }
+    }
+
+    @Override
+    public long[] toArray() {
+        long[] result = new long[size];
+        for (int block = 0; block < blockCount; block++) {
+            System.arraycopy(blocks[block], 0, result, countsBefore[block], blockSizes[block]);
+        }
+        return result;
+    }
+
+    @Override
+    public long[] pageAfter(long after, int limit) {
+        long[] page = new long[Math.min(limit, size)];
+        int count = 0;
+        if (blockCount == 0) {
+            return page;
+        }
+        int block = blockFor(after);
+        int index = Arrays.binarySearch(blocks[block], 0, blockSizes[block], after);
+        index = index >= 0 ? index + 1 : -index - 1;
+        for (; block < blockCount && count < page.length; block++, index = 0) {
+            int copied = Math.min(blockSizes[block] - index, page.length - count);
+            System.arraycopy(blocks[block], index, page, count, copied);
+            count += copied;
+        }
+        return count == page.length ? page : Arrays.copyOf(page, count);
+    }
+
+    @Override
+    public long[] intersect(long[] sorted) {
+        long[] result = new long[Math.min(size, sorted.length)];
+        return Arrays.copyOf(result, intersect(sorted, result));
+    }
+
+    @Override
+    public int intersectionSize(long[] sorted) {
+        return intersect(sorted, null);
+    }
+
+    // Короткий массив ищется поштучно бинарным поиском, сравнимый по длине - слиянием по блокам.
+    private int intersect(long[] sorted, long[] result) {
+        int count = 0;
+        if ((long) sorted.length * GALLOP_RATIO < size) {
+            for (long value : sorted) {
+                if (contains(value)) {
+                    if (result != null) {
+                        result[count] = value;
+                    }
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        int j = 0;
+        for (int block = 0; block < blockCount && j < sorted.length; block++) {
+            long[] values = blocks[block];
+            int i = 0;
+            while (i < blockSizes[block] && j < sorted.length) {
+                long a = values[i];
+                long b = sorted[j];
+                if (a < b) {
+                    i++;
+                } else if (a > b) {
+                    j++;
+                } else {
+                    if (result != null) {
+                        result[count] = a;
+                    }
+                    count++;
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Последний блок, первое значение которого не больше value, или первый блок.
+    private int blockFor(long value) {
+        int block = Arrays.binarySearch(firstValues, 0, blockCount, value);
+        return block >= 0 ? block : Math.max(0, -block - 2);
+    }
+
+    private void split(int block) {
+        int half = blockSizes[block] / 2;
+        long[] upper = Arrays.copyOfRange(blocks[block], half, BLOCK_CAPACITY);
+        blockSizes[block] = half;
+        insertBlock(block + 1, upper, BLOCK_CAPACITY - half);
+        // insertBlock посчитал верхнюю половину новыми значениями, а она лишь переехала из соседнего блока.
+        adjustCountsAfter(block + 1, half - BLOCK_CAPACITY);
+        size -= BLOCK_CAPACITY - half;
+    }
+
+    private void insertBlock(int block, long[] values, int blockSize) {
+        if (blockCount == blocks.length) {
+            int capacity = blockCount * 2;
+            blocks = Arrays.copyOf(blocks, capacity);
+            blockSizes = Arrays.copyOf(blockSizes, capacity);
+            firstValues = Arrays.copyOf(firstValues, capacity);
+            countsBefore = Arrays.copyOf(countsBefore, capacity);
+        }
+        int moved = blockCount - block;
+        System.arraycopy(blocks, block, blocks, block + 1, moved);
+        System.arraycopy(blockSizes, block, blockSizes, block + 1, moved);
+        System.arraycopy(firstValues, block, firstValues, block + 1, moved);
+        System.arraycopy(countsBefore, block, countsBefore, block + 1, moved);
+        blocks[block] = values;
+        blockSizes[block] = blockSize;
+        firstValues[block] = values[0];
+        countsBefore[block] = block == 0 ? 0 : countsBefore[block - 1] + blockSizes[block - 1];
+        blockCount++;
+        adjustCountsAfter(block, blockSize);
+        size += blockSize;
+    }
+
+    private void removeBlock(int block) {
+        int moved = blockCount - block - 1;
+        System.arraycopy(blocks, block + 1, blocks, block, moved);
+        System.arraycopy(blockSizes, block + 1, blockSizes, block, moved);
+        System.arraycopy(firstValues, block + 1, firstValues, block, moved);
+        System.arraycopy(countsBefore, block + 1, countsBefore, block, moved);
+        blockCount--;
+        blocks[blockCount] = null;
+        adjustCountsAfter(block - 1, -1);
+    }
+
+    private void adjustCountsAfter(int block, int delta) {
+        for (int i = block + 1; i < blockCount; i++) {
+            countsBefore[i] += delta;
+        }
+    }
+}
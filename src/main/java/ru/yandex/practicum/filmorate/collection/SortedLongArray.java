@@ -0,0 +1,217 @@
+package ru.yandex.practicum.filmorate.collection;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// Множество long в виде отсортированного массива без упаковки: поиск бинарный, пересечение - слиянием.
+public class SortedLongArray implements SortedLongSet {
+    private static final long[] EMPTY = new long[0];
+    // Если один массив длиннее другого больше чем в столько раз, пересечение ищется галопом, а не слиянием.
+    private static final int GALLOP_RATIO = 32;
+
+    private long[] values = EMPTY;
+    private int size;
+
+    public SortedLongArray() {
+    }
+
+    private SortedLongArray(long[] values) {
+        this.values = values;
+        this.size = values.length;
+    }
+
+    // Оборачивает уже отсортированный по возрастанию массив без повторов, не копируя его.
+    public static SortedLongArray ofSorted(long[] values) {
+        return new SortedLongArray(values);
+    }
+
+    @Override
+    public boolean add(long value) {
+        // Идентификаторы чаще всего растут, поэтому сначала проверяем добавление в конец.
+        if (size == 0 || values[size - 1] < value) {
+            ensureCapacity();
+            values[size++] = value;
+            return true;
+        }
+
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return false;
+        }
+        index = -index - 1;
+        ensureCapacity();
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(long value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean contains(long value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    @Override
+    public long get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void forEach(LongConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    @Override
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public long[] pageAfter(long after, int limit) {
+        int index = Arrays.binarySearch(values, 0, size, after);
+        int from = index >= 0 ? index + 1 : -index - 1;
+        return Arrays.copyOfRange(values, from, from + Math.min(limit, size - from));
+    }
+
+    @Override
+    public void forEachSample(int limit, LongConsumer action) {
+        if (size <= limit) {
+            forEach(action);
+            return;
+        }
+        for (int i = 0; i < limit; i++) {
+            action.accept(values[(int) ((long) i * size / limit)]);
+        }
+    }
+
+    @Override
+    public long[] intersect(long[] sorted) {
+        return intersect(this, sorted);
+    }
+
+    @Override
+    public int intersectionSize(long[] sorted) {
+        return intersectionSize(this, sorted);
+    }
+
+    public static long[] intersect(SortedLongArray first, SortedLongArray second) {
+        return intersect(first.values, first.size, second.values, second.size);
+    }
+
+    public static long[] intersect(SortedLongArray first, long[] second) {
+        return intersect(first.values, first.size, second, second.length);
+    }
+
+    // Размер пересечения без выделения массива под результат.
+    public static int intersectionSize(SortedLongArray first, long[] second) {
+        return intersect(first.values, first.size, second, second.length, null);
+    }
+
+    private static long[] intersect(long[] first, int firstSize, long[] second, int secondSize) {
+        long[] result = new long[Math.min(firstSize, secondSize)];
+        if (result.length == 0) {
+            return EMPTY;
+        }
+        int count = intersect(first, firstSize, second, secondSize, result);
+        return Arrays.copyOf(result, count);
+    }
+
+    // Совпавшие значения пишутся в result, если он передан. Возвращает размер пересечения.
+    private static int intersect(long[] first, int firstSize, long[] second, int secondSize, long[] result) {
+        boolean firstSmaller = firstSize <= secondSize;
+        long[] smaller = firstSmaller ? first : second;
+        long[] larger = firstSmaller ? second : first;
+        int smallerSize = firstSmaller ? firstSize : secondSize;
+        int largerSize = firstSmaller ? secondSize : firstSize;
+        if (smallerSize == 0) {
+            return 0;
+        }
+        if ((long) smallerSize * GALLOP_RATIO < largerSize) {
+            return gallop(smaller, smallerSize, larger, largerSize, result);
+        }
+        return merge(smaller, smallerSize, larger, largerSize, result);
+    }
+
+    private static int merge(long[] first, int firstSize, long[] second, int secondSize, long[] result) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < firstSize && j < secondSize) {
+            long a = first[i];
+            long b = second[j];
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                if (result != null) {
+                    result[count] = a;
+                }
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    // Для каждого значения короткого массива ищем его в длинном: шагами 1, 2, 4... от прошлой позиции,
+    // затем бинарным поиском в найденном окне.
+    private static int gallop(long[] smaller, int smallerSize, long[] larger, int largerSize, long[] result) {
+        int count = 0;
+        int from = 0;
+        for (int i = 0; i < smallerSize && from < largerSize; i++) {
+            long value = smaller[i];
+            int step = 1;
+            int to = from;
+            while (to < largerSize && larger[to] < value) {
+                from = to + 1;
+                to += step;
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(larger, from, Math.min(to + 1, largerSize), value);
+            if (index >= 0) {
+                if (result != null) {
+                    result[count] = value;
+                }
+                count++;
+                from = index + 1;
+            } else {
+                from = -index - 1;
+            }
+        }
+        return count;
+    }
+
+    private void ensureCapacity() {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(4, size + (size >> 1)));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.collection;
+
+import java.util.function.LongConsumer;
+
+// Множество long с обходом по возрастанию и доступом по порядковому номеру.
+public interface SortedLongSet {
+    boolean add(long value);
+
+    boolean remove(long value);
+
+    boolean contains(long value);
+
+    // Значение с порядковым номером index среди значений по возрастанию.
+    long get(int index);
+
+    int size();
+
+    boolean isEmpty();
+
+    void forEach(LongConsumer action);
+
+    long[] toArray();
+
+    // Не больше limit значений, строго больших after, в порядке возрастания.
+    long[] pageAfter(long after, int limit);
+
+    // Пересечение с отсортированным массивом без повторов.
+    long[] intersect(long[] sorted);
+
+    int intersectionSize(long[] sorted);
+
+    // Не больше limit значений, равномерно взятых по всему множеству, в порядке возрастания.
+    default long[] sample(int limit) {
+        long[] sample = new long[Math.min(limit, size())];
+        int[] position = {0};
+        forEachSample(limit, value -> sample[position[0]++] = value);
+        return sample;
+    }
+
+    default void forEachSample(int limit, LongConsumer action) {
+        int size = size();
+        if (size <= limit) {
+            forEach(action);
+            return;
+        }
+        for (int i = 0; i < limit; i++) {
+            action.accept(get((int) ((long) i * size / limit)));
+        }
+    }
+}
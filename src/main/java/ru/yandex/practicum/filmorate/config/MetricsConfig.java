@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.friends.FriendsRepository;
+import ru.yandex.practicum.filmorate.repository.likes.LikesRepository;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+@Configuration
+public class MetricsConfig {
+
+    // Без аспекта аннотации @Timed на сервисах и репозиториях не записывают таймеры.
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public MeterBinder repositorySizeMetrics(FilmRepository filmRepository,
+                                             UserRepository userRepository,
+                                             LikesRepository likesRepository,
+                                             FriendsRepository friendsRepository) {
+        return registry -> {
+            Gauge.builder("filmorate.films.size", filmRepository, FilmRepository::count)
+                    .register(registry);
+            Gauge.builder("filmorate.users.size", userRepository, UserRepository::count)
+                    .register(registry);
+            Gauge.builder("filmorate.likes.films", likesRepository, LikesRepository::countFilmsWithLikes)
+                    .description("Фильмы, у которых есть хотя бы один лайк")
+                    .register(registry);
+            Gauge.builder("filmorate.likes.size", likesRepository, LikesRepository::countLikes)
+                    .register(registry);
+            Gauge.builder("filmorate.friendships.size", friendsRepository, FriendsRepository::countFriendships)
+                    .description("Записи о дружбе в обе стороны, включая неподтвержденные")
+                    .register(registry);
+            for (int bucket = 0; bucket < FriendsRepository.DEGREE_BUCKETS; bucket++) {
+                int degreeBucket = bucket;
+                Gauge.builder("filmorate.friends.degree.users", friendsRepository,
+                                repository -> repository.countUsersByDegreeBucket(degreeBucket))
+                        .description("Пользователи, у которых друзей не больше max_degree и больше половины от него")
+                        .tag("max_degree", String.valueOf(1L << bucket))
+                        .register(registry);
+            }
+            Gauge.builder("filmorate.friends.high.degree.users", friendsRepository,
+                            FriendsRepository::countHighDegreeUsers)
+                    .description("Пользователи с числом друзей выше порога блочного хранения")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import ru.yandex.practicum.filmorate.repository.film.InMemoryFilmRepository;
+import ru.yandex.practicum.filmorate.repository.friends.InMemoryFriendsRepository;
+import ru.yandex.practicum.filmorate.repository.likes.InMemoryLikesRepository;
+import ru.yandex.practicum.filmorate.repository.user.InMemoryUserRepository;
+import ru.yandex.practicum.filmorate.wal.FsyncPolicy;
+import ru.yandex.practicum.filmorate.wal.MutationLog;
+import ru.yandex.practicum.filmorate.wal.WalStateManager;
+import ru.yandex.practicum.filmorate.wal.WriteAheadLog;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Журнал изменений для репозиториев в памяти. Выключен по умолчанию: тогда репозитории получают MutationLog.NONE.
+@Configuration
+@Profile("dev")
+public class WalConfig {
+    private static final String ENABLED = "filmorate.wal.enabled";
+
+    @Bean
+    @ConditionalOnProperty(name = ENABLED, havingValue = "false", matchIfMissing = true)
+    public MutationLog disabledMutationLog() {
+        return MutationLog.NONE;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = ENABLED, havingValue = "true")
+    public WriteAheadLog writeAheadLog(@Value("${filmorate.wal.directory}") Path directory,
+                                       @Value("${filmorate.wal.fsync}") FsyncPolicy fsyncPolicy,
+                                       @Value("${filmorate.wal.fsync-interval}") Duration fsyncInterval) {
+        return new WriteAheadLog(directory, fsyncPolicy, fsyncInterval);
+    }
+
+    // Восстановление идет при создании бина, до того как веб-сервер начнет принимать запросы.
+    // В профиле mmap репозиториев фильмов и пользователей в памяти нет, они хранятся в своих файлах.
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = ENABLED, havingValue = "true")
+    public WalStateManager walStateManager(WriteAheadLog writeAheadLog,
+                                           ObjectProvider<InMemoryFilmRepository> filmRepository,
+                                           ObjectProvider<InMemoryUserRepository> userRepository,
+                                           InMemoryLikesRepository likesRepository,
+                                           InMemoryFriendsRepository friendsRepository,
+                                           @Value("${filmorate.wal.snapshot-interval}") Duration snapshotInterval) {
+        return new WalStateManager(writeAheadLog, filmRepository.getIfAvailable(), userRepository.getIfAvailable(),
+                likesRepository, friendsRepository, snapshotInterval);
+    }
+}
@@ -1,6 +1,8 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -10,26 +12,53 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.dto.BulkImportResultDto;
+import ru.yandex.practicum.filmorate.dto.CursorPageResponse;
 import ru.yandex.practicum.filmorate.dto.FilmRegisterDto;
 import ru.yandex.practicum.filmorate.dto.FilmUpdateDto;
+import ru.yandex.practicum.filmorate.dto.LikeBatchRequestDto;
+import ru.yandex.practicum.filmorate.dto.LikeBatchResultDto;
+import ru.yandex.practicum.filmorate.dto.LikeSummaryDto;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.JsonStreamExporter;
+import ru.yandex.practicum.filmorate.service.NdjsonImporter;
+import ru.yandex.practicum.filmorate.service.PopularFilms;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
-import java.util.Set;
 
 @RestController
 @RequestMapping("/films")
 public class FilmController {
     private final FilmService filmService;
+    private final NdjsonImporter ndjsonImporter;
+    private final JsonStreamExporter jsonStreamExporter;
 
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, NdjsonImporter ndjsonImporter,
+                          JsonStreamExporter jsonStreamExporter) {
         this.filmService = filmService;
+        this.ndjsonImporter = ndjsonImporter;
+        this.jsonStreamExporter = jsonStreamExporter;
     }
 
+    // Список отдается потоком, без сборки в памяти; с Accept: application/x-ndjson - по записи на строку.
     @GetMapping
-    public List<Film> getAllFilms() {
-        return filmService.getAllFilms();
+    public ResponseEntity<StreamingResponseBody> getAllFilms() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonStreamExporter.jsonArray(filmService::forEachFilm));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(jsonStreamExporter.ndjson(filmService::forEachFilm));
     }
 
     @GetMapping("/{id}")
@@ -42,6 +71,12 @@ public class FilmController {
         return filmService.addFilm(filmRegisterDto);
     }
 
+    // Тело читается потоком, по одному объекту FilmRegisterDto на строку.
+    @PostMapping(path = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BulkImportResultDto importFilms(InputStream body) throws IOException {
+        return ndjsonImporter.importLines(body, FilmRegisterDto.class, filmService::addFilms);
+    }
+
     @PutMapping("/{id}")
     public Film updateFilm(@Valid @RequestBody FilmUpdateDto filmUpdateDto, @PathVariable Long id) {
         return filmService.updateFilm(filmUpdateDto, id);
@@ -53,17 +88,35 @@ public class FilmController {
     }
 
     @GetMapping("/popular")
-    public List<Film> getMostLikedFilms(@RequestParam(defaultValue = "10") Integer count) {
-        return filmService.getMostLikedFilms(count);
+    public List<Film> getMostLikedFilms(@RequestParam(defaultValue = "10") Integer count,
+                                        @RequestParam(required = false) TrendingWindow window,
+                                        WebRequest request) {
+        PopularFilms popularFilms = filmService.getMostLikedFilms(count, window);
+        if (request.checkNotModified(popularFilms.etag())) {
+            return null;
+        }
+        return popularFilms.films();
+    }
+
+    @GetMapping("/{id}/likes")
+    public CursorPageResponse<Long> getFilmLikes(@PathVariable Long id,
+                                                 @RequestParam(required = false) Long cursor,
+                                                 @RequestParam(defaultValue = "100") Integer limit) {
+        return filmService.getFilmLikes(id, cursor, limit);
     }
 
     @PutMapping("/{id}/like/{userId}")
-    public Set<Long> addLike(@PathVariable Long id, @PathVariable Long userId) {
+    public LikeSummaryDto addLike(@PathVariable Long id, @PathVariable Long userId) {
         return filmService.addLike(id, userId);
     }
 
     @DeleteMapping("/{id}/like/{userId}")
-    public Set<Long> deleteLike(@PathVariable Long id, @PathVariable Long userId) {
+    public LikeSummaryDto deleteLike(@PathVariable Long id, @PathVariable Long userId) {
         return filmService.deleteLike(id, userId);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/likes/batch")
+    public LikeBatchResultDto applyLikes(@Valid @RequestBody LikeBatchRequestDto likeBatchRequestDto) {
+        return filmService.applyLikes(likeBatchRequestDto);
+    }
+}
@@ -1,6 +1,8 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -9,26 +11,53 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.dto.BulkImportResultDto;
+import ru.yandex.practicum.filmorate.dto.CursorPageResponse;
+import ru.yandex.practicum.filmorate.dto.FriendRecommendationDto;
+import ru.yandex.practicum.filmorate.dto.MutualFriendsCountDto;
+import ru.yandex.practicum.filmorate.dto.MutualFriendsCountRequestDto;
 import ru.yandex.practicum.filmorate.dto.UserRegisterDto;
 import ru.yandex.practicum.filmorate.dto.UserUpdateDto;
+import ru.yandex.practicum.filmorate.dto.UserView;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.JsonStreamExporter;
+import ru.yandex.practicum.filmorate.service.NdjsonImporter;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
 @RequestMapping("/users")
 public class UserController {
     private final UserService userService;
+    private final NdjsonImporter ndjsonImporter;
+    private final JsonStreamExporter jsonStreamExporter;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, NdjsonImporter ndjsonImporter,
+                          JsonStreamExporter jsonStreamExporter) {
         this.userService = userService;
+        this.ndjsonImporter = ndjsonImporter;
+        this.jsonStreamExporter = jsonStreamExporter;
     }
 
+    // Список отдается потоком, без сборки в памяти; с Accept: application/x-ndjson - по записи на строку.
     @GetMapping
-    public List<User> getAllUsers() {
-        return userService.getAllUsers();
+    public ResponseEntity<StreamingResponseBody> getAllUsers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonStreamExporter.jsonArray(userService::forEachUser));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(jsonStreamExporter.ndjson(userService::forEachUser));
     }
 
     @GetMapping("/{id}")
@@ -41,6 +70,12 @@ public class UserController {
         return userService.registerUser(userRegisterDto);
     }
 
+    // Тело читается потоком, по одному объекту UserRegisterDto на строку.
+    @PostMapping(path = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BulkImportResultDto importUsers(InputStream body) throws IOException {
+        return ndjsonImporter.importLines(body, UserRegisterDto.class, userService::registerUsers);
+    }
+
     @PutMapping("/{id}")
     public User updateUser(@Valid @RequestBody UserUpdateDto userUpdateDto, @PathVariable Long id) {
         return userService.updateUser(userUpdateDto, id);
@@ -56,11 +91,46 @@ public class UserController {
         return userService.getUserFriends(id);
     }
 
+    // С параметром limit друзья отдаются постранично, без него - прежним полным списком.
+    @GetMapping(value = "/{id}/friends", params = "limit")
+    public CursorPageResponse<?> getUserFriendsPage(@PathVariable Long id,
+                                                    @RequestParam(required = false) Long cursor,
+                                                    @RequestParam Integer limit,
+                                                    @RequestParam(defaultValue = "FULL") UserView view) {
+        return userService.getUserFriendsPage(id, cursor, limit, view);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     public List<User> getMutualFriends(@PathVariable Long id, @PathVariable Long otherId) {
         return userService.getMutualFriends(id, otherId);
     }
 
+    @PostMapping("/{id}/friends/common/counts")
+    public List<MutualFriendsCountDto> getMutualFriendsCounts(@PathVariable Long id,
+                                                              @Valid @RequestBody MutualFriendsCountRequestDto mutualFriendsCountRequestDto) {
+        return userService.getMutualFriendsCounts(id, mutualFriendsCountRequestDto);
+    }
+
+    @GetMapping("/{id}/friends/recommendations")
+    public List<FriendRecommendationDto> getFriendRecommendations(@PathVariable Long id,
+                                                                  @RequestParam(defaultValue = "10") Integer limit) {
+        return userService.getFriendRecommendations(id, limit);
+    }
+
+    @GetMapping("/{id}/friends/requests/incoming")
+    public CursorPageResponse<User> getIncomingFriendRequests(@PathVariable Long id,
+                                                              @RequestParam(required = false) Long cursor,
+                                                              @RequestParam(defaultValue = "100") Integer limit) {
+        return userService.getIncomingFriendRequests(id, cursor, limit);
+    }
+
+    @GetMapping("/{id}/friends/requests/outgoing")
+    public CursorPageResponse<User> getOutgoingFriendRequests(@PathVariable Long id,
+                                                              @RequestParam(required = false) Long cursor,
+                                                              @RequestParam(defaultValue = "100") Integer limit) {
+        return userService.getOutgoingFriendRequests(id, cursor, limit);
+    }
+
     @PutMapping("/{id}/friends/{friendId}")
     public void sendUserFriendRequest(@PathVariable Long id, @PathVariable Long friendId) {
         userService.sendUserFriendRequest(id, friendId);
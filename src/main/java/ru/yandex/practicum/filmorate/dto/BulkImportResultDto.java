@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResultDto {
+    private long imported;
+    private long failed;
+    // Ошибки первых строк, не прошедших проверку; остальные учитываются только в failed.
+    private List<BulkImportErrorDto> errors;
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.model.User;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FriendRecommendationDto {
+    private User user;
+    private int mutualFriends;
+}
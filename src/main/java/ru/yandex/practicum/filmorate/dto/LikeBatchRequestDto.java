@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class LikeBatchRequestDto {
+    @NotNull(message = "Поле operations должно быть передано.")
+    @Size(max = 10000, message = "Пакет не должен содержать больше 10000 операций.")
+    List<@Valid LikeOperationDto> operations;
+}
@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.dto;
+
+public enum LikeBatchStatus {
+    APPLIED,
+    UNCHANGED,
+    FILM_NOT_FOUND,
+    USER_NOT_FOUND
+}
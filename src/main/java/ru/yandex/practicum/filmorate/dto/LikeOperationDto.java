@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+
+@Data
+public class LikeOperationDto {
+    @NotNull(message = "Поле filmId должно быть передано.")
+    Long filmId;
+
+    @NotNull(message = "Поле userId должно быть передано.")
+    Long userId;
+
+    @NotNull(message = "Поле op должно быть передано.")
+    LikeOperation op;
+}
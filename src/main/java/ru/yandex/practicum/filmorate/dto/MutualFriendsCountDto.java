@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MutualFriendsCountDto {
+    private Long userId;
+    private int mutualFriends;
+}
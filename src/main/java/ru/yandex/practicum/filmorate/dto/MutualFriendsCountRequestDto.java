@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MutualFriendsCountRequestDto {
+    @NotNull(message = "Поле userIds должно быть передано.")
+    @Size(max = 10000, message = "Запрос не должен содержать больше 10000 пользователей.")
+    List<@NotNull(message = "Id пользователя не должен быть пустым.") Long> userIds;
+}
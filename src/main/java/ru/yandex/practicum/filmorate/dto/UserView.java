@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.dto;
+
+// Сколько данных о пользователе отдавать в списках: только id, id и имя или пользователя целиком.
+public enum UserView {
+    ID,
+    SHORT,
+    FULL
+}
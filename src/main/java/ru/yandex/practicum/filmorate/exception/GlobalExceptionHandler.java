@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.exception;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -19,10 +20,16 @@ import java.util.List;
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
 
     @ExceptionHandler(UserNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ValidationErrorResponse handleUserNotFoundException(UserNotFoundException e, HttpServletRequest r) {
+        countError("not_found", "user");
         List<ErrorResponse> errors = e.getErrors().stream().toList();
 
         return new ValidationErrorResponse(
@@ -38,6 +45,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(FilmNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ValidationErrorResponse handleFilmNotFoundException(FilmNotFoundException e, HttpServletRequest r) {
+        countError("not_found", "film");
         List<ErrorResponse> errors = e.getErrors().stream().toList();
 
         return new ValidationErrorResponse(
@@ -53,6 +61,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(FriendNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ValidationErrorResponse handleFriendNotFoundException(FriendNotFoundException e, HttpServletRequest r) {
+        countError("not_found", "friend");
         List<ErrorResponse> errors = e.getErrors().stream().toList();
 
         return new ValidationErrorResponse(
@@ -68,6 +77,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ValidationErrorResponse handleValidation(MethodArgumentNotValidException e, HttpServletRequest r) {
+        countError("validation", e.getBindingResult().getObjectName());
         e.getBindingResult().getFieldErrors().forEach(error ->
                 log.warn("Поле: '{}'. Ошибка: {}",
                         error.getField(),
@@ -86,4 +96,8 @@ public class GlobalExceptionHandler {
                 errors
         );
     }
+
+    private void countError(String type, String entity) {
+        meterRegistry.counter("filmorate.errors", "type", type, "entity", entity).increment();
+    }
 }
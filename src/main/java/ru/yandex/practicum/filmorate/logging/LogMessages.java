@@ -8,6 +8,10 @@ public class LogMessages {
     public static final String USER_ADD = "Начало метода registerUser, user: {}"; // user
     public static final String USER_UPDATE = "Начало метода updateUser, user: {}"; // user
     public static final String USER_DELETE = "Начало метода deleteUser, id: {}"; // id
+    public static final String LIKES_BATCH = "Начало метода applyLikes, операций: {}"; // size
+    public static final String FILMS_ADD = "Начало метода addFilms, фильмов: {}"; // size
+    public static final String USERS_ADD = "Начало метода registerUsers, пользователей: {}"; // size
+    public static final String BULK_IMPORT = "Начало импорта NDJSON, тип: {}"; // type
 
     // Info
     public static final String FILM_SAVE_SUCCESS = "Фильм успешно сохранен, film: {}"; // film
@@ -16,6 +20,10 @@ public class LogMessages {
     public static final String USER_SAVE_SUCCESS = "Пользователь успешно сохранен, user: {}"; // user
     public static final String USER_UPDATE_SUCCESS = "Пользователь успешно обновлен, user: {}"; // user
     public static final String USER_DELETE_SUCCESS = "Пользователь успешно удален, user: {}"; // user
+    public static final String LIKES_BATCH_SUCCESS = "Пакет лайков применен, изменено: {} из {}"; // applied, size
+    public static final String FILMS_SAVE_SUCCESS = "Пачка фильмов сохранена, фильмов: {}"; // size
+    public static final String USERS_SAVE_SUCCESS = "Пачка пользователей сохранена, пользователей: {}"; // size
+    public static final String BULK_IMPORT_SUCCESS = "Импорт NDJSON завершен, тип: {}, сохранено: {}, ошибок: {}"; // type, imported, failed
 
     // Debug
     public static final String FILM_SAVE_STARTED = "Сохранение фильма: {}"; // film
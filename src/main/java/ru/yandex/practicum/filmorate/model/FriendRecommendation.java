@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class FriendRecommendation {
+    Long userId;
+    Integer mutualFriends;
+}
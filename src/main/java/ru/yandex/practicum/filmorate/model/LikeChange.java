@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class LikeChange {
+    Long filmId;
+    Long userId;
+    LikeOperation operation;
+}
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public enum TrendingWindow {
+    HOUR(Duration.ofMinutes(1), 60),
+    DAY(Duration.ofHours(1), 24);
+
+    private final Duration bucketDuration;
+    private final int buckets;
+
+    TrendingWindow(Duration bucketDuration, int buckets) {
+        this.bucketDuration = bucketDuration;
+        this.buckets = buckets;
+    }
+}
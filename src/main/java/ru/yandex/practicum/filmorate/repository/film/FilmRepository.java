@@ -3,17 +3,26 @@ package ru.yandex.practicum.filmorate.repository.film;
 import ru.yandex.practicum.filmorate.model.Film;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface FilmRepository {
     Film save(Film film);
 
+    // Сохраняет фильмы пачкой и проставляет им id в порядке списка.
+    List<Film> saveAll(List<Film> films);
+
     Film findById(Long id);
 
     List<Film> findAll();
 
+    // Обходит все записи без сборки списка; записи, измененные во время обхода, могут попасть в него или нет.
+    void forEachFilm(Consumer<Film> action);
+
     Film update(Film film);
 
     Film deleteById(Long id);
 
+    long count();
+
     void clear();
 }
\ No newline at end of file
@@ -1,29 +1,66 @@
 package ru.yandex.practicum.filmorate.repository.film;
 
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.wal.MutationLog;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Repository
-@Profile("dev")
+@Profile("dev & !mmap")
+@Timed(value = "filmorate.repository", histogram = true)
 public class InMemoryFilmRepository implements FilmRepository {
-    private final Map<Long, Film> films = new HashMap<>();
-    private Long lastId = 1L;
+    // ConcurrentHashMap: выгрузка и снимок журнала обходят записи параллельно с изменениями.
+    // Изменение записи и его запись в журнал делаются внутри compute, под блокировкой ключа в карте:
+    // изменения одного id попадают в журнал в том же порядке, в котором применены.
+    private final Map<Long, Film> films = new ConcurrentHashMap<>();
+    private final MutationLog mutationLog;
+    private final AtomicLong lastId = new AtomicLong(1);
+
+    public InMemoryFilmRepository() {
+        this(MutationLog.NONE);
+    }
+
+    @Autowired
+    public InMemoryFilmRepository(MutationLog mutationLog) {
+        this.mutationLog = mutationLog;
+    }
 
     @Override
     public Film save(Film film) {
-        film.setId(lastId);
-        films.put(lastId, film);
-        lastId++;
+        film.setId(lastId.getAndIncrement());
+        put(film);
+        mutationLog.sync();
         return film;
     }
 
+    // Вся пачка ждет журнал изменений один раз и получает подряд идущие id одним обращением к счетчику.
+    @Override
+    public List<Film> saveAll(List<Film> films) {
+        long id = lastId.getAndAdd(films.size());
+        for (Film film : films) {
+            film.setId(id++);
+            put(film);
+        }
+        mutationLog.sync();
+        return films;
+    }
+
+    private void put(Film film) {
+        films.compute(film.getId(), (id, previous) -> {
+            mutationLog.filmSaved(film);
+            return film;
+        });
+    }
+
     @Override
     public Film findById(Long id) {
         return films.get(id);
@@ -34,21 +71,64 @@ public class InMemoryFilmRepository implements FilmRepository {
         return new ArrayList<>(films.values());
     }
 
+    @Override
+    public void forEachFilm(Consumer<Film> action) {
+        films.values().forEach(action);
+    }
+
+    // Удаленная к этому моменту запись не восстанавливается: возвращается null.
     @Override
     public Film update(Film film) {
-        Long id = film.getId();
-        films.put(id, film);
-        return films.get(id);
+        Film updated = films.computeIfPresent(film.getId(), (id, previous) -> {
+            mutationLog.filmSaved(film);
+            return film;
+        });
+        if (updated != null) {
+            mutationLog.sync();
+        }
+        return updated;
     }
 
     @Override
     public Film deleteById(Long id) {
-        return films.remove(id);
+        List<Film> removed = new ArrayList<>(1);
+        films.computeIfPresent(id, (key, previous) -> {
+            mutationLog.filmDeleted(id);
+            removed.add(previous);
+            return null;
+        });
+        if (removed.isEmpty()) {
+            return null;
+        }
+        mutationLog.sync();
+        return removed.get(0);
+    }
+
+    // Кладет запись с уже назначенным id, например при восстановлении из журнала изменений.
+    public void restore(Film film) {
+        films.put(film.getId(), film);
+        reserveId(film.getId());
+    }
+
+    // Id, который получит следующая запись.
+    public Long getNextId() {
+        return lastId.get();
+    }
+
+    // Не дает выдать id повторно, даже если запись с ним уже удалена.
+    public void reserveId(Long id) {
+        lastId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    @Override
+    public long count() {
+        return films.size();
     }
 
+    // Очистка нужна тестам и не попадает в журнал изменений.
     @Override
     public void clear() {
         films.clear();
-        lastId = 1L;
+        lastId.set(1);
     }
 }
@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@Repository
+@Profile("prod")
+@Timed(value = "filmorate.repository", histogram = true)
+public class JdbcFilmRepository implements FilmRepository {
+    private static final String COLUMNS = "id, name, description, release_date, duration_seconds, duration_nanos";
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public JdbcFilmRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public Film save(Film film) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.update("INSERT INTO films (name, description, release_date, duration_seconds, duration_nanos) "
+                + "VALUES (:name, :description, :releaseDate, :durationSeconds, :durationNanos)", filmParams(film), keyHolder,
+                new String[]{"id"});
+        film.setId(keyHolder.getKeyAs(Long.class));
+        return film;
+    }
+
+    // Одна пачка INSERT вместо запроса на каждый фильм, ключи возвращаются в порядке строк.
+    @Override
+    @Transactional
+    public List<Film> saveAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.batchUpdate("INSERT INTO films (name, description, release_date, duration_seconds, duration_nanos) "
+                + "VALUES (:name, :description, :releaseDate, :durationSeconds, :durationNanos)",
+                films.stream().map(JdbcFilmRepository::filmParams).toArray(SqlParameterSource[]::new), keyHolder,
+                new String[]{"id"});
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < films.size(); i++) {
+            films.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+        }
+        return films;
+    }
+
+    @Override
+    public Film findById(Long id) {
+        List<Film> films = jdbc.query("SELECT " + COLUMNS + " FROM films WHERE id = :id", Map.of("id", id),
+                JdbcFilmRepository::mapFilm);
+        return films.isEmpty() ? null : films.get(0);
+    }
+
+    @Override
+    public List<Film> findAll() {
+        return jdbc.query("SELECT " + COLUMNS + " FROM films ORDER BY id", JdbcFilmRepository::mapFilm);
+    }
+
+    // Строки передаются по мере чтения курсора, без списка результатов.
+    @Override
+    public void forEachFilm(Consumer<Film> action) {
+        jdbc.query("SELECT " + COLUMNS + " FROM films ORDER BY id",
+                (RowCallbackHandler) resultSet -> action.accept(mapFilm(resultSet, resultSet.getRow())));
+    }
+
+    @Override
+    public Film update(Film film) {
+        jdbc.update("UPDATE films SET name = :name, description = :description, release_date = :releaseDate, "
+                + "duration_seconds = :durationSeconds, duration_nanos = :durationNanos WHERE id = :id", filmParams(film));
+        return findById(film.getId());
+    }
+
+    @Override
+    @Transactional
+    public Film deleteById(Long id) {
+        Film film = findById(id);
+        if (film != null) {
+            jdbc.update("DELETE FROM films WHERE id = :id", Map.of("id", id));
+        }
+        return film;
+    }
+
+    @Override
+    public long count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM films", Map.of(), Long.class);
+    }
+
+    // Как и в памяти, после очистки id снова начинаются с 1.
+    @Override
+    @Transactional
+    public void clear() {
+        jdbc.update("DELETE FROM films", Map.of());
+        jdbc.update("ALTER TABLE films ALTER COLUMN id RESTART WITH 1", Map.of());
+    }
+
+    // Длительность хранится секундами и наносекундами, как в MmapFilmRepository, чтобы дробная часть не терялась.
+    private static MapSqlParameterSource filmParams(Film film) {
+        Duration duration = film.getDuration();
+        return new MapSqlParameterSource()
+                .addValue("id", film.getId())
+                .addValue("name", film.getName())
+                .addValue("description", film.getDescription())
+                .addValue("releaseDate", film.getReleaseDate())
+                .addValue("durationSeconds", duration == null ? null : duration.getSeconds())
+                .addValue("durationNanos", duration == null ? 0 : duration.getNano());
+    }
+
+    private static Film mapFilm(ResultSet resultSet, int rowNum) throws SQLException {
+        Long durationSeconds = resultSet.getObject("duration_seconds", Long.class);
+        return Film.builder()
+                .id(resultSet.getLong("id"))
+                .name(resultSet.getString("name"))
+                .description(resultSet.getString("description"))
+                .releaseDate(resultSet.getObject("release_date", LocalDate.class))
+                .duration(durationSeconds == null ? null
+                        : Duration.ofSeconds(durationSeconds, resultSet.getInt("duration_nanos")))
+                .build();
+    }
+}
@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.repository.mmap.MappedRecordStore;
+import ru.yandex.practicum.filmorate.repository.mmap.MappedRecordTable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Фильмы в отображенных в память файлах вместо объектов в куче: запись фиксированного размера
+// со ссылками на строки в арене. Включается профилем mmap вместе с dev. В куче живут только фильмы,
+// которые сейчас читаются, но каждый из них findById декодирует целиком, без ленивого представления
+// над слотом (см. MappedRecordTable).
+@Repository
+@Profile("dev & mmap")
+@Timed(value = "filmorate.repository", histogram = true)
+public class MmapFilmRepository implements FilmRepository, Closeable {
+    private static final int NAME = 8;
+    private static final int DESCRIPTION = 16;
+    private static final int RELEASE_DATE = 24;
+    private static final int DURATION_SECONDS = 32;
+    private static final int DURATION_NANOS = 40;
+    private static final int RECORD_SIZE = 48;
+    private static final long NULL = Long.MIN_VALUE;
+
+    private final MappedRecordTable<Film> table;
+
+    @Autowired
+    public MmapFilmRepository(@Value("${filmorate.mmap.directory:./data/mmap}") Path directory,
+                              @Value("${filmorate.mmap.force-interval:1s}") Duration forceInterval) throws IOException {
+        this.table = new MappedRecordTable<>(new MappedRecordStore(directory, "films", RECORD_SIZE),
+                new FilmCodec(), forceInterval);
+    }
+
+    MmapFilmRepository(Path directory) throws IOException {
+        this(directory, Duration.ZERO);
+    }
+
+    @Override
+    public Film save(Film film) {
+        return table.save(film);
+    }
+
+    @Override
+    public List<Film> saveAll(List<Film> films) {
+        return table.saveAll(films);
+    }
+
+    @Override
+    public Film findById(Long id) {
+        return table.findById(id);
+    }
+
+    @Override
+    public List<Film> findAll() {
+        return table.findAll();
+    }
+
+    @Override
+    public void forEachFilm(Consumer<Film> action) {
+        table.forEach(action);
+    }
+
+    @Override
+    public Film update(Film film) {
+        return table.update(film);
+    }
+
+    @Override
+    public Film deleteById(Long id) {
+        return table.deleteById(id);
+    }
+
+    @Override
+    public long count() {
+        return table.count();
+    }
+
+    @Override
+    public void clear() {
+        table.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        table.close();
+    }
+
+    private static final class FilmCodec implements MappedRecordTable.RecordCodec<Film> {
+        private static final int[] STRING_FIELDS = {NAME, DESCRIPTION};
+
+        @Override
+        public int[] stringFields() {
+            return STRING_FIELDS;
+        }
+
+        @Override
+        public long getId(Film film) {
+            return film.getId();
+        }
+
+        @Override
+        public void setId(Film film, long id) {
+            film.setId(id);
+        }
+
+        @Override
+        public void write(MappedRecordStore store, long id, Film film) {
+            store.putLong(id, NAME, store.putString(film.getName()));
+            store.putLong(id, DESCRIPTION, store.putString(film.getDescription()));
+            store.putLong(id, RELEASE_DATE,
+                    film.getReleaseDate() == null ? NULL : film.getReleaseDate().toEpochDay());
+            Duration duration = film.getDuration();
+            store.putLong(id, DURATION_SECONDS, duration == null ? NULL : duration.getSeconds());
+            store.putInt(id, DURATION_NANOS, duration == null ? 0 : duration.getNano());
+        }
+
+        @Override
+        public Film read(MappedRecordStore store, long id) {
+            long releaseDate = store.getLong(id, RELEASE_DATE);
+            long durationSeconds = store.getLong(id, DURATION_SECONDS);
+            return Film.builder()
+                    .id(id)
+                    .name(store.getString(store.getLong(id, NAME)))
+                    .description(store.getString(store.getLong(id, DESCRIPTION)))
+                    .releaseDate(releaseDate == NULL ? null : LocalDate.ofEpochDay(releaseDate))
+                    .duration(durationSeconds == NULL ? null
+                            : Duration.ofSeconds(durationSeconds, store.getInt(id, DURATION_NANOS)))
+                    .build();
+        }
+    }
+}
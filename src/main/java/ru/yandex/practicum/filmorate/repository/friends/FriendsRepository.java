@@ -1,15 +1,51 @@
 package ru.yandex.practicum.filmorate.repository.friends;
 
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+
 import java.util.List;
 
 public interface FriendsRepository {
+    // Ячейки распределения пользователей по числу друзей, см. countUsersByDegreeBucket.
+    int DEGREE_BUCKETS = 32;
+
     void sendFriendship(Long userId, Long friendId);
 
     void acceptFriendship(Long userId, Long friendId);
 
     void deleteFriendship(Long userId, Long friendId);
 
+    List<Long> deleteFriendshipsByUserId(Long id);
+
+    boolean areFriends(Long userId, Long friendId);
+
     List<Long> findFriendsById(Long id);
 
+    List<Long> findFriendsPage(Long id, Long afterUserId, Integer limit);
+
+    List<Long> findMutualFriendIds(Long id, Long otherId);
+
+    int[] countMutualFriends(Long id, List<Long> otherIds);
+
+    List<Long> findFriendsSample(Long id, Integer size);
+
+    List<FriendRecommendation> findFriendsOfFriends(Long id, List<Long> viaFriendIds, Integer limit, Integer fanOut);
+
+    List<Long> findIncomingRequestsPage(Long id, Long afterUserId, Integer limit);
+
+    List<Long> findOutgoingRequestsPage(Long id, Long afterUserId, Integer limit);
+
+    long countFriendships();
+
+    // Пользователи, у которых число друзей в (2^(bucket-1), 2^bucket], для bucket = 0 - ровно один друг.
+    long countUsersByDegreeBucket(int bucket);
+
+    // Пользователи, число друзей которых выше порога отдельного хранения больших списков.
+    long countHighDegreeUsers();
+
+    // Ячейка для countUsersByDegreeBucket по числу друзей degree > 0.
+    static int degreeBucket(int degree) {
+        return 32 - Integer.numberOfLeadingZeros(degree - 1);
+    }
+
     void clear();
 }
@@ -0,0 +1,241 @@
+package ru.yandex.practicum.filmorate.repository.friends;
+
+import ru.yandex.practicum.filmorate.collection.SortedLongSet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongFunction;
+
+// Снимок графа друзей в формате CSR. Хранятся только направленные ребра "пользователь -> друг",
+// заявки без ответа восстанавливаются по ним: это ребра, у которых нет обратного.
+//
+// Заголовок (32 байта): MAGIC, VERSION, число пользователей n, число ребер, длина секции пользователей.
+// Пользователи: n id по возрастанию, разности с предыдущим в zigzag varint.
+// Смещения: n + 1 чисел long - начало списка друзей каждого пользователя в секции друзей, чтобы
+//     при чтении через mmap можно было перейти к любому пользователю без разбора предыдущих.
+// Друзья: для каждого пользователя varint число друзей, затем их id разностями в zigzag varint.
+final class FriendsSnapshot {
+    static final int MAGIC = 0x46524E44;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    // Файл отображается в память окнами, потому что MappedByteBuffer не бывает длиннее 2 ГБ.
+    static final int DEFAULT_WINDOW_BYTES = 256 << 20;
+
+    private FriendsSnapshot() {
+    }
+
+    static void write(Path path, long[] userIds, LongFunction<SortedLongSet> friendsOf) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChannelWriter writer = new ChannelWriter(channel, HEADER_BYTES);
+
+            long previous = 0;
+            for (long userId : userIds) {
+                writer.putVarLong(userId - previous);
+                previous = userId;
+            }
+            long usersBytes = writer.position() - HEADER_BYTES;
+
+            // Под смещения оставляется место, сами смещения известны только после записи друзей.
+            long offsetsStart = writer.position();
+            writer.skip((userIds.length + 1L) * Long.BYTES);
+            long neighborsStart = writer.position();
+
+            long[] offsets = new long[userIds.length + 1];
+            long edges = 0;
+            for (int i = 0; i < userIds.length; i++) {
+                offsets[i] = writer.position() - neighborsStart;
+                SortedLongSet userFriends = friendsOf.apply(userIds[i]);
+                writer.putVarLong(userFriends.size());
+                previous = 0;
+                for (int j = 0; j < userFriends.size(); j++) {
+                    long friendId = userFriends.get(j);
+                    writer.putVarLong(friendId - previous);
+                    previous = friendId;
+                }
+                edges += userFriends.size();
+            }
+            offsets[userIds.length] = writer.position() - neighborsStart;
+            writer.flush();
+
+            ChannelWriter offsetsWriter = new ChannelWriter(channel, offsetsStart);
+            for (long offset : offsets) {
+                offsetsWriter.putLong(offset);
+            }
+            offsetsWriter.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(userIds.length)
+                    .putLong(edges)
+                    .putLong(usersBytes)
+                    .flip();
+            writeFully(channel, header, 0);
+            channel.force(false);
+        }
+    }
+
+    static long read(Path path, AdjacencyConsumer consumer) throws IOException {
+        return read(path, DEFAULT_WINDOW_BYTES, consumer);
+    }
+
+    // Возвращает число прочитанных ребер.
+    static long read(Path path, int windowBytes, AdjacencyConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (channel.read(header, 0) != HEADER_BYTES) {
+                throw new IOException("Снимок друзей поврежден: нет заголовка, файл " + path);
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Файл не является снимком друзей версии " + VERSION + ": " + path);
+            }
+            long userCount = header.getLong();
+            long edgeCount = header.getLong();
+            long usersBytes = header.getLong();
+            long neighborsStart = HEADER_BYTES + usersBytes + (userCount + 1) * Long.BYTES;
+
+            MappedReader users = new MappedReader(channel, HEADER_BYTES, windowBytes);
+            MappedReader neighbors = new MappedReader(channel, neighborsStart, windowBytes);
+            long userId = 0;
+            long edges = 0;
+            for (long i = 0; i < userCount; i++) {
+                long delta = users.getVarLong();
+                if (i > 0 && delta <= 0) {
+                    throw new IOException("Снимок друзей поврежден: пользователи не по возрастанию, файл " + path);
+                }
+                userId += delta;
+
+                long degree = neighbors.getVarLong();
+                if (degree < 0 || degree > Integer.MAX_VALUE) {
+                    throw new IOException("Снимок друзей поврежден: число друзей " + degree + ", файл " + path);
+                }
+                long[] friendIds = new long[(int) degree];
+                long friendId = 0;
+                for (int j = 0; j < friendIds.length; j++) {
+                    long friendDelta = neighbors.getVarLong();
+                    if (j > 0 && friendDelta <= 0) {
+                        throw new IOException("Снимок друзей поврежден: друзья не по возрастанию, файл " + path);
+                    }
+                    friendId += friendDelta;
+                    friendIds[j] = friendId;
+                }
+                edges += friendIds.length;
+                consumer.accept(userId, friendIds);
+            }
+            if (edges != edgeCount) {
+                throw new IOException("Снимок друзей поврежден: ожидалось ребер " + edgeCount + ", прочитано " + edges);
+            }
+            return edges;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    interface AdjacencyConsumer {
+        void accept(long userId, long[] friendIds);
+    }
+
+    // Буферизованная запись с позиции start. Числа со знаком кодируются zigzag varint.
+    private static final class ChannelWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        private long flushedPosition;
+
+        ChannelWriter(FileChannel channel, long start) {
+            this.channel = channel;
+            this.flushedPosition = start;
+        }
+
+        long position() {
+            return flushedPosition + buffer.position();
+        }
+
+        void putLong(long value) throws IOException {
+            ensureCapacity(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putVarLong(long value) throws IOException {
+            ensureCapacity(10);
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            buffer.put((byte) zigzag);
+        }
+
+        void skip(long bytes) throws IOException {
+            flush();
+            flushedPosition += bytes;
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            writeFully(channel, buffer, flushedPosition);
+            flushedPosition += buffer.limit();
+            buffer.clear();
+        }
+
+        private void ensureCapacity(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+
+    // Последовательное чтение через окна mmap, окно сдвигается, когда до его конца остается меньше 10 байт.
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long fileSize;
+        private final int windowBytes;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        MappedReader(FileChannel channel, long start, int windowBytes) throws IOException {
+            this.channel = channel;
+            this.fileSize = channel.size();
+            this.windowBytes = windowBytes;
+            map(start);
+        }
+
+        long getVarLong() throws IOException {
+            ensureAvailable(10);
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (!window.hasRemaining() || shift > 63) {
+                    throw new IOException("Снимок друзей поврежден: оборванное число на позиции "
+                            + (windowStart + window.position()));
+                }
+                b = window.get();
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        private void ensureAvailable(int bytes) throws IOException {
+            long position = windowStart + window.position();
+            if (window.remaining() < bytes && windowStart + window.limit() < fileSize) {
+                map(position);
+            }
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowBytes, fileSize - position));
+        }
+    }
+}
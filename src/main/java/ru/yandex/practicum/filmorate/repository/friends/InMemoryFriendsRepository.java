@@ -1,47 +1,523 @@
 package ru.yandex.practicum.filmorate.repository.friends;
 
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.collection.LongIntCounter;
+import ru.yandex.practicum.filmorate.collection.LongPairBloomFilter;
+import ru.yandex.practicum.filmorate.collection.SegmentedLongArray;
+import ru.yandex.practicum.filmorate.collection.SortedLongArray;
+import ru.yandex.practicum.filmorate.collection.SortedLongSet;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.wal.MutationLog;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
 
 @Repository
 @Profile("dev")
+@Timed(value = "filmorate.repository", histogram = true)
 public class InMemoryFriendsRepository implements FriendsRepository {
-    private final Map<Long, Map<Long, Boolean>> friendships = new HashMap<>();
+    private static final int STRIPES = 1024;
+    // С какого размера пакета подсчет общих друзей идет параллельно.
+    private static final int PARALLEL_COUNT_THRESHOLD = 256;
+    // Друзья пользователя с числом друзей больше HOT_DEGREE хранятся блоками: вставка и удаление сдвигают
+    // один блок, а не весь массив. Обратно в сплошной массив - когда друзей меньше четверти порога,
+    // чтобы пользователь у границы не переезжал туда и обратно на каждом изменении.
+    static final int HOT_DEGREE = 8192;
+
+    // Друзья пользователя - отсортированное множество id. Заявки без ответа лежат в отдельных индексах входящих
+    // и исходящих, поэтому чтение друзей их не касается. Записи пользователя меняются только под блокировкой
+    // его полосы. Изменение дружбы берет блокировки обоих пользователей в порядке номера полосы, поэтому
+    // обе стороны меняются атомарно и без взаимных блокировок. Заявки читаются постранично без блокировок.
+    private final ConcurrentHashMap<Long, SortedLongSet> friends = new ConcurrentHashMap<>();
+    private final Map<Long, NavigableSet<Long>> incomingRequests = new ConcurrentHashMap<>();
+    private final Map<Long, NavigableSet<Long>> outgoingRequests = new ConcurrentHashMap<>();
+    private final ReadWriteLock[] stripes = new ReadWriteLock[STRIPES];
+    // Необязательный фильтр Блума по ребрам (пользователь, друг): отрицательный ответ на areFriends
+    // без блокировки и поиска. Включается свойством filmorate.friends.bloom-filter.expected-edges > 0.
+    private final LongPairBloomFilter edgeFilter;
+    // Число пользователей по степени: в ячейке bucket - с числом друзей в (2^(bucket-1), 2^bucket].
+    private final AtomicLongArray usersByDegree = new AtomicLongArray(DEGREE_BUCKETS);
+    private final AtomicInteger highDegreeUsers = new AtomicInteger();
+    private final MutationLog mutationLog;
+
+    public InMemoryFriendsRepository() {
+        this(0);
+    }
+
+    public InMemoryFriendsRepository(long expectedEdges) {
+        this(expectedEdges, MutationLog.NONE);
+    }
+
+    @Autowired
+    public InMemoryFriendsRepository(@Value("${filmorate.friends.bloom-filter.expected-edges:0}") long expectedEdges,
+                                     MutationLog mutationLog) {
+        this.mutationLog = mutationLog;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+        this.edgeFilter = expectedEdges > 0 ? new LongPairBloomFilter(expectedEdges) : null;
+    }
 
     @Override
     public void sendFriendship(Long userId, Long friendId) {
-        friendships.computeIfAbsent(userId, k -> new HashMap<>()).put(friendId, true);
-        friendships.computeIfAbsent(friendId, k -> new HashMap<>()).put(userId, false);
+        lockPair(userId, friendId);
+        try {
+            if (addEdge(userId, friendId)) {
+                mutationLog.friendshipSent(userId, friendId);
+            }
+            if (edgeFilter != null) {
+                edgeFilter.add(userId, friendId);
+            }
+            removeRequest(friendId, userId);
+            if (!isFriend(friendId, userId)) {
+                incomingRequests.computeIfAbsent(friendId, k -> new ConcurrentSkipListSet<>()).add(userId);
+                outgoingRequests.computeIfAbsent(userId, k -> new ConcurrentSkipListSet<>()).add(friendId);
+            }
+        } finally {
+            unlockPair(userId, friendId);
+        }
+        mutationLog.sync();
     }
 
+    // Подтверждение без входящей заявки превращается в заявку в обратную сторону, чтобы дружба
+    // не оказалась записанной только с одной стороны.
     @Override
     public void acceptFriendship(Long userId, Long friendId) {
-        Map<Long, Boolean> friends = friendships.get(userId);
-        friends.put(friendId, true);
+        sendFriendship(userId, friendId);
     }
 
     @Override
     public void deleteFriendship(Long userId, Long friendId) {
-        friendships.get(userId).remove(friendId);
-        friendships.get(friendId).remove(userId);
+        lockPair(userId, friendId);
+        try {
+            boolean removed = removeEdge(userId, friendId);
+            removed |= removeEdge(friendId, userId);
+            removeRequest(userId, friendId);
+            removeRequest(friendId, userId);
+            if (removed) {
+                mutationLog.friendshipDeleted(userId, friendId);
+            }
+        } finally {
+            unlockPair(userId, friendId);
+        }
+        mutationLog.sync();
+    }
+
+    // Все связи пользователя находятся через его собственные индексы: у кого он в друзьях, тот либо
+    // в его друзьях (взаимная дружба), либо во входящих заявках. Возвращает пользователей, чьи списки изменились.
+    @Override
+    public List<Long> deleteFriendshipsByUserId(Long id) {
+        Set<Long> affectedIds = new LinkedHashSet<>();
+        long[] friendIds = readFriends(id, SortedLongSet::toArray);
+        List<Long> requesterIds = findIncomingRequestsPage(id, null, Integer.MAX_VALUE);
+        // Повтор на случай заявок, пришедших во время удаления.
+        while (friendIds.length > 0 || !requesterIds.isEmpty()) {
+            for (long friendId : friendIds) {
+                deleteFriendship(id, friendId);
+                affectedIds.add(friendId);
+            }
+            for (Long requesterId : requesterIds) {
+                deleteFriendship(id, requesterId);
+                affectedIds.add(requesterId);
+            }
+            friendIds = readFriends(id, SortedLongSet::toArray);
+            requesterIds = findIncomingRequestsPage(id, null, Integer.MAX_VALUE);
+        }
+        return List.copyOf(affectedIds);
+    }
+
+    // Есть ли friendId среди друзей userId: бинарный поиск в массиве друзей без копирования.
+    @Override
+    public boolean areFriends(Long userId, Long friendId) {
+        if (edgeFilter != null && !edgeFilter.mightContain(userId, friendId)) {
+            return false;
+        }
+        Lock lock = stripeFor(userId).readLock();
+        lock.lock();
+        try {
+            return isFriend(userId, friendId);
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public List<Long> findFriendsById(Long id) {
-        return friendships.getOrDefault(id, Map.of())
-                .entrySet()
-                .stream()
-                .filter(Map.Entry::getValue)
-                .map(Map.Entry::getKey)
+        long[] friendIds = readFriends(id, SortedLongSet::toArray);
+        return Arrays.stream(friendIds).boxed().toList();
+    }
+
+    // Копируется только нужная страница, а не весь массив друзей.
+    @Override
+    public List<Long> findFriendsPage(Long id, Long afterUserId, Integer limit) {
+        long after = afterUserId == null ? Long.MIN_VALUE : afterUserId;
+        long[] page = readFriends(id, userFriends -> userFriends.pageAfter(after, limit));
+        return Arrays.stream(page).boxed().toList();
+    }
+
+    @Override
+    public List<Long> findMutualFriendIds(Long id, Long otherId) {
+        // Копируется более короткий из двух списков, чтобы не держать две блокировки чтения одновременно
+        // и не копировать миллионы друзей знаменитости ради пересечения с парой сотен.
+        boolean copyOther = degreeOf(otherId) <= degreeOf(id);
+        long[] copiedIds = readFriends(copyOther ? otherId : id, SortedLongSet::toArray);
+        long[] mutualIds = readFriends(copyOther ? id : otherId, userFriends -> userFriends.intersect(copiedIds));
+        return Arrays.stream(mutualIds).boxed().toList();
+    }
+
+    // Друзья пользователя копируются один раз, затем с ними пересекается каждый список из otherIds
+    // под его собственной блокировкой. У пользователя с огромным числом друзей наоборот копируется
+    // каждый список из otherIds и ищется в его блоках. Результат - по позициям otherIds.
+    @Override
+    public int[] countMutualFriends(Long id, List<Long> otherIds) {
+        int[] counts = new int[otherIds.size()];
+        IntStream positions = IntStream.range(0, counts.length);
+        if (counts.length >= PARALLEL_COUNT_THRESHOLD) {
+            positions = positions.parallel();
+        }
+        if (degreeOf(id) > HOT_DEGREE) {
+            positions.forEach(i -> counts[i] = countIntersection(id,
+                    readFriends(otherIds.get(i), SortedLongSet::toArray)));
+            return counts;
+        }
+
+        long[] userFriendIds = readFriends(id, SortedLongSet::toArray);
+        if (userFriendIds.length == 0) {
+            return counts;
+        }
+        positions.forEach(i -> counts[i] = countIntersection(otherIds.get(i), userFriendIds));
+        return counts;
+    }
+
+    @Override
+    public List<Long> findFriendsSample(Long id, Integer size) {
+        long[] sample = readFriends(id, userFriends -> userFriends.sample(size));
+        return Arrays.stream(sample).boxed().toList();
+    }
+
+    // Два шага по графу: у каждого друга из viaFriendIds берется не больше fanOut его друзей, поэтому
+    // для пользователей с огромным числом друзей количество общих друзей считается по выборке.
+    @Override
+    public List<FriendRecommendation> findFriendsOfFriends(Long id, List<Long> viaFriendIds, Integer limit,
+                                                           Integer fanOut) {
+        LongIntCounter mutualCounts = new LongIntCounter(viaFriendIds.size() * fanOut);
+        for (Long friendId : viaFriendIds) {
+            for (long candidateId : readFriends(friendId, friendFriends -> friendFriends.sample(fanOut))) {
+                mutualCounts.increment(candidateId);
+            }
+        }
+
+        // Сам пользователь и его друзья исключаются после подсчета с той стороны, которая короче.
+        mutualCounts.exclude(id);
+        Lock lock = stripeFor(id).readLock();
+        lock.lock();
+        try {
+            SortedLongSet userFriends = friends.get(id);
+            if (userFriends != null && userFriends.size() <= mutualCounts.size()) {
+                userFriends.forEach(mutualCounts::exclude);
+            } else if (userFriends != null) {
+                mutualCounts.forEachKey(candidateId -> {
+                    if (userFriends.contains(candidateId)) {
+                        mutualCounts.exclude(candidateId);
+                    }
+                });
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return Arrays.stream(mutualCounts.topKeys(limit))
+                .mapToObj(candidateId -> FriendRecommendation.builder()
+                        .userId(candidateId)
+                        .mutualFriends(mutualCounts.get(candidateId))
+                        .build())
                 .toList();
     }
 
+    @Override
+    public List<Long> findIncomingRequestsPage(Long id, Long afterUserId, Integer limit) {
+        return findRequestsPage(incomingRequests, id, afterUserId, limit);
+    }
+
+    @Override
+    public List<Long> findOutgoingRequestsPage(Long id, Long afterUserId, Integer limit) {
+        return findRequestsPage(outgoingRequests, id, afterUserId, limit);
+    }
+
+    @Override
+    public long countFriendships() {
+        long confirmed = friends.values().stream()
+                .mapToLong(SortedLongSet::size)
+                .sum();
+        long pending = incomingRequests.values().stream()
+                .mapToLong(NavigableSet::size)
+                .sum();
+        return confirmed + pending;
+    }
+
+    @Override
+    public long countUsersByDegreeBucket(int bucket) {
+        return usersByDegree.get(bucket);
+    }
+
+    @Override
+    public long countHighDegreeUsers() {
+        return highDegreeUsers.get();
+    }
+
+    // Обход для снимка состояния: список друзей каждого пользователя читается под блокировкой его полосы.
+    public void forEachFriends(BiConsumer<Long, long[]> action) {
+        for (Long userId : friends.keySet()) {
+            long[] friendIds = readFriends(userId, SortedLongSet::toArray);
+            if (friendIds.length > 0) {
+                action.accept(userId, friendIds);
+            }
+        }
+    }
+
+    // Очистка и загрузка снимка нужны тестам и администрированию и не попадают в журнал изменений.
     @Override
     public void clear() {
-        friendships.clear();
+        lockAll(true);
+        try {
+            clearAll();
+        } finally {
+            unlockAll(true);
+        }
+    }
+
+    // Записывает согласованный снимок графа: на время записи изменения дружбы ждут.
+    public void exportSnapshot(Path path) throws IOException {
+        lockAll(false);
+        try {
+            long[] userIds = friends.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            FriendsSnapshot.write(path, userIds, friends::get);
+        } finally {
+            unlockAll(false);
+        }
+    }
+
+    // Заменяет содержимое репозитория снимком. Массивы друзей берутся из файла как есть,
+    // без поштучных вставок, заявки без ответа восстанавливаются по ребрам без обратного.
+    public long importSnapshot(Path path) throws IOException {
+        lockAll(true);
+        try {
+            clearAll();
+            long edges = FriendsSnapshot.read(path, (userId, friendIds) -> {
+                friends.put(userId, friendIds.length > HOT_DEGREE
+                        ? SegmentedLongArray.ofSorted(friendIds)
+                        : SortedLongArray.ofSorted(friendIds));
+                onDegreeChanged(0, friendIds.length);
+                if (edgeFilter != null) {
+                    for (long friendId : friendIds) {
+                        edgeFilter.add(userId, friendId);
+                    }
+                }
+            });
+            // Все блокировки у этого потока, массивы друзей больше не меняются, поэтому заявки можно
+            // восстанавливать параллельно: индексы заявок сами по себе потокобезопасны.
+            friends.forEach(PARALLEL_COUNT_THRESHOLD, (userId, userFriends) -> userFriends.forEach(friendId -> {
+                if (!isFriend(friendId, userId)) {
+                    incomingRequests.computeIfAbsent(friendId, k -> new ConcurrentSkipListSet<>()).add(userId);
+                    outgoingRequests.computeIfAbsent(userId, k -> new ConcurrentSkipListSet<>()).add(friendId);
+                }
+            }));
+            return edges;
+        } catch (IOException | RuntimeException e) {
+            clearAll();
+            throw e;
+        } finally {
+            unlockAll(true);
+        }
+    }
+
+    private void clearAll() {
+        friends.clear();
+        incomingRequests.clear();
+        outgoingRequests.clear();
+        if (edgeFilter != null) {
+            edgeFilter.clear();
+        }
+        for (int i = 0; i < DEGREE_BUCKETS; i++) {
+            usersByDegree.set(i, 0);
+        }
+        highDegreeUsers.set(0);
+    }
+
+    private void lockAll(boolean write) {
+        for (ReadWriteLock stripe : stripes) {
+            (write ? stripe.writeLock() : stripe.readLock()).lock();
+        }
+    }
+
+    private void unlockAll(boolean write) {
+        for (ReadWriteLock stripe : stripes) {
+            (write ? stripe.writeLock() : stripe.readLock()).unlock();
+        }
+    }
+
+    private long[] readFriends(Long id, FriendsReader reader) {
+        Lock lock = stripeFor(id).readLock();
+        lock.lock();
+        try {
+            SortedLongSet userFriends = friends.get(id);
+            return userFriends == null ? new long[0] : reader.read(userFriends);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int degreeOf(Long id) {
+        Lock lock = stripeFor(id).readLock();
+        lock.lock();
+        try {
+            SortedLongSet userFriends = friends.get(id);
+            return userFriends == null ? 0 : userFriends.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int countIntersection(Long id, long[] friendIds) {
+        Lock lock = stripeFor(id).readLock();
+        lock.lock();
+        try {
+            SortedLongSet userFriends = friends.get(id);
+            return userFriends == null ? 0 : userFriends.intersectionSize(friendIds);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Вызывается под блокировкой полосы userId.
+    private boolean isFriend(Long userId, Long friendId) {
+        SortedLongSet userFriends = friends.get(userId);
+        return userFriends != null && userFriends.contains(friendId);
+    }
+
+    // Вызывается под блокировкой полосы userId, как и removeEdge.
+    private boolean addEdge(Long userId, Long friendId) {
+        SortedLongSet userFriends = friends.computeIfAbsent(userId, k -> new SortedLongArray());
+        if (!userFriends.add(friendId)) {
+            return false;
+        }
+        int degree = userFriends.size();
+        onDegreeChanged(degree - 1, degree);
+        if (degree > HOT_DEGREE && userFriends instanceof SortedLongArray) {
+            friends.put(userId, SegmentedLongArray.ofSorted(userFriends.toArray()));
+        }
+        return true;
+    }
+
+    private boolean removeEdge(Long userId, Long friendId) {
+        SortedLongSet userFriends = friends.get(userId);
+        if (userFriends == null || !userFriends.remove(friendId)) {
+            return false;
+        }
+        int degree = userFriends.size();
+        onDegreeChanged(degree + 1, degree);
+        if (degree == 0) {
+            friends.remove(userId);
+        } else if (degree < HOT_DEGREE / 4 && userFriends instanceof SegmentedLongArray) {
+            friends.put(userId, SortedLongArray.ofSorted(userFriends.toArray()));
+        }
+        return true;
+    }
+
+    private void onDegreeChanged(int oldDegree, int newDegree) {
+        if (oldDegree > 0) {
+            usersByDegree.decrementAndGet(FriendsRepository.degreeBucket(oldDegree));
+        }
+        if (newDegree > 0) {
+            usersByDegree.incrementAndGet(FriendsRepository.degreeBucket(newDegree));
+        }
+        if (oldDegree <= HOT_DEGREE && newDegree > HOT_DEGREE) {
+            highDegreeUsers.incrementAndGet();
+        } else if (oldDegree > HOT_DEGREE && newDegree <= HOT_DEGREE) {
+            highDegreeUsers.decrementAndGet();
+        }
+    }
+
+    private void removeRequest(Long requesterId, Long receiverId) {
+        removeFromIndex(outgoingRequests, requesterId, receiverId);
+        removeFromIndex(incomingRequests, receiverId, requesterId);
+    }
+
+    private void removeFromIndex(Map<Long, NavigableSet<Long>> index, Long userId, Long otherId) {
+        NavigableSet<Long> requests = index.get(userId);
+        if (requests != null) {
+            requests.remove(otherId);
+            if (requests.isEmpty()) {
+                index.remove(userId);
+            }
+        }
+    }
+
+    private List<Long> findRequestsPage(Map<Long, NavigableSet<Long>> index, Long id, Long afterUserId,
+                                        Integer limit) {
+        NavigableSet<Long> requests = index.get(id);
+        if (requests == null) {
+            return List.of();
+        }
+        NavigableSet<Long> tail = afterUserId == null ? requests : requests.tailSet(afterUserId, false);
+        List<Long> page = new ArrayList<>(Math.min(limit, 64));
+        for (Long requesterId : tail) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(requesterId);
+        }
+        return page;
+    }
+
+    private void lockPair(Long userId, Long friendId) {
+        int first = stripeIndex(userId);
+        int second = stripeIndex(friendId);
+        stripes[Math.min(first, second)].writeLock().lock();
+        if (first != second) {
+            stripes[Math.max(first, second)].writeLock().lock();
+        }
+    }
+
+    private void unlockPair(Long userId, Long friendId) {
+        int first = stripeIndex(userId);
+        int second = stripeIndex(friendId);
+        if (first != second) {
+            stripes[Math.max(first, second)].writeLock().unlock();
+        }
+        stripes[Math.min(first, second)].writeLock().unlock();
+    }
+
+    private ReadWriteLock stripeFor(Long userId) {
+        return stripes[stripeIndex(userId)];
+    }
+
+    private int stripeIndex(Long userId) {
+        int hash = userId.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private interface FriendsReader {
+        long[] read(SortedLongSet userFriends);
     }
 }
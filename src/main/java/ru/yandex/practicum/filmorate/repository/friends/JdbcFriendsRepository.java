@@ -0,0 +1,236 @@
+package ru.yandex.practicum.filmorate.repository.friends;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Дружба - ребра user_id -> friend_id в таблице friendships, как и в памяти: друзья пользователя - все его
+// исходящие ребра, заявка без ответа - ребро без обратного. Общие друзья, пакетные подсчеты и рекомендации
+// считаются одним запросом по индексам, без загрузки списков друзей в приложение.
+@Repository
+@Profile("prod")
+@Timed(value = "filmorate.repository", histogram = true)
+public class JdbcFriendsRepository implements FriendsRepository {
+    private static final int IN_CHUNK_SIZE = 1000;
+    // Распределение по степеням считается группировкой всей таблицы, поэтому кэшируется на это время.
+    private static final long DEGREE_STATS_TTL_MILLIS = 30_000;
+
+    private static final String NO_REVERSE_EDGE = "NOT EXISTS (SELECT 1 FROM friendships r "
+            + "WHERE r.user_id = f.friend_id AND r.friend_id = f.user_id)";
+    // Равномерная выборка не больше :sampleSize друзей каждого пользователя: строка с номером rn берется,
+    // если на ней меняется целая часть rn * :sampleSize / total. Так выбирается ровно :sampleSize строк.
+    private static final String SAMPLED_FRIENDS = "SELECT user_id, friend_id FROM ("
+            + "SELECT user_id, friend_id, ROW_NUMBER() OVER (PARTITION BY user_id ORDER BY friend_id) AS rn, "
+            + "COUNT(*) OVER (PARTITION BY user_id) AS total FROM friendships WHERE user_id IN (:userIds)) s "
+            + "WHERE s.total <= :sampleSize OR s.rn * :sampleSize / s.total <> (s.rn - 1) * :sampleSize / s.total";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private volatile DegreeStats degreeStats;
+
+    public JdbcFriendsRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public void sendFriendship(Long userId, Long friendId) {
+        try {
+            jdbc.update("INSERT INTO friendships (user_id, friend_id) "
+                    + "SELECT CAST(:userId AS BIGINT), CAST(:friendId AS BIGINT) WHERE NOT EXISTS "
+                    + "(SELECT 1 FROM friendships WHERE user_id = :userId AND friend_id = :friendId)",
+                    pairParams(userId, friendId));
+        } catch (DuplicateKeyException e) {
+            // Та же заявка вставлена параллельно, результат тот же.
+        }
+    }
+
+    @Override
+    public void acceptFriendship(Long userId, Long friendId) {
+        sendFriendship(userId, friendId);
+    }
+
+    @Override
+    public void deleteFriendship(Long userId, Long friendId) {
+        jdbc.update("DELETE FROM friendships WHERE (user_id = :userId AND friend_id = :friendId) "
+                + "OR (user_id = :friendId AND friend_id = :userId)", pairParams(userId, friendId));
+    }
+
+    // Связанные пользователи - друзья и авторы входящих заявок, то есть концы ребер в обе стороны.
+    @Override
+    @Transactional
+    public List<Long> deleteFriendshipsByUserId(Long id) {
+        Map<String, Long> params = Map.of("id", id);
+        List<Long> affectedIds = jdbc.queryForList("SELECT friend_id FROM friendships WHERE user_id = :id "
+                + "UNION SELECT user_id FROM friendships WHERE friend_id = :id", params, Long.class);
+        jdbc.update("DELETE FROM friendships WHERE user_id = :id OR friend_id = :id", params);
+        return affectedIds;
+    }
+
+    @Override
+    public boolean areFriends(Long userId, Long friendId) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM friendships WHERE user_id = :userId "
+                + "AND friend_id = :friendId", pairParams(userId, friendId), Long.class) > 0;
+    }
+
+    @Override
+    public List<Long> findFriendsById(Long id) {
+        return jdbc.queryForList("SELECT friend_id FROM friendships WHERE user_id = :id ORDER BY friend_id",
+                Map.of("id", id), Long.class);
+    }
+
+    @Override
+    public List<Long> findFriendsPage(Long id, Long afterUserId, Integer limit) {
+        return jdbc.queryForList("SELECT friend_id FROM friendships WHERE user_id = :id AND friend_id > :after "
+                + "ORDER BY friend_id LIMIT :limit", pageParams(id, afterUserId, limit), Long.class);
+    }
+
+    // Пересечение по первичному ключу: оба списка друзей читаются из индекса в порядке friend_id.
+    @Override
+    public List<Long> findMutualFriendIds(Long id, Long otherId) {
+        return jdbc.queryForList("SELECT a.friend_id FROM friendships a "
+                + "JOIN friendships b ON b.user_id = :otherId AND b.friend_id = a.friend_id "
+                + "WHERE a.user_id = :id ORDER BY a.friend_id", Map.of("id", id, "otherId", otherId), Long.class);
+    }
+
+    // Один запрос с группировкой на пачку пользователей вместо пересечения для каждого.
+    @Override
+    public int[] countMutualFriends(Long id, List<Long> otherIds) {
+        Map<Long, Integer> countsByUserId = new HashMap<>();
+        List<Long> distinctIds = otherIds.stream().distinct().toList();
+        for (int from = 0; from < distinctIds.size(); from += IN_CHUNK_SIZE) {
+            int to = Math.min(distinctIds.size(), from + IN_CHUNK_SIZE);
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("id", id)
+                    .addValue("otherIds", distinctIds.subList(from, to));
+            jdbc.query("SELECT b.user_id, COUNT(*) AS mutual_friends FROM friendships a "
+                    + "JOIN friendships b ON b.friend_id = a.friend_id "
+                    + "WHERE a.user_id = :id AND b.user_id IN (:otherIds) GROUP BY b.user_id", params,
+                    resultSet -> {
+                        countsByUserId.put(resultSet.getLong("user_id"), resultSet.getInt("mutual_friends"));
+                    });
+        }
+
+        int[] counts = new int[otherIds.size()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = countsByUserId.getOrDefault(otherIds.get(i), 0);
+        }
+        return counts;
+    }
+
+    @Override
+    public List<Long> findFriendsSample(Long id, Integer size) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userIds", List.of(id))
+                .addValue("sampleSize", size);
+        return jdbc.queryForList("SELECT friend_id FROM (" + SAMPLED_FRIENDS + ") t ORDER BY friend_id",
+                params, Long.class);
+    }
+
+    // Выборка друзей у каждого из viaFriendIds, подсчет и исключение пользователя и его друзей - одним запросом.
+    @Override
+    public List<FriendRecommendation> findFriendsOfFriends(Long id, List<Long> viaFriendIds, Integer limit,
+                                                           Integer fanOut) {
+        if (viaFriendIds.isEmpty()) {
+            return List.of();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("userIds", viaFriendIds)
+                .addValue("sampleSize", fanOut)
+                .addValue("limit", limit);
+        return jdbc.query("SELECT t.friend_id, COUNT(*) AS mutual_friends FROM (" + SAMPLED_FRIENDS + ") t "
+                        + "WHERE t.friend_id <> :id AND NOT EXISTS (SELECT 1 FROM friendships u "
+                        + "WHERE u.user_id = :id AND u.friend_id = t.friend_id) "
+                        + "GROUP BY t.friend_id ORDER BY mutual_friends DESC, t.friend_id LIMIT :limit", params,
+                (resultSet, rowNum) -> FriendRecommendation.builder()
+                        .userId(resultSet.getLong("friend_id"))
+                        .mutualFriends(resultSet.getInt("mutual_friends"))
+                        .build());
+    }
+
+    @Override
+    public List<Long> findIncomingRequestsPage(Long id, Long afterUserId, Integer limit) {
+        return jdbc.queryForList("SELECT f.user_id FROM friendships f WHERE f.friend_id = :id "
+                + "AND f.user_id > :after AND " + NO_REVERSE_EDGE + " ORDER BY f.user_id LIMIT :limit",
+                pageParams(id, afterUserId, limit), Long.class);
+    }
+
+    @Override
+    public List<Long> findOutgoingRequestsPage(Long id, Long afterUserId, Integer limit) {
+        return jdbc.queryForList("SELECT f.friend_id FROM friendships f WHERE f.user_id = :id "
+                + "AND f.friend_id > :after AND " + NO_REVERSE_EDGE + " ORDER BY f.friend_id LIMIT :limit",
+                pageParams(id, afterUserId, limit), Long.class);
+    }
+
+    // Как и в памяти: все ребра плюс заявки без ответа.
+    @Override
+    public long countFriendships() {
+        return jdbc.queryForObject("SELECT (SELECT COUNT(*) FROM friendships) "
+                + "+ (SELECT COUNT(*) FROM friendships f WHERE " + NO_REVERSE_EDGE + ")", Map.of(), Long.class);
+    }
+
+    @Override
+    public long countUsersByDegreeBucket(int bucket) {
+        return currentDegreeStats().usersByBucket()[bucket];
+    }
+
+    @Override
+    public long countHighDegreeUsers() {
+        return currentDegreeStats().highDegreeUsers();
+    }
+
+    @Override
+    public void clear() {
+        jdbc.update("DELETE FROM friendships", Map.of());
+        degreeStats = null;
+    }
+
+    private DegreeStats currentDegreeStats() {
+        DegreeStats stats = degreeStats;
+        long now = System.currentTimeMillis();
+        if (stats != null && now - stats.computedAtMillis() < DEGREE_STATS_TTL_MILLIS) {
+            return stats;
+        }
+
+        long[] usersByBucket = new long[DEGREE_BUCKETS];
+        long[] highDegreeUsers = {0};
+        // Различных степеней намного меньше, чем пользователей, поэтому в приложение приходит короткий список.
+        jdbc.query("SELECT degree, COUNT(*) AS users FROM "
+                + "(SELECT COUNT(*) AS degree FROM friendships GROUP BY user_id) d GROUP BY degree", Map.of(),
+                resultSet -> {
+                    int degree = resultSet.getInt("degree");
+                    long users = resultSet.getLong("users");
+                    usersByBucket[FriendsRepository.degreeBucket(degree)] += users;
+                    if (degree > InMemoryFriendsRepository.HOT_DEGREE) {
+                        highDegreeUsers[0] += users;
+                    }
+                });
+        stats = new DegreeStats(usersByBucket, highDegreeUsers[0], now);
+        degreeStats = stats;
+        return stats;
+    }
+
+    private static MapSqlParameterSource pairParams(Long userId, Long friendId) {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("friendId", friendId);
+    }
+
+    private static MapSqlParameterSource pageParams(Long id, Long afterUserId, Integer limit) {
+        return new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("after", afterUserId == null ? Long.MIN_VALUE : afterUserId)
+                .addValue("limit", limit);
+    }
+
+    private record DegreeStats(long[] usersByBucket, long highDegreeUsers, long computedAtMillis) {
+    }
+}
@@ -0,0 +1,4 @@
+package ru.yandex.practicum.filmorate.repository.likes;
+
+record FilmLikesCount(Long filmId, int likes) {
+}
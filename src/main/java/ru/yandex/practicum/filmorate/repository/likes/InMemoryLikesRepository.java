@@ -1,47 +1,164 @@
 package ru.yandex.practicum.filmorate.repository.likes;
 
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.wal.MutationLog;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.LongPredicate;
 
 @Repository
 @Profile("dev")
+@Timed(value = "filmorate.repository", histogram = true)
 public class InMemoryLikesRepository implements LikesRepository {
-    private final Map<Long, Set<Long>> likes = new HashMap<>();
+    private static final int SEGMENTS = 64;
+
+    private final LikesSegment[] segments = new LikesSegment[SEGMENTS];
+    private final MutationLog mutationLog;
+
+    public InMemoryLikesRepository() {
+        this(MutationLog.NONE);
+    }
+
+    @Autowired
+    public InMemoryLikesRepository(MutationLog mutationLog) {
+        this.mutationLog = mutationLog;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new LikesSegment(mutationLog);
+        }
+    }
+
+    // Лайк без проверки фильма: восстановление из журнала, где фильм уже был проверен при записи.
+    public boolean addLike(Long filmId, Long userId) {
+        return addLike(filmId, userId, id -> true);
+    }
+
+    @Override
+    public boolean addLike(Long filmId, Long userId, LongPredicate filmExists) {
+        boolean added = segmentFor(filmId).addLike(filmId, userId, filmExists);
+        mutationLog.sync();
+        return added;
+    }
+
+    @Override
+    public boolean deleteLike(Long filmId, Long userId) {
+        boolean deleted = segmentFor(filmId).deleteLike(filmId, userId);
+        mutationLog.sync();
+        return deleted;
+    }
+
+    public List<Boolean> applyLikes(List<LikeChange> changes) {
+        return applyLikes(changes, id -> true);
+    }
+
+    @Override
+    public List<Boolean> applyLikes(List<LikeChange> changes, LongPredicate filmExists) {
+        Map<LikesSegment, List<Integer>> positionsBySegment = new IdentityHashMap<>();
+        for (int i = 0; i < changes.size(); i++) {
+            positionsBySegment.computeIfAbsent(segmentFor(changes.get(i).getFilmId()), k -> new ArrayList<>()).add(i);
+        }
+
+        Boolean[] results = new Boolean[changes.size()];
+        positionsBySegment.forEach((segment, positions) ->
+                segment.applyLikes(changes, positions, results, filmExists));
+        mutationLog.sync();
+        return Arrays.asList(results);
+    }
 
     @Override
-    public void addLike(Long filmId, Long userId) {
-        likes.computeIfAbsent(filmId, k -> new HashSet<>()).add(userId);
+    public long deleteLikesByFilmId(Long filmId) {
+        long deleted = segmentFor(filmId).deleteLikesByFilmId(filmId);
+        mutationLog.sync();
+        return deleted;
     }
 
+    // Обходит сегменты, а не фильмы: в каждом сегменте лайки пользователя находятся по обратному индексу.
     @Override
-    public void deleteLike(Long filmId, Long userId) {
-        likes.get(filmId).remove(userId);
+    public List<Long> deleteLikesByUserId(Long userId) {
+        List<Long> filmIds = new ArrayList<>();
+        for (LikesSegment segment : segments) {
+            for (long filmId : segment.deleteLikesByUserId(userId)) {
+                filmIds.add(filmId);
+            }
+        }
+        mutationLog.sync();
+        return filmIds;
     }
 
     @Override
     public Set<Long> findLikesByFilmId(Long filmId) {
-        return likes.getOrDefault(filmId, Collections.emptySet());
+        return segmentFor(filmId).findLikesByFilmId(filmId);
+    }
+
+    @Override
+    public List<Long> findLikesPageByFilmId(Long filmId, Long afterUserId, Integer limit) {
+        return segmentFor(filmId).findLikesPageByFilmId(filmId, afterUserId, limit);
+    }
+
+    @Override
+    public long countLikesByFilmId(Long filmId) {
+        return segmentFor(filmId).countLikesByFilmId(filmId);
     }
 
     @Override
     public List<Long> findTopFilmsByLikes(Integer count) {
-        return likes.entrySet().stream()
-                .sorted(Comparator.comparingLong((Map.Entry<Long, Set<Long>> e) -> e.getValue().size()).reversed())
+        List<FilmLikesCount> candidates = new ArrayList<>();
+        for (LikesSegment segment : segments) {
+            candidates.addAll(segment.findTop(count));
+        }
+
+        return candidates.stream()
+                .sorted(Comparator.comparingInt(FilmLikesCount::likes).reversed())
                 .limit(count)
-                .map(Map.Entry::getKey)
+                .map(FilmLikesCount::filmId)
                 .toList();
     }
 
+    @Override
+    public long countFilmsWithLikes() {
+        long films = 0;
+        for (LikesSegment segment : segments) {
+            films += segment.countFilms();
+        }
+        return films;
+    }
+
+    @Override
+    public long countLikes() {
+        long likes = 0;
+        for (LikesSegment segment : segments) {
+            likes += segment.countLikes();
+        }
+        return likes;
+    }
+
+    // Обход для снимка состояния: каждый сегмент отдается целиком под своей блокировкой.
+    public void forEachFilmLikes(BiConsumer<Long, long[]> action) {
+        for (LikesSegment segment : segments) {
+            segment.forEachFilmLikes(action);
+        }
+    }
+
+    // Очистка нужна тестам и не попадает в журнал изменений.
     @Override
     public void clear() {
-        likes.clear();
+        for (LikesSegment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private LikesSegment segmentFor(Long filmId) {
+        int hash = filmId.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
     }
 }
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.repository.likes;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.time.Clock;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@Profile("dev")
+@Timed(value = "filmorate.repository", histogram = true)
+public class InMemoryTrendingLikesRepository implements TrendingLikesRepository {
+    private final Clock clock;
+    private final Map<TrendingWindow, SlidingWindowLikes> windows = new EnumMap<>(TrendingWindow.class);
+
+    public InMemoryTrendingLikesRepository() {
+        this(Clock.systemUTC());
+    }
+
+    InMemoryTrendingLikesRepository(Clock clock) {
+        this.clock = clock;
+        for (TrendingWindow window : TrendingWindow.values()) {
+            windows.put(window, new SlidingWindowLikes(window.getBucketDuration().toMillis(), window.getBuckets()));
+        }
+    }
+
+    @Override
+    public void recordLikes(Map<Long, Integer> deltasByFilmId) {
+        if (deltasByFilmId.isEmpty()) {
+            return;
+        }
+        long now = clock.millis();
+        for (SlidingWindowLikes window : windows.values()) {
+            window.record(now, deltasByFilmId);
+        }
+    }
+
+    @Override
+    public List<Long> findTopFilmsByLikes(TrendingWindow window, Integer count) {
+        return windows.get(window).findTop(clock.millis(), count).stream()
+                .map(FilmLikesCount::filmId)
+                .toList();
+    }
+
+    @Override
+    public void deleteFilm(Long filmId) {
+        for (SlidingWindowLikes window : windows.values()) {
+            window.remove(filmId);
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (SlidingWindowLikes window : windows.values()) {
+            window.clear();
+        }
+    }
+}
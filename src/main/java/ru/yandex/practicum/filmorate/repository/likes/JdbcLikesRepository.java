@@ -0,0 +1,275 @@
+package ru.yandex.practicum.filmorate.repository.likes;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.LongPredicate;
+
+// Лайки в таблице likes и счетчики по фильмам в film_like_counts, которые меняются в той же транзакции.
+// Число лайков фильма и топ читаются из счетчиков, без группировки всех лайков.
+// Добавление лайка и пачка изменений блокируют строки фильмов в films до конца транзакции: фильм проверяется
+// в базе, а не через filmExists, и удаление фильма не может пройти между проверкой и вставкой.
+@Repository
+@Profile("prod")
+@Timed(value = "filmorate.repository", histogram = true)
+public class JdbcLikesRepository implements LikesRepository {
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private static final String INSERT_LIKE = "INSERT INTO likes (film_id, user_id) "
+            + "SELECT CAST(:filmId AS BIGINT), CAST(:userId AS BIGINT) "
+            + "WHERE NOT EXISTS (SELECT 1 FROM likes WHERE film_id = :filmId AND user_id = :userId)";
+    private static final String DELETE_LIKE = "DELETE FROM likes WHERE film_id = :filmId AND user_id = :userId";
+    private static final String ADD_TO_COUNT = "MERGE INTO film_like_counts c "
+            + "USING (VALUES (CAST(:filmId AS BIGINT), CAST(:delta AS BIGINT))) AS d (film_id, delta) "
+            + "ON c.film_id = d.film_id "
+            + "WHEN MATCHED THEN UPDATE SET likes = c.likes + d.delta "
+            + "WHEN NOT MATCHED THEN INSERT (film_id, likes) VALUES (d.film_id, d.delta)";
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public JdbcLikesRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    @Transactional
+    public boolean addLike(Long filmId, Long userId, LongPredicate filmExists) {
+        if (lockFilms(List.of(filmId)).isEmpty()) {
+            return false;
+        }
+        try {
+            if (jdbc.update(INSERT_LIKE, likeParams(filmId, userId)) == 0) {
+                return false;
+            }
+        } catch (DuplicateKeyException e) {
+            // Тот же лайк вставлен параллельной транзакцией между проверкой и вставкой.
+            return false;
+        }
+        jdbc.update(ADD_TO_COUNT, countParams(filmId, 1));
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public boolean deleteLike(Long filmId, Long userId) {
+        if (jdbc.update(DELETE_LIKE, likeParams(filmId, userId)) == 0) {
+            return false;
+        }
+        jdbc.update(ADD_TO_COUNT, countParams(filmId, -1));
+        return true;
+    }
+
+    // Строки фильмов пачки блокируются, затем текущее состояние затронутых пар читается одним запросом,
+    // изменения применяются к нему по порядку в памяти, а в базу пакетами уходят только итоговые вставки
+    // и удаления. Счетчики сдвигаются по числу строк, которое вернула база: пара, которую параллельная
+    // транзакция уже изменила, счетчик не сдвигает, а ее операции в пачке считаются не примененными.
+    @Override
+    @Transactional
+    public List<Boolean> applyLikes(List<LikeChange> changes, LongPredicate filmExists) {
+        Set<Long> existingFilms = lockFilms(changes.stream().map(LikeChange::getFilmId).toList());
+        Set<LikeKey> existing = findExisting(changes);
+        Set<LikeKey> state = new HashSet<>(existing);
+        List<Boolean> results = new ArrayList<>(changes.size());
+        Map<LikeKey, List<Integer>> appliedPositions = new HashMap<>();
+        for (LikeChange change : changes) {
+            LikeKey key = new LikeKey(change.getFilmId(), change.getUserId());
+            boolean changed = change.getOperation() == LikeOperation.ADD
+                    ? existingFilms.contains(change.getFilmId()) && state.add(key)
+                    : state.remove(key);
+            if (changed) {
+                appliedPositions.computeIfAbsent(key, k -> new ArrayList<>()).add(results.size());
+            }
+            results.add(changed);
+        }
+
+        List<LikeKey> inserts = new ArrayList<>();
+        List<LikeKey> deletes = new ArrayList<>();
+        state.stream().filter(key -> !existing.contains(key)).forEach(inserts::add);
+        existing.stream().filter(key -> !state.contains(key)).forEach(deletes::add);
+
+        Map<Long, Integer> deltasByFilmId = new HashMap<>();
+        int[] inserted = jdbc.batchUpdate(INSERT_LIKE, toParams(inserts));
+        int[] deleted = jdbc.batchUpdate(DELETE_LIKE, toParams(deletes));
+        collectDeltas(inserts, inserted, 1, deltasByFilmId, appliedPositions, results);
+        collectDeltas(deletes, deleted, -1, deltasByFilmId, appliedPositions, results);
+        updateCounts(deltasByFilmId);
+        return results;
+    }
+
+    // Сначала удаляются лайки, затем счетчик: удаление лайка, попавшее между ними, не найдет строки и
+    // не пересоздаст счетчик, а новые лайки фильма, уже удаленного из films, не ставятся.
+    @Override
+    @Transactional
+    public long deleteLikesByFilmId(Long filmId) {
+        Map<String, Long> params = Map.of("filmId", filmId);
+        long deleted = jdbc.update("DELETE FROM likes WHERE film_id = :filmId", params);
+        jdbc.update("DELETE FROM film_like_counts WHERE film_id = :filmId", params);
+        return deleted;
+    }
+
+    // Фильмы пользователя находятся по индексу (user_id, film_id). Лайки удаляются по одному в пакете,
+    // счетчики уменьшаются только для строк, которые удалил этот вызов, а не параллельное удаление лайка.
+    @Override
+    @Transactional
+    public List<Long> deleteLikesByUserId(Long userId) {
+        List<Long> filmIds = jdbc.queryForList("SELECT film_id FROM likes WHERE user_id = :userId ORDER BY film_id",
+                Map.of("userId", userId), Long.class);
+        List<LikeKey> keys = filmIds.stream().map(filmId -> new LikeKey(filmId, userId)).toList();
+        int[] deleted = jdbc.batchUpdate(DELETE_LIKE, toParams(keys));
+        List<Long> deletedFilmIds = new ArrayList<>();
+        Map<Long, Integer> deltasByFilmId = new HashMap<>();
+        for (int i = 0; i < deleted.length; i++) {
+            if (deleted[i] > 0) {
+                deletedFilmIds.add(filmIds.get(i));
+                deltasByFilmId.put(filmIds.get(i), -1);
+            }
+        }
+        updateCounts(deltasByFilmId);
+        return deletedFilmIds;
+    }
+
+    @Override
+    public Set<Long> findLikesByFilmId(Long filmId) {
+        return new LinkedHashSet<>(jdbc.queryForList("SELECT user_id FROM likes WHERE film_id = :filmId "
+                + "ORDER BY user_id", Map.of("filmId", filmId), Long.class));
+    }
+
+    @Override
+    public List<Long> findLikesPageByFilmId(Long filmId, Long afterUserId, Integer limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("filmId", filmId)
+                .addValue("after", afterUserId == null ? Long.MIN_VALUE : afterUserId)
+                .addValue("limit", limit);
+        return jdbc.queryForList("SELECT user_id FROM likes WHERE film_id = :filmId AND user_id > :after "
+                + "ORDER BY user_id LIMIT :limit", params, Long.class);
+    }
+
+    @Override
+    public long countLikesByFilmId(Long filmId) {
+        return jdbc.queryForObject("SELECT COALESCE(MAX(likes), 0) FROM film_like_counts WHERE film_id = :filmId",
+                Map.of("filmId", filmId), Long.class);
+    }
+
+    // Читается из индекса film_like_counts_top по убыванию числа лайков.
+    @Override
+    public List<Long> findTopFilmsByLikes(Integer count) {
+        return jdbc.queryForList("SELECT film_id FROM film_like_counts WHERE likes > 0 "
+                + "ORDER BY likes DESC, film_id LIMIT :count", Map.of("count", count), Long.class);
+    }
+
+    @Override
+    public long countFilmsWithLikes() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM film_like_counts WHERE likes > 0", Map.of(), Long.class);
+    }
+
+    @Override
+    public long countLikes() {
+        return jdbc.queryForObject("SELECT COALESCE(SUM(likes), 0) FROM film_like_counts", Map.of(), Long.class);
+    }
+
+    @Override
+    @Transactional
+    public void clear() {
+        jdbc.update("DELETE FROM likes", Map.of());
+        jdbc.update("DELETE FROM film_like_counts", Map.of());
+    }
+
+    // Блокирует строки фильмов по возрастанию id, чтобы параллельные пачки не ждали друг друга по кругу,
+    // и возвращает id существующих фильмов.
+    private Set<Long> lockFilms(List<Long> filmIds) {
+        List<Long> sortedIds = List.copyOf(new TreeSet<>(filmIds));
+        Set<Long> lockedIds = new HashSet<>();
+        for (int from = 0; from < sortedIds.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = sortedIds.subList(from, Math.min(sortedIds.size(), from + IN_CHUNK_SIZE));
+            lockedIds.addAll(jdbc.queryForList("SELECT id FROM films WHERE id IN (:filmIds) ORDER BY id FOR UPDATE",
+                    Map.of("filmIds", chunk), Long.class));
+        }
+        return lockedIds;
+    }
+
+    // Пары из changes, которые уже есть в базе. IN по фильмам и пользователям пачки дает надмножество,
+    // лишние пары отсеиваются при сравнении.
+    private Set<LikeKey> findExisting(List<LikeChange> changes) {
+        Set<LikeKey> requested = new HashSet<>();
+        changes.forEach(change -> requested.add(new LikeKey(change.getFilmId(), change.getUserId())));
+
+        Set<LikeKey> existing = new HashSet<>();
+        for (int from = 0; from < changes.size(); from += IN_CHUNK_SIZE) {
+            List<LikeChange> chunk = changes.subList(from, Math.min(changes.size(), from + IN_CHUNK_SIZE));
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("filmIds", chunk.stream().map(LikeChange::getFilmId).distinct().toList())
+                    .addValue("userIds", chunk.stream().map(LikeChange::getUserId).distinct().toList());
+            jdbc.query("SELECT film_id, user_id FROM likes WHERE film_id IN (:filmIds) AND user_id IN (:userIds)",
+                    params, resultSet -> {
+                        LikeKey key = new LikeKey(resultSet.getLong("film_id"), resultSet.getLong("user_id"));
+                        if (requested.contains(key)) {
+                            existing.add(key);
+                        }
+                    });
+        }
+        return existing;
+    }
+
+    // Переносит в deltasByFilmId изменения строк, которые база действительно вставила или удалила.
+    // Для пар без изменения строки операции, отмеченные в пачке как примененные, получают false.
+    private static void collectDeltas(List<LikeKey> keys, int[] rowCounts, int delta,
+                                      Map<Long, Integer> deltasByFilmId,
+                                      Map<LikeKey, List<Integer>> appliedPositions, List<Boolean> results) {
+        for (int i = 0; i < keys.size(); i++) {
+            LikeKey key = keys.get(i);
+            if (rowCounts[i] > 0) {
+                deltasByFilmId.merge(key.filmId(), delta, Integer::sum);
+            } else {
+                appliedPositions.getOrDefault(key, List.of()).forEach(position -> results.set(position, false));
+            }
+        }
+    }
+
+    // Счетчики меняются по возрастанию id фильма, как и блокировки фильмов, чтобы транзакции не ждали друг друга
+    // по кругу.
+    private void updateCounts(Map<Long, Integer> deltasByFilmId) {
+        SqlParameterSource[] params = deltasByFilmId.entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> countParams(entry.getKey(), entry.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        jdbc.batchUpdate(ADD_TO_COUNT, params);
+    }
+
+    private static SqlParameterSource[] toParams(List<LikeKey> keys) {
+        return keys.stream()
+                .map(key -> likeParams(key.filmId(), key.userId()))
+                .toArray(SqlParameterSource[]::new);
+    }
+
+    private static MapSqlParameterSource likeParams(Long filmId, Long userId) {
+        return new MapSqlParameterSource()
+                .addValue("filmId", filmId)
+                .addValue("userId", userId);
+    }
+
+    private static MapSqlParameterSource countParams(Long filmId, int delta) {
+        return new MapSqlParameterSource()
+                .addValue("filmId", filmId)
+                .addValue("delta", delta);
+    }
+
+    private record LikeKey(long filmId, long userId) {
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.repository.likes;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Корзины окон трендов в таблице trending_likes, как кольцевой буфер в памяти: строка хранит изменение лайков
+// фильма за интервал корзины. Окно - сумма последних корзин, корзины старше окна удаляются при записи.
+// Тренды общие для всех экземпляров приложения и переживают перезапуск.
+@Repository
+@Profile("prod")
+@Timed(value = "filmorate.repository", histogram = true)
+public class JdbcTrendingLikesRepository implements TrendingLikesRepository {
+    private static final String ADD_TO_BUCKET = "MERGE INTO trending_likes t "
+            + "USING (VALUES (CAST(:window AS VARCHAR(8)), CAST(:bucket AS BIGINT), CAST(:filmId AS BIGINT), "
+            + "CAST(:delta AS INT))) AS d (trending_window, bucket, film_id, delta) "
+            + "ON t.trending_window = d.trending_window AND t.bucket = d.bucket AND t.film_id = d.film_id "
+            + "WHEN MATCHED THEN UPDATE SET likes = t.likes + d.delta "
+            + "WHEN NOT MATCHED THEN INSERT (trending_window, bucket, film_id, likes) "
+            + "VALUES (d.trending_window, d.bucket, d.film_id, d.delta)";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final Clock clock;
+
+    @Autowired
+    public JdbcTrendingLikesRepository(NamedParameterJdbcTemplate jdbc) {
+        this(jdbc, Clock.systemUTC());
+    }
+
+    JdbcTrendingLikesRepository(NamedParameterJdbcTemplate jdbc, Clock clock) {
+        this.jdbc = jdbc;
+        this.clock = clock;
+    }
+
+    @Override
+    @Transactional
+    public void recordLikes(Map<Long, Integer> deltasByFilmId) {
+        if (deltasByFilmId.isEmpty()) {
+            return;
+        }
+        long now = clock.millis();
+        List<SqlParameterSource> params = new ArrayList<>();
+        for (TrendingWindow window : TrendingWindow.values()) {
+            long bucket = bucket(window, now);
+            jdbc.update("DELETE FROM trending_likes WHERE trending_window = :window AND bucket <= :expired",
+                    new MapSqlParameterSource()
+                            .addValue("window", window.name())
+                            .addValue("expired", bucket - window.getBuckets()));
+            deltasByFilmId.forEach((filmId, delta) -> params.add(new MapSqlParameterSource()
+                    .addValue("window", window.name())
+                    .addValue("bucket", bucket)
+                    .addValue("filmId", filmId)
+                    .addValue("delta", delta)));
+        }
+        jdbc.batchUpdate(ADD_TO_BUCKET, params.toArray(SqlParameterSource[]::new));
+    }
+
+    // Фильмы с отрицательной суммой за окно (сняты лайки, поставленные до окна) в топ не попадают.
+    @Override
+    public List<Long> findTopFilmsByLikes(TrendingWindow window, Integer count) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("window", window.name())
+                .addValue("expired", bucket(window, clock.millis()) - window.getBuckets())
+                .addValue("count", count);
+        return jdbc.queryForList("SELECT film_id FROM trending_likes "
+                + "WHERE trending_window = :window AND bucket > :expired "
+                + "GROUP BY film_id HAVING SUM(likes) > 0 "
+                + "ORDER BY SUM(likes) DESC, film_id LIMIT :count", params, Long.class);
+    }
+
+    @Override
+    public void deleteFilm(Long filmId) {
+        jdbc.update("DELETE FROM trending_likes WHERE film_id = :filmId", Map.of("filmId", filmId));
+    }
+
+    @Override
+    public void clear() {
+        jdbc.update("DELETE FROM trending_likes", Map.of());
+    }
+
+    private static long bucket(TrendingWindow window, long nowMillis) {
+        return nowMillis / window.getBucketDuration().toMillis();
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.repository.likes;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Фильмы, разложенные по корзинам "количество лайков -> фильмы", корзины упорядочены по убыванию.
+class LikesPopularityIndex {
+    private final NavigableMap<Integer, Set<Long>> filmsByLikes = new TreeMap<>(Comparator.reverseOrder());
+
+    void update(Long filmId, int oldCount, int newCount) {
+        if (oldCount == newCount) {
+            return;
+        }
+
+        if (oldCount > 0) {
+            Set<Long> bucket = filmsByLikes.get(oldCount);
+            bucket.remove(filmId);
+            if (bucket.isEmpty()) {
+                filmsByLikes.remove(oldCount);
+            }
+        }
+
+        if (newCount > 0) {
+            filmsByLikes.computeIfAbsent(newCount, k -> new LinkedHashSet<>()).add(filmId);
+        }
+    }
+
+    List<FilmLikesCount> findTop(int count) {
+        List<FilmLikesCount> top = new ArrayList<>(count);
+        for (Map.Entry<Integer, Set<Long>> bucket : filmsByLikes.entrySet()) {
+            for (Long filmId : bucket.getValue()) {
+                if (top.size() == count) {
+                    return top;
+                }
+                top.add(new FilmLikesCount(filmId, bucket.getKey()));
+            }
+        }
+        return top;
+    }
+
+    void clear() {
+        filmsByLikes.clear();
+    }
+}
@@ -1,16 +1,36 @@
 package ru.yandex.practicum.filmorate.repository.likes;
 
+import ru.yandex.practicum.filmorate.model.LikeChange;
+
 import java.util.List;
 import java.util.Set;
+import java.util.function.LongPredicate;
 
 public interface LikesRepository {
-    void addLike(Long filmId, Long userId);
+    // filmExists проверяется в той же секции записи, где ставится лайк, поэтому лайк не переживает
+    // параллельное удаление фильма. Для отсутствующего фильма лайк не ставится и возвращается false.
+    boolean addLike(Long filmId, Long userId, LongPredicate filmExists);
+
+    boolean deleteLike(Long filmId, Long userId);
+
+    // Добавления для фильмов, не прошедших filmExists, не применяются и дают false, как и в addLike.
+    List<Boolean> applyLikes(List<LikeChange> changes, LongPredicate filmExists);
+
+    long deleteLikesByFilmId(Long filmId);
 
-    void deleteLike(Long filmId, Long userId);
+    List<Long> deleteLikesByUserId(Long userId);
 
     Set<Long> findLikesByFilmId(Long filmId);
 
+    List<Long> findLikesPageByFilmId(Long filmId, Long afterUserId, Integer limit);
+
+    long countLikesByFilmId(Long filmId);
+
     List<Long> findTopFilmsByLikes(Integer count);
 
+    long countFilmsWithLikes();
+
+    long countLikes();
+
     void clear();
 }
@@ -0,0 +1,284 @@
+package ru.yandex.practicum.filmorate.repository.likes;
+
+import ru.yandex.practicum.filmorate.collection.LongBitmap;
+import ru.yandex.practicum.filmorate.collection.SortedLongArray;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.wal.MutationLog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.LongPredicate;
+
+// Часть лайков, защищенная собственной блокировкой. Фильм всегда попадает в один и тот же сегмент.
+// Обратный индекс "пользователь -> фильмы сегмента с его лайком" нужен, чтобы при удалении пользователя
+// снимать его лайки без обхода всех фильмов. Изменения попадают в журнал под блокировкой сегмента.
+// Существование фильма проверяется под той же блокировкой: удаление фильма снимает его лайки после удаления
+// самого фильма, поэтому лайк, поставленный параллельно удалению, либо отклоняется, либо снимается вместе с ним.
+class LikesSegment {
+    private final MutationLog mutationLog;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, LongBitmap> likes = new HashMap<>();
+    private final Map<Long, SortedLongArray> filmsByUser = new HashMap<>();
+    private final LikesPopularityIndex popularityIndex = new LikesPopularityIndex();
+    private long totalLikes;
+
+    LikesSegment(MutationLog mutationLog) {
+        this.mutationLog = mutationLog;
+    }
+
+    boolean addLike(Long filmId, Long userId, LongPredicate filmExists) {
+        lock.writeLock().lock();
+        try {
+            if (!filmExists.test(filmId)) {
+                return false;
+            }
+            LongBitmap filmLikes = likes.computeIfAbsent(filmId, k -> new LongBitmap());
+            if (!filmLikes.add(userId)) {
+                return false;
+            }
+            indexLike(userId, filmId);
+            int count = (int) filmLikes.cardinality();
+            popularityIndex.update(filmId, count - 1, count);
+            totalLikes++;
+            mutationLog.likeAdded(filmId, userId);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean deleteLike(Long filmId, Long userId) {
+        lock.writeLock().lock();
+        try {
+            LongBitmap filmLikes = likes.get(filmId);
+            if (filmLikes == null || !filmLikes.remove(userId)) {
+                return false;
+            }
+            unindexLike(userId, filmId);
+            int count = (int) filmLikes.cardinality();
+            popularityIndex.update(filmId, count + 1, count);
+            totalLikes--;
+            if (filmLikes.isEmpty()) {
+                likes.remove(filmId);
+            }
+            mutationLog.likeDeleted(filmId, userId);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Применяет изменения с указанными позициями под одной блокировкой, индекс обновляется один раз на фильм.
+    // Лайки отсутствующих фильмов не ставятся, фильм проверяется один раз на пачку.
+    void applyLikes(List<LikeChange> changes, List<Integer> positions, Boolean[] results, LongPredicate filmExists) {
+        lock.writeLock().lock();
+        try {
+            Map<Long, Integer> countsBefore = new HashMap<>();
+            Map<Long, Boolean> existingFilms = new HashMap<>();
+            for (int position : positions) {
+                LikeChange change = changes.get(position);
+                Long filmId = change.getFilmId();
+                if (change.getOperation() == LikeOperation.ADD
+                        && !existingFilms.computeIfAbsent(filmId, filmExists::test)) {
+                    results[position] = false;
+                    continue;
+                }
+                LongBitmap filmLikes = likes.get(filmId);
+                countsBefore.putIfAbsent(filmId, filmLikes == null ? 0 : (int) filmLikes.cardinality());
+
+                if (change.getOperation() == LikeOperation.ADD) {
+                    if (filmLikes == null) {
+                        filmLikes = new LongBitmap();
+                        likes.put(filmId, filmLikes);
+                    }
+                    results[position] = filmLikes.add(change.getUserId());
+                    if (results[position]) {
+                        indexLike(change.getUserId(), filmId);
+                        mutationLog.likeAdded(filmId, change.getUserId());
+                    }
+                } else {
+                    results[position] = filmLikes != null && filmLikes.remove(change.getUserId());
+                    if (results[position]) {
+                        unindexLike(change.getUserId(), filmId);
+                        mutationLog.likeDeleted(filmId, change.getUserId());
+                    }
+                }
+            }
+
+            countsBefore.forEach((filmId, before) -> {
+                LongBitmap filmLikes = likes.get(filmId);
+                int after = filmLikes == null ? 0 : (int) filmLikes.cardinality();
+                popularityIndex.update(filmId, before, after);
+                totalLikes += after - before;
+                if (after == 0) {
+                    likes.remove(filmId);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Снимает все лайки фильма и возвращает их количество.
+    long deleteLikesByFilmId(Long filmId) {
+        lock.writeLock().lock();
+        try {
+            LongBitmap filmLikes = likes.remove(filmId);
+            if (filmLikes == null) {
+                return 0;
+            }
+            filmLikes.forEach(userId -> unindexLike(userId, filmId));
+            long count = filmLikes.cardinality();
+            popularityIndex.update(filmId, (int) count, 0);
+            totalLikes -= count;
+            mutationLog.filmLikesDeleted(filmId);
+            return count;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Снимает все лайки пользователя в фильмах сегмента и возвращает эти фильмы. В журнал уходит каждый снятый
+    // лайк: запись "все лайки пользователя" при повторе задела бы и лайки других сегментов, поставленные позже.
+    long[] deleteLikesByUserId(Long userId) {
+        lock.writeLock().lock();
+        try {
+            SortedLongArray userFilms = filmsByUser.remove(userId);
+            if (userFilms == null) {
+                return new long[0];
+            }
+            long[] filmIds = userFilms.toArray();
+            for (long filmId : filmIds) {
+                LongBitmap filmLikes = likes.get(filmId);
+                filmLikes.remove(userId);
+                int count = (int) filmLikes.cardinality();
+                popularityIndex.update(filmId, count + 1, count);
+                totalLikes--;
+                if (filmLikes.isEmpty()) {
+                    likes.remove(filmId);
+                }
+                mutationLog.likeDeleted(filmId, userId);
+            }
+            return filmIds;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    Set<Long> findLikesByFilmId(Long filmId) {
+        lock.readLock().lock();
+        try {
+            LongBitmap filmLikes = likes.get(filmId);
+            if (filmLikes == null) {
+                return Collections.emptySet();
+            }
+            Set<Long> userIds = new HashSet<>();
+            filmLikes.forEach(userIds::add);
+            return userIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<Long> findLikesPageByFilmId(Long filmId, Long afterUserId, int limit) {
+        lock.readLock().lock();
+        try {
+            LongBitmap filmLikes = likes.get(filmId);
+            if (filmLikes == null) {
+                return List.of();
+            }
+            long from = afterUserId == null ? Long.MIN_VALUE : afterUserId + 1;
+            PrimitiveIterator.OfLong iterator = filmLikes.iteratorFrom(from);
+            List<Long> page = new ArrayList<>(limit);
+            while (iterator.hasNext() && page.size() < limit) {
+                page.add(iterator.nextLong());
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long countLikesByFilmId(Long filmId) {
+        lock.readLock().lock();
+        try {
+            LongBitmap filmLikes = likes.get(filmId);
+            return filmLikes == null ? 0 : filmLikes.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<FilmLikesCount> findTop(int count) {
+        lock.readLock().lock();
+        try {
+            return popularityIndex.findTop(count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int countFilms() {
+        lock.readLock().lock();
+        try {
+            return likes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long countLikes() {
+        lock.readLock().lock();
+        try {
+            return totalLikes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Передает лайки каждого фильма сегмента: id фильма и id пользователей по возрастанию.
+    void forEachFilmLikes(BiConsumer<Long, long[]> action) {
+        lock.readLock().lock();
+        try {
+            likes.forEach((filmId, filmLikes) -> action.accept(filmId, filmLikes.toArray()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            likes.clear();
+            filmsByUser.clear();
+            popularityIndex.clear();
+            totalLikes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void indexLike(long userId, long filmId) {
+        filmsByUser.computeIfAbsent(userId, k -> new SortedLongArray()).add(filmId);
+    }
+
+    private void unindexLike(long userId, long filmId) {
+        SortedLongArray userFilms = filmsByUser.get(userId);
+        if (userFilms != null) {
+            userFilms.remove(filmId);
+            if (userFilms.isEmpty()) {
+                filmsByUser.remove(userId);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.repository.likes;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Кольцевой буфер временных корзин одного окна. Корзина хранит изменения лайков по фильмам за свой интервал,
+// при сдвиге окна вычитаются только изменения из выпадающей корзины, а не весь каталог.
+class SlidingWindowLikes {
+    private final long bucketMillis;
+    private final Map<Long, Integer>[] buckets;
+    private final Map<Long, Integer> totals = new HashMap<>();
+    private final LikesPopularityIndex popularityIndex = new LikesPopularityIndex();
+    private long headBucket;
+
+    @SuppressWarnings("unchecked")
+    SlidingWindowLikes(long bucketMillis, int bucketCount) {
+        this.bucketMillis = bucketMillis;
+        this.buckets = new Map[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new HashMap<>();
+        }
+    }
+
+    synchronized void record(long nowMillis, Map<Long, Integer> deltasByFilmId) {
+        advance(nowMillis);
+        Map<Long, Integer> bucket = buckets[(int) (headBucket % buckets.length)];
+        deltasByFilmId.forEach((filmId, delta) -> {
+            bucket.merge(filmId, delta, Integer::sum);
+            adjust(filmId, delta);
+        });
+    }
+
+    synchronized List<FilmLikesCount> findTop(long nowMillis, int count) {
+        advance(nowMillis);
+        return popularityIndex.findTop(count);
+    }
+
+    // Убирает фильм из всех корзин окна, например после удаления фильма.
+    synchronized void remove(Long filmId) {
+        for (Map<Long, Integer> bucket : buckets) {
+            bucket.remove(filmId);
+        }
+        Integer total = totals.remove(filmId);
+        if (total != null) {
+            popularityIndex.update(filmId, Math.max(total, 0), 0);
+        }
+    }
+
+    synchronized void clear() {
+        for (Map<Long, Integer> bucket : buckets) {
+            bucket.clear();
+        }
+        totals.clear();
+        popularityIndex.clear();
+    }
+
+    private void advance(long nowMillis) {
+        long nowBucket = nowMillis / bucketMillis;
+        if (nowBucket <= headBucket) {
+            return;
+        }
+
+        long steps = Math.min(nowBucket - headBucket, buckets.length);
+        for (long i = 1; i <= steps; i++) {
+            Map<Long, Integer> expired = buckets[(int) ((nowBucket - steps + i) % buckets.length)];
+            expired.forEach((filmId, delta) -> adjust(filmId, -delta));
+            expired.clear();
+        }
+        headBucket = nowBucket;
+    }
+
+    private void adjust(Long filmId, int delta) {
+        int before = totals.getOrDefault(filmId, 0);
+        int after = before + delta;
+        if (after == 0) {
+            totals.remove(filmId);
+        } else {
+            totals.put(filmId, after);
+        }
+        // Лайк мог быть снят внутри окна, а поставлен до него, поэтому сумма бывает отрицательной.
+        popularityIndex.update(filmId, Math.max(before, 0), Math.max(after, 0));
+    }
+}
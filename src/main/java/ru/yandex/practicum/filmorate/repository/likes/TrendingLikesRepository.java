@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.repository.likes;
+
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.util.List;
+import java.util.Map;
+
+public interface TrendingLikesRepository {
+    void recordLikes(Map<Long, Integer> deltasByFilmId);
+
+    List<Long> findTopFilmsByLikes(TrendingWindow window, Integer count);
+
+    void deleteFilm(Long filmId);
+
+    void clear();
+}
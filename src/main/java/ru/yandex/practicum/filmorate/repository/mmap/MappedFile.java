@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.repository.mmap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Файл, отображенный в память кусками по chunkSize байт: один MappedByteBuffer ограничен 2 ГБ. Кусок
+// отображается при первом обращении, файл при этом дорастает до его конца. Значения не должны пересекать
+// границу куска - за этим следят вызывающие.
+class MappedFile implements Closeable {
+    private final FileChannel channel;
+    private final int chunkSize;
+    private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+
+    MappedFile(Path path, int chunkSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.chunkSize = chunkSize;
+    }
+
+    int chunkSize() {
+        return chunkSize;
+    }
+
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    byte getByte(long position) {
+        return chunk(position).get(offset(position));
+    }
+
+    void putByte(long position, byte value) {
+        chunk(position).put(offset(position), value);
+    }
+
+    int getInt(long position) {
+        return chunk(position).getInt(offset(position));
+    }
+
+    void putInt(long position, int value) {
+        chunk(position).putInt(offset(position), value);
+    }
+
+    long getLong(long position) {
+        return chunk(position).getLong(offset(position));
+    }
+
+    void putLong(long position, long value) {
+        chunk(position).putLong(offset(position), value);
+    }
+
+    void get(long position, byte[] destination) {
+        chunk(position).get(offset(position), destination);
+    }
+
+    void put(long position, byte[] source) {
+        chunk(position).put(offset(position), source);
+    }
+
+    // Сбрасывает измененные страницы на диск.
+    void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        chunks = new MappedByteBuffer[0];
+        channel.close();
+    }
+
+    private int offset(long position) {
+        return (int) (position % chunkSize);
+    }
+
+    private MappedByteBuffer chunk(long position) {
+        int index = (int) (position / chunkSize);
+        MappedByteBuffer[] current = chunks;
+        if (index < current.length) {
+            return current[index];
+        }
+        return map(index);
+    }
+
+    private synchronized MappedByteBuffer map(int index) {
+        MappedByteBuffer[] current = chunks;
+        if (index < current.length) {
+            return current[index];
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(current, index + 1);
+        try {
+            for (int i = current.length; i <= index; i++) {
+                grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * chunkSize, chunkSize);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось отобразить файл в память", e);
+        }
+        chunks = grown;
+        return grown[index];
+    }
+}
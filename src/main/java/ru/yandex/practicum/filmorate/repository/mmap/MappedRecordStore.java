@@ -0,0 +1,223 @@
+package ru.yandex.practicum.filmorate.repository.mmap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Записи фиксированного размера вне кучи: файл <name>.records со слотами по id и файл <name>.strings
+// с ареной строк. Id выдаются подряд, поэтому индекс id -> смещение - это формула: слот id лежит в куске
+// id / recordsPerChunk. Слот 0 - заголовок: магическое число, версия, размер записи, следующий id и число записей.
+// Первый байт слота записи - флаги, бит PRESENT ставится последним, после полей. Строка занимает в арене блок
+// размером в степень двойки, не меньше 16 байт. Освобожденный блок попадает в список свободных блоков своего
+// размера и отдается следующей строке того же размера, поэтому изменения и удаления не растят арену без конца.
+// Заголовок арены - конец занятой части и головы списков по размерам. Строки читаются и освобождаются
+// под одной блокировкой вызывающего. При старте файлы просто отображаются заново, без чтения записей.
+// На диск изменения попадают при force() и при закрытии.
+public class MappedRecordStore implements Closeable {
+    public static final byte PRESENT = 1;
+    public static final long NO_STRING = -1;
+    static final int DEFAULT_CHUNK_SIZE = 1 << 26;
+
+    private static final int MAGIC = 0x464D5253;
+    private static final int VERSION = 2;
+    private static final int HEADER_RECORD_SIZE = 8;
+    private static final int HEADER_NEXT_ID = 16;
+    private static final int HEADER_COUNT = 24;
+    private static final int HEADER_SIZE = 32;
+    private static final int MIN_BLOCK_SHIFT = 4;
+
+    private final MappedFile records;
+    private final MappedFile strings;
+    private final int recordSize;
+    private final int recordsPerChunk;
+    // Классы размеров блоков: от 16 байт до наибольшей степени двойки, помещающейся в кусок.
+    private final int sizeClasses;
+    private final long arenaStart;
+
+    public MappedRecordStore(Path directory, String name, int recordSize) throws IOException {
+        this(directory, name, recordSize, DEFAULT_CHUNK_SIZE);
+    }
+
+    MappedRecordStore(Path directory, String name, int recordSize, int chunkSize) throws IOException {
+        if (recordSize < HEADER_SIZE) {
+            throw new IllegalArgumentException("Размер записи меньше заголовка: " + recordSize);
+        }
+        Files.createDirectories(directory);
+        this.records = new MappedFile(directory.resolve(name + ".records"), chunkSize);
+        this.strings = new MappedFile(directory.resolve(name + ".strings"), chunkSize);
+        this.recordSize = recordSize;
+        this.recordsPerChunk = chunkSize / recordSize;
+        this.sizeClasses = 31 - Integer.numberOfLeadingZeros(chunkSize) - MIN_BLOCK_SHIFT + 1;
+        this.arenaStart = (long) Long.BYTES * (1 + sizeClasses);
+        if (sizeClasses < 1 || arenaStart > chunkSize) {
+            throw new IllegalArgumentException("Кусок меньше заголовка арены: " + chunkSize);
+        }
+
+        if (records.size() == 0 || records.getInt(0) == 0) {
+            records.putInt(Integer.BYTES, VERSION);
+            records.putInt(HEADER_RECORD_SIZE, recordSize);
+            records.putLong(HEADER_NEXT_ID, 1);
+            records.putLong(HEADER_COUNT, 0);
+            resetArena();
+            records.putInt(0, MAGIC);
+        } else if (records.getInt(0) != MAGIC || records.getInt(Integer.BYTES) != VERSION
+                || records.getInt(HEADER_RECORD_SIZE) != recordSize) {
+            throw new IOException("Файл " + directory.resolve(name + ".records")
+                    + " создан другой версией хранилища");
+        }
+    }
+
+    public long nextId() {
+        return records.getLong(HEADER_NEXT_ID);
+    }
+
+    public long count() {
+        return records.getLong(HEADER_COUNT);
+    }
+
+    // Выдает следующий id. Слот становится записью только после markPresent.
+    public long allocateId() {
+        long id = nextId();
+        records.putLong(HEADER_NEXT_ID, id + 1);
+        return id;
+    }
+
+    public boolean isPresent(long id) {
+        return id > 0 && id < nextId() && (records.getByte(slot(id)) & PRESENT) != 0;
+    }
+
+    public void markPresent(long id) {
+        if (id >= nextId()) {
+            records.putLong(HEADER_NEXT_ID, id + 1);
+        }
+        long slot = slot(id);
+        byte flags = records.getByte(slot);
+        if ((flags & PRESENT) == 0) {
+            records.putByte(slot, (byte) (flags | PRESENT));
+            records.putLong(HEADER_COUNT, count() + 1);
+        }
+    }
+
+    // Поля слота не стираются, но строки записи вызывающий освобождает сразу после удаления,
+    // поэтому читать удаленную запись нельзя: isPresent для нее уже false.
+    public void markDeleted(long id) {
+        long slot = slot(id);
+        byte flags = records.getByte(slot);
+        if ((flags & PRESENT) != 0) {
+            records.putByte(slot, (byte) (flags & ~PRESENT));
+            records.putLong(HEADER_COUNT, count() - 1);
+        }
+    }
+
+    public long getLong(long id, int field) {
+        return records.getLong(slot(id) + field);
+    }
+
+    public void putLong(long id, int field, long value) {
+        records.putLong(slot(id) + field, value);
+    }
+
+    public int getInt(long id, int field) {
+        return records.getInt(slot(id) + field);
+    }
+
+    public void putInt(long id, int field, int value) {
+        records.putInt(slot(id) + field, value);
+    }
+
+    // Кладет строку в свободный блок подходящего размера или в конец арены и возвращает ссылку на нее.
+    // Блок не пересекает границу куска.
+    public long putString(String value) {
+        if (value == null) {
+            return NO_STRING;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int sizeClass = sizeClass(Integer.BYTES + bytes.length);
+        if (sizeClass >= sizeClasses) {
+            throw new IllegalArgumentException("Строка длиннее куска арены: " + bytes.length + " байт");
+        }
+        long position = strings.getLong(freeListHead(sizeClass));
+        if (position != 0) {
+            strings.putLong(freeListHead(sizeClass), strings.getLong(position));
+        } else {
+            long blockBytes = 1L << (sizeClass + MIN_BLOCK_SHIFT);
+            position = strings.getLong(0);
+            long chunkEnd = (position / strings.chunkSize() + 1) * strings.chunkSize();
+            if (position + blockBytes > chunkEnd) {
+                position = chunkEnd;
+            }
+            strings.putLong(0, position + blockBytes);
+        }
+        strings.putInt(position, bytes.length);
+        strings.put(position + Integer.BYTES, bytes);
+        return position;
+    }
+
+    // Возвращает блок строки в список свободных. Ссылку после этого читать нельзя.
+    public void freeString(long reference) {
+        if (reference == NO_STRING) {
+            return;
+        }
+        int sizeClass = sizeClass(Integer.BYTES + strings.getInt(reference));
+        strings.putLong(reference, strings.getLong(freeListHead(sizeClass)));
+        strings.putLong(freeListHead(sizeClass), reference);
+    }
+
+    // Конец занятой части арены.
+    long arenaEnd() {
+        return strings.getLong(0);
+    }
+
+    public String getString(long reference) {
+        if (reference == NO_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[strings.getInt(reference)];
+        strings.get(reference + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Помечает все записи удаленными и начинает выдачу id и арену заново.
+    public void clear() {
+        for (long id = 1; id < nextId(); id++) {
+            records.putByte(slot(id), (byte) 0);
+        }
+        records.putLong(HEADER_NEXT_ID, 1);
+        records.putLong(HEADER_COUNT, 0);
+        resetArena();
+    }
+
+    // Сбрасывает измененные страницы обоих файлов на диск.
+    public void force() {
+        records.force();
+        strings.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        records.close();
+        strings.close();
+    }
+
+    private void resetArena() {
+        for (int sizeClass = 0; sizeClass < sizeClasses; sizeClass++) {
+            strings.putLong(freeListHead(sizeClass), 0);
+        }
+        strings.putLong(0, arenaStart);
+    }
+
+    private long freeListHead(int sizeClass) {
+        return (long) Long.BYTES * (1 + sizeClass);
+    }
+
+    // Класс размера блока: 0 - 16 байт, 1 - 32 байта и так далее.
+    private static int sizeClass(int bytes) {
+        return Math.max(0, 32 - Integer.numberOfLeadingZeros(bytes - 1) - MIN_BLOCK_SHIFT);
+    }
+
+    private long slot(long id) {
+        return id / recordsPerChunk * records.chunkSize() + id % recordsPerChunk * recordSize;
+    }
+}
@@ -0,0 +1,240 @@
+package ru.yandex.practicum.filmorate.repository.mmap;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Общая часть репозиториев в отображенных в память файлах: блокировка хранилища, выдача id, обход,
+// освобождение строк измененных и удаленных записей и сброс на диск раз в forceInterval (0 - только
+// при закрытии). Раскладку полей записи задает RecordCodec репозитория.
+// Записи отдаются обычными объектами, декодированными целиком под блокировкой чтения, а не ленивыми
+// представлениями над слотом: строки измененной или удаленной записи сразу освобождаются и занимаются
+// заново, и представление, читающее поля после снятия блокировки, увидело бы чужие данные.
+@Slf4j
+public class MappedRecordTable<T> implements Closeable {
+    private final MappedRecordStore store;
+    private final RecordCodec<T> codec;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object forceLock = new Object();
+    private final ScheduledExecutorService scheduler;
+
+    public MappedRecordTable(MappedRecordStore store, RecordCodec<T> codec, Duration forceInterval) {
+        this.store = store;
+        this.codec = codec;
+        if (forceInterval.isZero() || forceInterval.isNegative()) {
+            scheduler = null;
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mmap-force");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = forceInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::scheduledForce, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public T save(T record) {
+        lock.writeLock().lock();
+        try {
+            insert(record);
+            return record;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<T> saveAll(List<T> records) {
+        lock.writeLock().lock();
+        try {
+            records.forEach(this::insert);
+            return records;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public T findById(Long id) {
+        lock.readLock().lock();
+        try {
+            return store.isPresent(id) ? codec.read(store, id) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<T> findByIds(List<Long> ids) {
+        lock.readLock().lock();
+        try {
+            List<T> found = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                if (store.isPresent(id)) {
+                    found.add(codec.read(store, id));
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Снимок всех записей на момент вызова, декодированных под одной блокировкой. Для обхода большого
+    // каталога без копии в куче есть forEach.
+    public List<T> findAll() {
+        lock.readLock().lock();
+        try {
+            List<T> found = new ArrayList<>((int) store.count());
+            for (long id = 1; id < store.nextId() && found.size() < store.count(); id++) {
+                if (store.isPresent(id)) {
+                    found.add(codec.read(store, id));
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Блокировка берется на каждую запись, чтобы медленный получатель не задерживал запись.
+    public void forEach(Consumer<T> action) {
+        long nextId;
+        lock.readLock().lock();
+        try {
+            nextId = store.nextId();
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (long id = 1; id < nextId; id++) {
+            T record = findById(id);
+            if (record != null) {
+                action.accept(record);
+            }
+        }
+    }
+
+    // Удаленная к этому моменту запись не восстанавливается: возвращается null. Старые строки записи
+    // освобождаются после того, как слот уже ссылается на новые.
+    public T update(T record) {
+        long id = codec.getId(record);
+        lock.writeLock().lock();
+        try {
+            if (!store.isPresent(id)) {
+                return null;
+            }
+            long[] strings = readStrings(id);
+            codec.write(store, id, record);
+            freeStrings(strings);
+            return record;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public T deleteById(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (!store.isPresent(id)) {
+                return null;
+            }
+            T record = codec.read(store, id);
+            store.markDeleted(id);
+            freeStrings(readStrings(id));
+            return record;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return store.count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            store.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void force() {
+        synchronized (forceLock) {
+            store.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        synchronized (forceLock) {
+            lock.writeLock().lock();
+            try {
+                store.close();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void insert(T record) {
+        long id = store.allocateId();
+        codec.write(store, id, record);
+        store.markPresent(id);
+        codec.setId(record, id);
+    }
+
+    private long[] readStrings(long id) {
+        int[] fields = codec.stringFields();
+        long[] strings = new long[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            strings[i] = store.getLong(id, fields[i]);
+        }
+        return strings;
+    }
+
+    private void freeStrings(long[] strings) {
+        for (long reference : strings) {
+            store.freeString(reference);
+        }
+    }
+
+    private void scheduledForce() {
+        try {
+            force();
+        } catch (RuntimeException e) {
+            log.error("Не удалось сбросить на диск файлы хранилища", e);
+        }
+    }
+
+    // Раскладка записи репозитория в слоте хранилища.
+    public interface RecordCodec<T> {
+        // Смещения полей со ссылками на строки арены: при изменении и удалении записи эти строки освобождаются.
+        int[] stringFields();
+
+        long getId(T record);
+
+        void setId(T record, long id);
+
+        void write(MappedRecordStore store, long id, T record);
+
+        T read(MappedRecordStore store, long id);
+    }
+}
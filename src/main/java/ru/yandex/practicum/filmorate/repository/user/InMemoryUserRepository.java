@@ -1,29 +1,67 @@
 package ru.yandex.practicum.filmorate.repository.user;
 
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
-import ru.yandex.practicum.filmorate.model.User;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.wal.MutationLog;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Repository
-@Profile("dev")
+@Profile("dev & !mmap")
+@Timed(value = "filmorate.repository", histogram = true)
 public class InMemoryUserRepository implements UserRepository {
-    private final Map<Long, User> users = new HashMap<>();
-    private Long lastId = 1L;
+    // ConcurrentHashMap: выгрузка и снимок журнала обходят записи параллельно с изменениями.
+    // Изменение записи и его запись в журнал делаются внутри compute, под блокировкой ключа в карте:
+    // изменения одного id попадают в журнал в том же порядке, в котором применены.
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+    private final MutationLog mutationLog;
+    private final AtomicLong lastId = new AtomicLong(1);
+
+    public InMemoryUserRepository() {
+        this(MutationLog.NONE);
+    }
+
+    @Autowired
+    public InMemoryUserRepository(MutationLog mutationLog) {
+        this.mutationLog = mutationLog;
+    }
 
     @Override
     public User save(User user) {
-        user.setId(lastId);
-        users.put(lastId, user);
-        lastId++;
+        user.setId(lastId.getAndIncrement());
+        put(user);
+        mutationLog.sync();
         return user;
     }
 
+    // Вся пачка ждет журнал изменений один раз и получает подряд идущие id одним обращением к счетчику.
+    @Override
+    public List<User> saveAll(List<User> users) {
+        long id = lastId.getAndAdd(users.size());
+        for (User user : users) {
+            user.setId(id++);
+            put(user);
+        }
+        mutationLog.sync();
+        return users;
+    }
+
+    private void put(User user) {
+        users.compute(user.getId(), (id, previous) -> {
+            mutationLog.userSaved(user);
+            return user;
+        });
+    }
+
     @Override
     public User findById(Long id) {
         return users.get(id);
@@ -42,21 +80,64 @@ public class InMemoryUserRepository implements UserRepository {
         return new ArrayList<>(users.values());
     }
 
+    @Override
+    public void forEachUser(Consumer<User> action) {
+        users.values().forEach(action);
+    }
+
+    // Удаленная к этому моменту запись не восстанавливается: возвращается null.
     @Override
     public User update(User user) {
-        Long id = user.getId();
-        users.put(id, user);
-        return users.get(id);
+        User updated = users.computeIfPresent(user.getId(), (id, previous) -> {
+            mutationLog.userSaved(user);
+            return user;
+        });
+        if (updated != null) {
+            mutationLog.sync();
+        }
+        return updated;
     }
 
     @Override
     public User deleteById(Long id) {
-        return users.remove(id);
+        List<User> removed = new ArrayList<>(1);
+        users.computeIfPresent(id, (key, previous) -> {
+            mutationLog.userDeleted(id);
+            removed.add(previous);
+            return null;
+        });
+        if (removed.isEmpty()) {
+            return null;
+        }
+        mutationLog.sync();
+        return removed.get(0);
+    }
+
+    // Кладет запись с уже назначенным id, например при восстановлении из журнала изменений.
+    public void restore(User user) {
+        users.put(user.getId(), user);
+        reserveId(user.getId());
+    }
+
+    // Id, который получит следующая запись.
+    public Long getNextId() {
+        return lastId.get();
+    }
+
+    // Не дает выдать id повторно, даже если запись с ним уже удалена.
+    public void reserveId(Long id) {
+        lastId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    @Override
+    public long count() {
+        return users.size();
     }
 
+    // Очистка нужна тестам и не попадает в журнал изменений.
     @Override
     public void clear() {
         users.clear();
-        lastId = 1L;
+        lastId.set(1);
     }
 }
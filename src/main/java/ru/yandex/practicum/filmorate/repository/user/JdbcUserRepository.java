@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.repository.user;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+@Repository
+@Profile("prod")
+@Timed(value = "filmorate.repository", histogram = true)
+public class JdbcUserRepository implements UserRepository {
+    private static final String COLUMNS = "id, email, login, name, birthday";
+    // Сколько id передается в одном IN, чтобы не упереться в лимит параметров запроса.
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public JdbcUserRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public User save(User user) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.update("INSERT INTO users (email, login, name, birthday) VALUES (:email, :login, :name, :birthday)",
+                userParams(user), keyHolder, new String[]{"id"});
+        user.setId(keyHolder.getKeyAs(Long.class));
+        return user;
+    }
+
+    // Одна пачка INSERT вместо запроса на каждого пользователя, ключи возвращаются в порядке строк.
+    @Override
+    @Transactional
+    public List<User> saveAll(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.batchUpdate("INSERT INTO users (email, login, name, birthday) VALUES (:email, :login, :name, :birthday)",
+                users.stream().map(JdbcUserRepository::userParams).toArray(SqlParameterSource[]::new), keyHolder,
+                new String[]{"id"});
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+        }
+        return users;
+    }
+
+    @Override
+    public User findById(Long id) {
+        List<User> users = jdbc.query("SELECT " + COLUMNS + " FROM users WHERE id = :id", Map.of("id", id),
+                JdbcUserRepository::mapUser);
+        return users.isEmpty() ? null : users.get(0);
+    }
+
+    // Один запрос на пачку id вместо запроса на каждый. Порядок - как в ids, отсутствующие пропускаются.
+    @Override
+    public List<User> findByIds(List<Long> ids) {
+        Map<Long, User> usersById = new HashMap<>();
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        for (int from = 0; from < distinctIds.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(distinctIds.size(), from + IN_CHUNK_SIZE));
+            jdbc.query("SELECT " + COLUMNS + " FROM users WHERE id IN (:ids)", Map.of("ids", chunk),
+                            JdbcUserRepository::mapUser)
+                    .forEach(user -> usersById.put(user.getId(), user));
+        }
+        return ids.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<User> findAll() {
+        return jdbc.query("SELECT " + COLUMNS + " FROM users ORDER BY id", JdbcUserRepository::mapUser);
+    }
+
+    // Строки передаются по мере чтения курсора, без списка результатов.
+    @Override
+    public void forEachUser(Consumer<User> action) {
+        jdbc.query("SELECT " + COLUMNS + " FROM users ORDER BY id",
+                (RowCallbackHandler) resultSet -> action.accept(mapUser(resultSet, resultSet.getRow())));
+    }
+
+    @Override
+    public User update(User user) {
+        jdbc.update("UPDATE users SET email = :email, login = :login, name = :name, birthday = :birthday "
+                + "WHERE id = :id", userParams(user));
+        return findById(user.getId());
+    }
+
+    @Override
+    @Transactional
+    public User deleteById(Long id) {
+        User user = findById(id);
+        if (user != null) {
+            jdbc.update("DELETE FROM users WHERE id = :id", Map.of("id", id));
+        }
+        return user;
+    }
+
+    @Override
+    public long count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM users", Map.of(), Long.class);
+    }
+
+    // Как и в памяти, после очистки id снова начинаются с 1.
+    @Override
+    @Transactional
+    public void clear() {
+        jdbc.update("DELETE FROM users", Map.of());
+        jdbc.update("ALTER TABLE users ALTER COLUMN id RESTART WITH 1", Map.of());
+    }
+
+    private static MapSqlParameterSource userParams(User user) {
+        return new MapSqlParameterSource()
+                .addValue("id", user.getId())
+                .addValue("email", user.getEmail())
+                .addValue("login", user.getLogin())
+                .addValue("name", user.getName())
+                .addValue("birthday", user.getBirthday());
+    }
+
+    private static User mapUser(ResultSet resultSet, int rowNum) throws SQLException {
+        return User.builder()
+                .id(resultSet.getLong("id"))
+                .email(resultSet.getString("email"))
+                .login(resultSet.getString("login"))
+                .name(resultSet.getString("name"))
+                .birthday(resultSet.getObject("birthday", LocalDate.class))
+                .build();
+    }
+}
@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.repository.user;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.mmap.MappedRecordStore;
+import ru.yandex.practicum.filmorate.repository.mmap.MappedRecordTable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Пользователи в отображенных в память файлах вместо объектов в куче, устроено как MmapFilmRepository.
+@Repository
+@Profile("dev & mmap")
+@Timed(value = "filmorate.repository", histogram = true)
+public class MmapUserRepository implements UserRepository, Closeable {
+    private static final int EMAIL = 8;
+    private static final int LOGIN = 16;
+    private static final int NAME = 24;
+    private static final int BIRTHDAY = 32;
+    private static final int RECORD_SIZE = 40;
+    private static final long NULL = Long.MIN_VALUE;
+
+    private final MappedRecordTable<User> table;
+
+    @Autowired
+    public MmapUserRepository(@Value("${filmorate.mmap.directory:./data/mmap}") Path directory,
+                              @Value("${filmorate.mmap.force-interval:1s}") Duration forceInterval) throws IOException {
+        this.table = new MappedRecordTable<>(new MappedRecordStore(directory, "users", RECORD_SIZE),
+                new UserCodec(), forceInterval);
+    }
+
+    MmapUserRepository(Path directory) throws IOException {
+        this(directory, Duration.ZERO);
+    }
+
+    @Override
+    public User save(User user) {
+        return table.save(user);
+    }
+
+    @Override
+    public List<User> saveAll(List<User> users) {
+        return table.saveAll(users);
+    }
+
+    @Override
+    public User findById(Long id) {
+        return table.findById(id);
+    }
+
+    @Override
+    public List<User> findByIds(List<Long> ids) {
+        return table.findByIds(ids);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return table.findAll();
+    }
+
+    @Override
+    public void forEachUser(Consumer<User> action) {
+        table.forEach(action);
+    }
+
+    @Override
+    public User update(User user) {
+        return table.update(user);
+    }
+
+    @Override
+    public User deleteById(Long id) {
+        return table.deleteById(id);
+    }
+
+    @Override
+    public long count() {
+        return table.count();
+    }
+
+    @Override
+    public void clear() {
+        table.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        table.close();
+    }
+
+    private static final class UserCodec implements MappedRecordTable.RecordCodec<User> {
+        private static final int[] STRING_FIELDS = {EMAIL, LOGIN, NAME};
+
+        @Override
+        public int[] stringFields() {
+            return STRING_FIELDS;
+        }
+
+        @Override
+        public long getId(User user) {
+            return user.getId();
+        }
+
+        @Override
+        public void setId(User user, long id) {
+            user.setId(id);
+        }
+
+        @Override
+        public void write(MappedRecordStore store, long id, User user) {
+            store.putLong(id, EMAIL, store.putString(user.getEmail()));
+            store.putLong(id, LOGIN, store.putString(user.getLogin()));
+            store.putLong(id, NAME, store.putString(user.getName()));
+            store.putLong(id, BIRTHDAY, user.getBirthday() == null ? NULL : user.getBirthday().toEpochDay());
+        }
+
+        @Override
+        public User read(MappedRecordStore store, long id) {
+            long birthday = store.getLong(id, BIRTHDAY);
+            return User.builder()
+                    .id(id)
+                    .email(store.getString(store.getLong(id, EMAIL)))
+                    .login(store.getString(store.getLong(id, LOGIN)))
+                    .name(store.getString(store.getLong(id, NAME)))
+                    .birthday(birthday == NULL ? null : LocalDate.ofEpochDay(birthday))
+                    .build();
+        }
+    }
+}
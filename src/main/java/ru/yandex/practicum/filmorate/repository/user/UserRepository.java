@@ -3,19 +3,28 @@ package ru.yandex.practicum.filmorate.repository.user;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserRepository {
     User save(User user);
 
+    // Сохраняет пользователей пачкой и проставляет им id в порядке списка.
+    List<User> saveAll(List<User> users);
+
     User findById(Long id);
 
     List<User> findByIds(List<Long> ids);
 
     List<User> findAll();
 
+    // Обходит все записи без сборки списка; записи, измененные во время обхода, могут попасть в него или нет.
+    void forEachUser(Consumer<User> action);
+
     User update(User user);
 
     User deleteById(Long id);
 
+    long count();
+
     void clear();
 }
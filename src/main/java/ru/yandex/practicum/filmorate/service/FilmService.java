@@ -1,38 +1,65 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dto.CursorPageResponse;
 import ru.yandex.practicum.filmorate.dto.FilmRegisterDto;
 import ru.yandex.practicum.filmorate.dto.FilmUpdateDto;
+import ru.yandex.practicum.filmorate.dto.LikeBatchRequestDto;
+import ru.yandex.practicum.filmorate.dto.LikeBatchResultDto;
+import ru.yandex.practicum.filmorate.dto.LikeBatchStatus;
+import ru.yandex.practicum.filmorate.dto.LikeOperationDto;
+import ru.yandex.practicum.filmorate.dto.LikeSummaryDto;
 import ru.yandex.practicum.filmorate.exception.film.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.exception.user.UserNotFoundException;
 import ru.yandex.practicum.filmorate.logging.LogMessages;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.repository.film.InMemoryFilmRepository;
-import ru.yandex.practicum.filmorate.repository.likes.InMemoryLikesRepository;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.likes.LikesRepository;
+import ru.yandex.practicum.filmorate.repository.likes.TrendingLikesRepository;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
+@Timed(value = "filmorate.service", histogram = true)
 public class FilmService {
-    private final InMemoryFilmRepository filmRepository;
-    private final InMemoryLikesRepository likesRepository;
+    // Страница лайкнувших без limit и верхняя граница limit: больший limit урезается до нее.
+    static final int DEFAULT_PAGE_LIMIT = 100;
+    static final int MAX_PAGE_LIMIT = 1000;
 
-    public FilmService(InMemoryFilmRepository filmRepository, InMemoryLikesRepository likesRepository) {
+    private final FilmRepository filmRepository;
+    private final LikesRepository likesRepository;
+    private final TrendingLikesRepository trendingLikesRepository;
+    private final PopularFilmsCache popularFilmsCache;
+    private final UserRepository userRepository;
+
+    public FilmService(FilmRepository filmRepository,
+                       LikesRepository likesRepository,
+                       TrendingLikesRepository trendingLikesRepository,
+                       PopularFilmsCache popularFilmsCache,
+                       UserRepository userRepository) {
         this.filmRepository = filmRepository;
         this.likesRepository = likesRepository;
+        this.trendingLikesRepository = trendingLikesRepository;
+        this.popularFilmsCache = popularFilmsCache;
+        this.userRepository = userRepository;
     }
 
     public Film addFilm(FilmRegisterDto filmRegisterDto) {
         log.trace(LogMessages.FILM_ADD, filmRegisterDto);
 
-        Film film = Film.builder()
-                .name(filmRegisterDto.getName())
-                .description(filmRegisterDto.getDescription())
-                .releaseDate(filmRegisterDto.getReleaseDate())
-                .duration(filmRegisterDto.getDuration())
-                .build();
+        Film film = toFilm(filmRegisterDto);
 
         log.debug(LogMessages.FILM_SAVE_STARTED, film);
         Film savedFilm = filmRepository.save(film);
@@ -40,6 +67,23 @@ public class FilmService {
         return savedFilm;
     }
 
+    // Пачка уже проверенных фильмов из импорта, сохраняется одним вызовом репозитория.
+    public List<Film> addFilms(List<FilmRegisterDto> filmRegisterDtos) {
+        log.trace(LogMessages.FILMS_ADD, filmRegisterDtos.size());
+        List<Film> savedFilms = filmRepository.saveAll(filmRegisterDtos.stream().map(this::toFilm).toList());
+        log.info(LogMessages.FILMS_SAVE_SUCCESS, savedFilms.size());
+        return savedFilms;
+    }
+
+    private Film toFilm(FilmRegisterDto filmRegisterDto) {
+        return Film.builder()
+                .name(filmRegisterDto.getName())
+                .description(filmRegisterDto.getDescription())
+                .releaseDate(filmRegisterDto.getReleaseDate())
+                .duration(filmRegisterDto.getDuration())
+                .build();
+    }
+
     public Film getFilm(Long id) {
         Film film = filmRepository.findById(id);
         if (film == null) {
@@ -48,24 +92,34 @@ public class FilmService {
         return film;
     }
 
-    public List<Film> getAllFilms() {
-        return filmRepository.findAll();
+    public void forEachFilm(Consumer<Film> action) {
+        filmRepository.forEachFilm(action);
     }
 
+    // Хранимый фильм не меняется на месте, его заменяет новый объект: выгрузка, которая уже сериализует
+    // прежний объект, не увидит наполовину измененные поля.
     public Film updateFilm(FilmUpdateDto filmUpdateDto, Long id) {
         log.trace(LogMessages.FILM_UPDATE, filmUpdateDto);
-        Film film = filmRepository.findById(id);
-        if (film == null) {
+        if (filmRepository.findById(id) == null) {
             log.warn(LogMessages.FILM_UPDATE_NOT_FOUND, id);
             throw new FilmNotFoundException(id);
         }
         log.debug(LogMessages.FILM_UPDATE_STARTED, id);
-        film.setName(filmUpdateDto.getName());
-        film.setDescription(filmUpdateDto.getDescription());
-        film.setReleaseDate(filmUpdateDto.getReleaseDate());
-        film.setDuration(filmUpdateDto.getDuration());
+        Film film = Film.builder()
+                .id(id)
+                .name(filmUpdateDto.getName())
+                .description(filmUpdateDto.getDescription())
+                .releaseDate(filmUpdateDto.getReleaseDate())
+                .duration(filmUpdateDto.getDuration())
+                .build();
 
         Film updatedFilm = filmRepository.update(film);
+        if (updatedFilm == null) {
+            // Удален параллельно после проверки выше.
+            log.warn(LogMessages.FILM_UPDATE_NOT_FOUND, id);
+            throw new FilmNotFoundException(id);
+        }
+        popularFilmsCache.onFilmChanged(id);
         log.info(LogMessages.FILM_UPDATE_SUCCESS, updatedFilm);
         return updatedFilm;
     }
@@ -79,25 +133,156 @@ public class FilmService {
         }
         log.debug(LogMessages.FILM_DELETE_STARTED, id);
         Film deletedFilm = filmRepository.deleteById(id);
+        likesRepository.deleteLikesByFilmId(id);
+        trendingLikesRepository.deleteFilm(id);
+        popularFilmsCache.onFilmChanged(id);
         log.info(LogMessages.FILM_DELETE_SUCCESS, deletedFilm);
     }
 
-    public List<Film> getMostLikedFilms(Integer count) {
+    public PopularFilms getMostLikedFilms(Integer count, TrendingWindow window) {
         if (count == null || count <= 0) {
             count = 10;
         }
 
-        List<Long> mostLikedFilms = likesRepository.findTopFilmsByLikes(count);
-        return mostLikedFilms.stream().map(this::getFilm).toList();
+        if (window != null) {
+            List<Long> trendingFilms = trendingLikesRepository.findTopFilmsByLikes(window, count);
+            return PopularFilms.of(findExistingFilms(trendingFilms));
+        }
+        return popularFilmsCache.get(count, this::loadMostLikedFilms, likesRepository::countLikesByFilmId);
+    }
+
+    // Фильм проверяется еще раз в репозитории вместе с установкой лайка: false при удаленном к этому моменту
+    // фильме означает, что лайк не поставлен.
+    public LikeSummaryDto addLike(Long id, Long userId) {
+        getFilm(id);
+        checkUserExists(userId);
+        boolean changed = likesRepository.addLike(id, userId, this::filmExists);
+        if (!changed && !filmExists(id)) {
+            throw new FilmNotFoundException(id);
+        }
+        long likes = likesRepository.countLikesByFilmId(id);
+        if (changed) {
+            trendingLikesRepository.recordLikes(Map.of(id, 1));
+            popularFilmsCache.onLikesChanged(id, likes, true);
+        }
+        return new LikeSummaryDto(id, likes, true);
+    }
+
+    public LikeSummaryDto deleteLike(Long id, Long userId) {
+        getFilm(id);
+        checkUserExists(userId);
+        boolean changed = likesRepository.deleteLike(id, userId);
+        long likes = likesRepository.countLikesByFilmId(id);
+        if (changed) {
+            trendingLikesRepository.recordLikes(Map.of(id, -1));
+            popularFilmsCache.onLikesChanged(id, likes, false);
+        }
+        return new LikeSummaryDto(id, likes, false);
+    }
+
+    public CursorPageResponse<Long> getFilmLikes(Long id, Long cursor, Integer limit) {
+        getFilm(id);
+        if (limit == null || limit <= 0) {
+            limit = DEFAULT_PAGE_LIMIT;
+        }
+        limit = Math.min(limit, MAX_PAGE_LIMIT);
+
+        List<Long> page = likesRepository.findLikesPageByFilmId(id, cursor, limit + 1);
+        if (page.size() <= limit) {
+            return new CursorPageResponse<>(page, null);
+        }
+        List<Long> items = page.subList(0, limit);
+        return new CursorPageResponse<>(List.copyOf(items), items.get(limit - 1));
+    }
+
+    public LikeBatchResultDto applyLikes(LikeBatchRequestDto likeBatchRequestDto) {
+        List<LikeOperationDto> operations = likeBatchRequestDto.getOperations();
+        log.trace(LogMessages.LIKES_BATCH, operations.size());
+
+        Map<Long, Boolean> filmExists = new HashMap<>();
+        Map<Long, Boolean> userExists = new HashMap<>();
+        List<LikeChange> changes = new ArrayList<>(operations.size());
+        List<Integer> positions = new ArrayList<>(operations.size());
+        LikeBatchStatus[] statuses = new LikeBatchStatus[operations.size()];
+
+        for (int i = 0; i < operations.size(); i++) {
+            LikeOperationDto operation = operations.get(i);
+            if (!filmExists.computeIfAbsent(operation.getFilmId(), id -> filmRepository.findById(id) != null)) {
+                statuses[i] = LikeBatchStatus.FILM_NOT_FOUND;
+                continue;
+            }
+            if (operation.getOp() == LikeOperation.ADD
+                    && !userExists.computeIfAbsent(operation.getUserId(), id -> userRepository.findById(id) != null)) {
+                statuses[i] = LikeBatchStatus.USER_NOT_FOUND;
+                continue;
+            }
+            changes.add(LikeChange.builder()
+                    .filmId(operation.getFilmId())
+                    .userId(operation.getUserId())
+                    .operation(operation.getOp())
+                    .build());
+            positions.add(i);
+        }
+
+        List<Boolean> results = likesRepository.applyLikes(changes, this::filmExists);
+        Map<Long, Integer> trendingDeltas = new HashMap<>();
+        int applied = 0;
+        for (int i = 0; i < results.size(); i++) {
+            boolean changed = results.get(i);
+            LikeChange change = changes.get(i);
+            if (!changed) {
+                // Фильм мог быть удален после проверки выше, тогда репозиторий не поставил лайк.
+                statuses[positions.get(i)] = filmExists(change.getFilmId())
+                        ? LikeBatchStatus.UNCHANGED
+                        : LikeBatchStatus.FILM_NOT_FOUND;
+            } else {
+                statuses[positions.get(i)] = LikeBatchStatus.APPLIED;
+                int delta = change.getOperation() == LikeOperation.ADD ? 1 : -1;
+                trendingDeltas.merge(change.getFilmId(), delta, Integer::sum);
+                applied++;
+            }
+        }
+        trendingDeltas.values().removeIf(delta -> delta == 0);
+        trendingLikesRepository.recordLikes(trendingDeltas);
+        trendingDeltas.forEach((filmId, delta) ->
+                popularFilmsCache.onLikesChanged(filmId, likesRepository.countLikesByFilmId(filmId), delta > 0));
+
+        log.info(LogMessages.LIKES_BATCH_SUCCESS, applied, operations.size());
+        return new LikeBatchResultDto(applied, List.of(statuses));
+    }
+
+    // Снимает лайки удаляемого пользователя: по обратному индексу, а не обходом всех фильмов.
+    public void deleteUserLikes(Long userId) {
+        List<Long> filmIds = likesRepository.deleteLikesByUserId(userId);
+        if (filmIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> trendingDeltas = new HashMap<>();
+        filmIds.forEach(filmId -> trendingDeltas.put(filmId, -1));
+        trendingLikesRepository.recordLikes(trendingDeltas);
+        filmIds.forEach(filmId ->
+                popularFilmsCache.onLikesChanged(filmId, likesRepository.countLikesByFilmId(filmId), false));
+    }
+
+    private void checkUserExists(Long userId) {
+        if (userRepository.findById(userId) == null) {
+            throw new UserNotFoundException(userId);
+        }
+    }
+
+    private boolean filmExists(long id) {
+        return filmRepository.findById(id) != null;
     }
 
-    public Set<Long> addLike(Long id, Long userId) {
-        likesRepository.addLike(id, userId);
-        return likesRepository.findLikesByFilmId(id);
+    private List<Film> loadMostLikedFilms(int count) {
+        return findExistingFilms(likesRepository.findTopFilmsByLikes(count));
     }
 
-    public Set<Long> deleteLike(Long id, Long userId) {
-        likesRepository.deleteLike(id, userId);
-        return likesRepository.findLikesByFilmId(id);
+    // Фильм может быть удален между чтением индекса и загрузкой, такие id пропускаются.
+    private List<Film> findExistingFilms(List<Long> ids) {
+        return ids.stream()
+                .map(filmRepository::findById)
+                .filter(Objects::nonNull)
+                .toList();
     }
 }
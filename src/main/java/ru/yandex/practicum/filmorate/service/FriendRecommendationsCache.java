@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Рекомендации друзей по пользователю. Рекомендации зависят от друзей пользователя и от друзей тех друзей,
+// через которых шел обход, поэтому запись хранит версии всех этих пользователей и считается устаревшей,
+// если хотя бы у одного из них изменился список друзей. При переполнении вытесняется запись, которую дольше
+// всех не читали. Версии удаленных пользователей убираются вместе с их записями.
+@Component
+public class FriendRecommendationsCache {
+    static final int MAX_ENTRIES = 100_000;
+
+    private final Map<Long, Entry> entries;
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public FriendRecommendationsCache(MeterRegistry meterRegistry) {
+        this(meterRegistry, MAX_ENTRIES);
+    }
+
+    FriendRecommendationsCache(MeterRegistry meterRegistry, int maxEntries) {
+        // Порядок доступа: get переставляет запись в конец, первой вытесняется давно не читанная.
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hits = Counter.builder("filmorate.recommendations.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("filmorate.recommendations.cache").tag("result", "miss").register(meterRegistry);
+        meterRegistry.gauge("filmorate.recommendations.cache.size", this, FriendRecommendationsCache::size);
+    }
+
+    public List<FriendRecommendation> get(Long userId, int limit, Function<Long, List<Long>> viaFriendsLoader,
+                                          Function<List<Long>, List<FriendRecommendation>> loader) {
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(userId);
+        }
+        if (cached != null && cached.limit() >= limit && isFresh(cached)) {
+            hits.increment();
+            List<FriendRecommendation> recommendations = cached.recommendations();
+            return recommendations.subList(0, Math.min(limit, recommendations.size()));
+        }
+
+        misses.increment();
+        // Версии читаются до данных: изменение во время расчета сделает запись устаревшей при следующем чтении.
+        long userVersion = versionOf(userId);
+        List<Long> viaFriendIds = viaFriendsLoader.apply(userId);
+        long[] viaVersions = new long[viaFriendIds.size()];
+        for (int i = 0; i < viaVersions.length; i++) {
+            viaVersions[i] = versionOf(viaFriendIds.get(i));
+        }
+        List<FriendRecommendation> recommendations = loader.apply(viaFriendIds);
+
+        synchronized (entries) {
+            entries.put(userId, new Entry(recommendations, limit, userId, userVersion, viaFriendIds, viaVersions));
+        }
+        return recommendations;
+    }
+
+    public void onFriendsChanged(Long userId) {
+        versions.put(userId, clock.incrementAndGet());
+    }
+
+    // Id не выдаются повторно, поэтому версия удаленного пользователя больше не нужна. Записи, построенные
+    // через него, устаревают: вместо его версии читается 0, а его друзья получают onFriendsChanged.
+    public void onUserDeleted(Long userId) {
+        synchronized (entries) {
+            entries.remove(userId);
+        }
+        versions.remove(userId);
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        versions.clear();
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private boolean isFresh(Entry entry) {
+        if (versionOf(entry.userId()) != entry.userVersion()) {
+            return false;
+        }
+        for (int i = 0; i < entry.viaVersions().length; i++) {
+            if (versionOf(entry.viaFriendIds().get(i)) != entry.viaVersions()[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long versionOf(Long userId) {
+        return versions.getOrDefault(userId, 0L);
+    }
+
+    private record Entry(List<FriendRecommendation> recommendations, int limit, Long userId, long userVersion,
+                         List<Long> viaFriendIds, long[] viaVersions) {
+    }
+}
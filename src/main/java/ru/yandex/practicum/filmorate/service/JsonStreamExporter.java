@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+// Потоковая выгрузка: записи сериализуются по одной прямо в поток ответа, список не собирается.
+// Запись в поток блокируется, пока клиент не заберет уже отправленное, поэтому обход идет со скоростью клиента.
+@Component
+public class JsonStreamExporter {
+    private final ObjectWriter writer;
+
+    public JsonStreamExporter(ObjectMapper objectMapper) {
+        // Без сброса после каждой записи: поток отдается кусками по размеру буфера генератора.
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    // JSON-массив, как у обычного ответа со списком.
+    public <T> StreamingResponseBody jsonArray(Consumer<Consumer<T>> source) {
+        return output -> {
+            try (JsonGenerator generator = generator(output)) {
+                generator.writeStartArray();
+                source.accept(value -> write(generator, value));
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    // NDJSON: по записи на строку.
+    public <T> StreamingResponseBody ndjson(Consumer<Consumer<T>> source) {
+        return output -> {
+            try (JsonGenerator generator = generator(output)) {
+                generator.setRootValueSeparator(null);
+                source.accept(value -> {
+                    write(generator, value);
+                    writeNewLine(generator);
+                });
+            }
+        };
+    }
+
+    private JsonGenerator generator(OutputStream output) throws IOException {
+        return writer.createGenerator(output).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private void write(JsonGenerator generator, Object value) {
+        try {
+            writer.writeValue(generator, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeNewLine(JsonGenerator generator) {
+        try {
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dto.BulkImportErrorDto;
+import ru.yandex.practicum.filmorate.dto.BulkImportResultDto;
+import ru.yandex.practicum.filmorate.dto.ErrorResponse;
+import ru.yandex.practicum.filmorate.logging.LogMessages;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Потоковый импорт NDJSON: тело читается построчно, в памяти держится только текущая пачка строк.
+// Строки пачки разбираются и проверяются параллельно теми же ограничениями, что и в одиночном POST,
+// корректные записи сохраняются одной пачкой, ошибочные попадают в отчет и не прерывают импорт.
+@Slf4j
+@Component
+public class NdjsonImporter {
+    static final int CHUNK_SIZE = 1000;
+    static final int MAX_LINE_LENGTH = 16 * 1024;
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    public NdjsonImporter(ObjectMapper objectMapper, Validator validator) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    public <T> BulkImportResultDto importLines(InputStream body, Class<T> type, Consumer<List<T>> saveChunk)
+            throws IOException {
+        log.trace(LogMessages.BULK_IMPORT, type.getSimpleName());
+        ObjectReader reader = objectMapper.readerFor(type);
+        BufferedReader input = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        BulkImportResultDto result = new BulkImportResultDto(0, 0, new ArrayList<>());
+
+        List<Line> chunk = new ArrayList<>(CHUNK_SIZE);
+        long lineNumber = 0;
+        Line line;
+        while ((line = readLine(input, ++lineNumber)) != null) {
+            if (line.text() != null && line.text().isBlank()) {
+                continue;
+            }
+            chunk.add(line);
+            if (chunk.size() == CHUNK_SIZE) {
+                importChunk(chunk, reader, saveChunk, result);
+                chunk.clear();
+            }
+        }
+        importChunk(chunk, reader, saveChunk, result);
+
+        log.info(LogMessages.BULK_IMPORT_SUCCESS, type.getSimpleName(), result.getImported(), result.getFailed());
+        return result;
+    }
+
+    private <T> void importChunk(List<Line> chunk, ObjectReader reader, Consumer<List<T>> saveChunk,
+                                 BulkImportResultDto result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Parsed<T>> parsed = IntStream.range(0, chunk.size())
+                .parallel()
+                .mapToObj(i -> this.<T>parse(chunk.get(i), reader))
+                .toList();
+
+        List<T> valid = new ArrayList<>(parsed.size());
+        for (Parsed<T> record : parsed) {
+            if (record.errors().isEmpty()) {
+                valid.add(record.value());
+                continue;
+            }
+            result.setFailed(result.getFailed() + 1);
+            if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+                result.getErrors().add(new BulkImportErrorDto(record.line(), record.errors()));
+            }
+        }
+        if (!valid.isEmpty()) {
+            saveChunk.accept(valid);
+            result.setImported(result.getImported() + valid.size());
+        }
+    }
+
+    private <T> Parsed<T> parse(Line line, ObjectReader reader) {
+        if (line.text() == null) {
+            return Parsed.failed(line.number(), new ErrorResponse(null,
+                    "Строка длиннее " + MAX_LINE_LENGTH + " символов."));
+        }
+        T value;
+        try {
+            value = reader.readValue(line.text());
+        } catch (JsonProcessingException e) {
+            return Parsed.failed(line.number(), new ErrorResponse(fieldOf(e), "Некорректный JSON: "
+                    + e.getOriginalMessage()));
+        }
+        if (value == null) {
+            return Parsed.failed(line.number(), new ErrorResponse(null, "Строка не содержит объекта."));
+        }
+
+        Set<ConstraintViolation<T>> violations = validator.validate(value);
+        if (violations.isEmpty()) {
+            return new Parsed<>(line.number(), value, List.of());
+        }
+        List<ErrorResponse> errors = violations.stream()
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(violation -> new ErrorResponse(violation.getPropertyPath().toString(), violation.getMessage()))
+                .toList();
+        return new Parsed<>(line.number(), null, errors);
+    }
+
+    private static String fieldOf(JsonProcessingException e) {
+        if (!(e instanceof JsonMappingException mappingException) || mappingException.getPath().isEmpty()) {
+            return null;
+        }
+        return mappingException.getPath().stream()
+                .map(reference -> reference.getFieldName() != null
+                        ? reference.getFieldName() : String.valueOf(reference.getIndex()))
+                .collect(Collectors.joining("."));
+    }
+
+    // Читает строку не длиннее MAX_LINE_LENGTH: у более длинной остаток пропускается, а текст равен null.
+    private static Line readLine(BufferedReader input, long number) throws IOException {
+        StringBuilder text = new StringBuilder();
+        boolean tooLong = false;
+        int c = input.read();
+        if (c == -1) {
+            return null;
+        }
+        while (c != -1 && c != '\n') {
+            if (c != '\r') {
+                if (text.length() < MAX_LINE_LENGTH) {
+                    text.append((char) c);
+                } else {
+                    tooLong = true;
+                }
+            }
+            c = input.read();
+        }
+        return new Line(number, tooLong ? null : text.toString());
+    }
+
+    private record Line(long number, String text) {
+    }
+
+    private record Parsed<T>(long line, T value, List<ErrorResponse> errors) {
+        static <T> Parsed<T> failed(long line, ErrorResponse error) {
+            return new Parsed<>(line, null, List.of(error));
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+
+public record PopularFilms(List<Film> films, String etag) {
+    static PopularFilms of(List<Film> films) {
+        return new PopularFilms(films, "\"" + films.size() + "-" + Integer.toHexString(films.hashCode()) + "\"");
+    }
+}
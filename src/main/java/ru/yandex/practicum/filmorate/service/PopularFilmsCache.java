@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+// Готовые списки популярных фильмов по значению count. Запись сбрасывается только тогда, когда изменение
+// лайков может сдвинуть ее границу: фильм уже в списке или набрал не меньше лайков, чем последний фильм списка.
+// Изменения во время загрузки записи запоминаются в ее Load и проверяются тем же условием, когда запись готова.
+@Component
+public class PopularFilmsCache {
+    static final int MAX_CACHED_COUNT = 100;
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<Load> loads = ConcurrentHashMap.newKeySet();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+
+    public PopularFilmsCache(MeterRegistry meterRegistry) {
+        this.hits = Counter.builder("filmorate.popular.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("filmorate.popular.cache").tag("result", "miss").register(meterRegistry);
+        this.invalidations = Counter.builder("filmorate.popular.cache.invalidations").register(meterRegistry);
+        meterRegistry.gauge("filmorate.popular.cache.size", entries, Map::size);
+    }
+
+    public PopularFilms get(int count, IntFunction<List<Film>> loader, ToLongFunction<Long> likesCounter) {
+        if (count > MAX_CACHED_COUNT) {
+            return PopularFilms.of(loader.apply(count));
+        }
+
+        Entry cached = entries.get(count);
+        if (cached != null) {
+            hits.increment();
+            return cached.popularFilms();
+        }
+
+        misses.increment();
+        Load load = new Load();
+        loads.add(load);
+        Entry entry;
+        try {
+            List<Film> films = loader.apply(count);
+            long minLikes = films.size() < count ? 0 : likesCounter.applyAsLong(films.get(films.size() - 1).getId());
+            entry = new Entry(
+                    PopularFilms.of(films),
+                    films.stream().map(Film::getId).collect(Collectors.toUnmodifiableSet()),
+                    minLikes);
+            entries.put(count, entry);
+        } finally {
+            loads.remove(load);
+        }
+
+        // Изменение, не попавшее в load.close(), уже видит запись в entries и сбросит ее само.
+        if (load.close().stream().anyMatch(stale -> stale.test(entry))) {
+            invalidate(count, entry);
+        }
+        return entry.popularFilms();
+    }
+
+    public void onLikesChanged(Long filmId, long likes, boolean increased) {
+        onChanged(entry -> entry.filmIds().contains(filmId) || increased && likes >= entry.minLikes());
+    }
+
+    public void onFilmChanged(Long filmId) {
+        onChanged(entry -> entry.filmIds().contains(filmId));
+    }
+
+    public void clear() {
+        loads.forEach(load -> load.record(entry -> true));
+        entries.clear();
+    }
+
+    // Сначала изменение запоминается в идущих загрузках, затем проверяются готовые записи.
+    private void onChanged(Predicate<Entry> stale) {
+        loads.forEach(load -> load.record(stale));
+        entries.forEach((count, entry) -> {
+            if (stale.test(entry)) {
+                invalidate(count, entry);
+            }
+        });
+    }
+
+    private void invalidate(Integer count, Entry entry) {
+        if (entries.remove(count, entry)) {
+            invalidations.increment();
+        }
+    }
+
+    private record Entry(PopularFilms popularFilms, Set<Long> filmIds, long minLikes) {
+    }
+
+    // Изменения, случившиеся, пока загружалась запись. После close() новые изменения не принимаются:
+    // запись к этому моменту уже лежит в entries.
+    private static final class Load {
+        private final List<Predicate<Entry>> changes = new ArrayList<>();
+        private boolean closed;
+
+        synchronized void record(Predicate<Entry> stale) {
+            if (!closed) {
+                changes.add(stale);
+            }
+        }
+
+        synchronized List<Predicate<Entry>> close() {
+            closed = true;
+            return changes;
+        }
+    }
+}
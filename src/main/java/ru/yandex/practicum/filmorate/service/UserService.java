@@ -1,40 +1,60 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dto.CursorPageResponse;
+import ru.yandex.practicum.filmorate.dto.FriendRecommendationDto;
+import ru.yandex.practicum.filmorate.dto.MutualFriendsCountDto;
+import ru.yandex.practicum.filmorate.dto.MutualFriendsCountRequestDto;
 import ru.yandex.practicum.filmorate.dto.UserRegisterDto;
+import ru.yandex.practicum.filmorate.dto.UserShortDto;
 import ru.yandex.practicum.filmorate.dto.UserUpdateDto;
+import ru.yandex.practicum.filmorate.dto.UserView;
 import ru.yandex.practicum.filmorate.exception.friend.FriendNotFoundException;
 import ru.yandex.practicum.filmorate.exception.user.UserNotFoundException;
 import ru.yandex.practicum.filmorate.logging.LogMessages;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
 import ru.yandex.practicum.filmorate.model.User;
-import ru.yandex.practicum.filmorate.repository.friends.InMemoryFriendsRepository;
-import ru.yandex.practicum.filmorate.repository.user.InMemoryUserRepository;
+import ru.yandex.practicum.filmorate.repository.friends.FriendsRepository;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
 
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
+@Timed(value = "filmorate.service", histogram = true)
 public class UserService {
-    private final InMemoryUserRepository userRepository;
-    private final InMemoryFriendsRepository friendsRepository;
-
-    public UserService(InMemoryUserRepository userRepository, InMemoryFriendsRepository friendsRepository) {
+    // Сколько друзей пользователя и сколько друзей каждого из них просматривается при поиске рекомендаций.
+    static final int RECOMMENDATIONS_FAN_OUT = 200;
+    // Страница друзей и заявок без limit и верхняя граница limit: больший limit урезается до нее.
+    static final int DEFAULT_PAGE_LIMIT = 100;
+    static final int MAX_PAGE_LIMIT = 1000;
+
+    private final UserRepository userRepository;
+    private final FriendsRepository friendsRepository;
+    private final FriendRecommendationsCache friendRecommendationsCache;
+    private final FilmService filmService;
+
+    public UserService(UserRepository userRepository,
+                       FriendsRepository friendsRepository,
+                       FriendRecommendationsCache friendRecommendationsCache,
+                       FilmService filmService) {
         this.userRepository = userRepository;
         this.friendsRepository = friendsRepository;
+        this.friendRecommendationsCache = friendRecommendationsCache;
+        this.filmService = filmService;
     }
 
     public User registerUser(UserRegisterDto userRegisterDto) {
         log.trace(LogMessages.USER_ADD, userRegisterDto);
 
-        User user = User.builder()
-                .login(userRegisterDto.getLogin())
-                .email(userRegisterDto.getEmail())
-                .birthday(userRegisterDto.getBirthday())
-                .name(userRegisterDto.getName() == null || userRegisterDto.getName().isBlank() ? userRegisterDto.getLogin() : userRegisterDto.getName())
-                .build();
+        User user = toUser(userRegisterDto);
 
         log.debug(LogMessages.USER_SAVE_STARTED, user);
         User registeredUser = userRepository.save(user);
@@ -42,6 +62,23 @@ public class UserService {
         return registeredUser;
     }
 
+    // Пачка уже проверенных пользователей из импорта, сохраняется одним вызовом репозитория.
+    public List<User> registerUsers(List<UserRegisterDto> userRegisterDtos) {
+        log.trace(LogMessages.USERS_ADD, userRegisterDtos.size());
+        List<User> registeredUsers = userRepository.saveAll(userRegisterDtos.stream().map(this::toUser).toList());
+        log.info(LogMessages.USERS_SAVE_SUCCESS, registeredUsers.size());
+        return registeredUsers;
+    }
+
+    private User toUser(UserRegisterDto userRegisterDto) {
+        return User.builder()
+                .login(userRegisterDto.getLogin())
+                .email(userRegisterDto.getEmail())
+                .birthday(userRegisterDto.getBirthday())
+                .name(userRegisterDto.getName() == null || userRegisterDto.getName().isBlank() ? userRegisterDto.getLogin() : userRegisterDto.getName())
+                .build();
+    }
+
     public User getUser(Long id) {
         User user = userRepository.findById(id);
         if (user == null) {
@@ -50,24 +87,32 @@ public class UserService {
         return user;
     }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public void forEachUser(Consumer<User> action) {
+        userRepository.forEachUser(action);
     }
 
+    // Хранимый пользователь заменяется новым объектом, как в FilmService.updateFilm.
     public User updateUser(UserUpdateDto userUpdateDto, Long id) {
         log.trace(LogMessages.USER_UPDATE, userUpdateDto);
-        User user = userRepository.findById(id);
-        if (user == null) {
+        if (userRepository.findById(id) == null) {
             log.warn(LogMessages.USER_UPDATE_NOT_FOUND, id);
             throw new UserNotFoundException(id);
         }
         log.debug(LogMessages.USER_UPDATE_STARTED, id);
-        user.setName(userUpdateDto.getName());
-        user.setLogin(userUpdateDto.getLogin());
-        user.setBirthday(userUpdateDto.getBirthday());
-        user.setEmail(userUpdateDto.getEmail());
+        User user = User.builder()
+                .id(id)
+                .name(userUpdateDto.getName())
+                .login(userUpdateDto.getLogin())
+                .birthday(userUpdateDto.getBirthday())
+                .email(userUpdateDto.getEmail())
+                .build();
 
         User updatedUser = userRepository.update(user);
+        if (updatedUser == null) {
+            // Удален параллельно после проверки выше.
+            log.warn(LogMessages.USER_UPDATE_NOT_FOUND, id);
+            throw new UserNotFoundException(id);
+        }
         log.info(LogMessages.USER_UPDATE_SUCCESS, updatedUser);
         return updatedUser;
     }
@@ -81,6 +126,10 @@ public class UserService {
         }
         log.debug(LogMessages.USER_DELETE_STARTED, id);
         User deletedUser = userRepository.deleteById(id);
+        List<Long> affectedUserIds = friendsRepository.deleteFriendshipsByUserId(id);
+        friendRecommendationsCache.onUserDeleted(id);
+        affectedUserIds.forEach(friendRecommendationsCache::onFriendsChanged);
+        filmService.deleteUserLikes(id);
         log.info(LogMessages.USER_DELETE_SUCCESS, deletedUser);
     }
 
@@ -89,35 +138,109 @@ public class UserService {
         return userRepository.findByIds(friendIds);
     }
 
+    // Страница друзей по возрастанию id. Пользователи загружаются только для текущей страницы,
+    // а для view=ID не загружаются вовсе.
+    public CursorPageResponse<?> getUserFriendsPage(Long id, Long cursor, Integer limit, UserView view) {
+        getUser(id);
+        Function<Integer, List<Long>> pageLoader = pageSize -> friendsRepository.findFriendsPage(id, cursor, pageSize);
+        return switch (view == null ? UserView.FULL : view) {
+            case ID -> getUsersPage(limit, pageLoader, Function.identity());
+            case SHORT -> getUsersPage(limit, pageLoader, ids -> userRepository.findByIds(ids).stream()
+                    .map(user -> new UserShortDto(user.getId(), user.getName()))
+                    .toList());
+            case FULL -> getUsersPage(limit, pageLoader, userRepository::findByIds);
+        };
+    }
+
     public List<User> getMutualFriends(Long id, Long otherId) {
-        List<Long> friendIdsUser = friendsRepository.findFriendsById(id);
-        List<User> friendsUser = userRepository.findByIds(friendIdsUser);
-        List<Long> friendIdsOtherUser = friendsRepository.findFriendsById(otherId);
+        List<Long> mutualFriendIds = friendsRepository.findMutualFriendIds(id, otherId);
+        return userRepository.findByIds(mutualFriendIds);
+    }
 
-        Set<Long> otherIds = new HashSet<>(friendIdsOtherUser);
+    public List<MutualFriendsCountDto> getMutualFriendsCounts(Long id, MutualFriendsCountRequestDto mutualFriendsCountRequestDto) {
+        getUser(id);
+        List<Long> otherIds = mutualFriendsCountRequestDto.getUserIds();
+        int[] counts = friendsRepository.countMutualFriends(id, otherIds);
+        List<MutualFriendsCountDto> result = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            result.add(new MutualFriendsCountDto(otherIds.get(i), counts[i]));
+        }
+        return result;
+    }
 
-        return friendsUser.stream()
-                .filter(user -> otherIds.contains(user.getId()))
+    public List<FriendRecommendationDto> getFriendRecommendations(Long id, Integer limit) {
+        getUser(id);
+        if (limit == null || limit <= 0 || limit > 100) {
+            limit = 10;
+        }
+        int recommendationsLimit = limit;
+
+        List<FriendRecommendation> recommendations = friendRecommendationsCache.get(id, recommendationsLimit,
+                userId -> friendsRepository.findFriendsSample(userId, RECOMMENDATIONS_FAN_OUT),
+                viaFriendIds -> friendsRepository.findFriendsOfFriends(
+                        id, viaFriendIds, recommendationsLimit, RECOMMENDATIONS_FAN_OUT));
+
+        Map<Long, User> users = userRepository.findByIds(recommendations.stream()
+                        .map(FriendRecommendation::getUserId)
+                        .toList())
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return recommendations.stream()
+                .filter(recommendation -> users.containsKey(recommendation.getUserId()))
+                .map(recommendation -> new FriendRecommendationDto(
+                        users.get(recommendation.getUserId()),
+                        recommendation.getMutualFriends()))
                 .toList();
     }
 
+    public CursorPageResponse<User> getIncomingFriendRequests(Long id, Long cursor, Integer limit) {
+        getUser(id);
+        return getUsersPage(limit,
+                pageSize -> friendsRepository.findIncomingRequestsPage(id, cursor, pageSize),
+                userRepository::findByIds);
+    }
+
+    public CursorPageResponse<User> getOutgoingFriendRequests(Long id, Long cursor, Integer limit) {
+        getUser(id);
+        return getUsersPage(limit,
+                pageSize -> friendsRepository.findOutgoingRequestsPage(id, cursor, pageSize),
+                userRepository::findByIds);
+    }
+
     public void sendUserFriendRequest(Long userId, Long friendId) {
+        getUser(userId);
+        getUser(friendId);
         friendsRepository.sendFriendship(userId, friendId);
+        friendRecommendationsCache.onFriendsChanged(userId);
     }
 
     public void acceptUserFriendRequest(Long id, Long friendId) {
+        getUser(id);
+        getUser(friendId);
         friendsRepository.acceptFriendship(id, friendId);
+        friendRecommendationsCache.onFriendsChanged(id);
     }
 
     public void deleteUserFriend(Long id, Long friendId) {
-        List<Long> friends = friendsRepository.findFriendsById(id);
-
-        if (friends == null) {
-            throw new UserNotFoundException(id);
-        } else if (!friends.contains(friendId)) {
+        if (!friendsRepository.areFriends(id, friendId)) {
             throw new FriendNotFoundException(friendId);
         }
 
         friendsRepository.deleteFriendship(id, friendId);
+        friendRecommendationsCache.onFriendsChanged(id);
+        friendRecommendationsCache.onFriendsChanged(friendId);
+    }
+
+    private <T> CursorPageResponse<T> getUsersPage(Integer limit, Function<Integer, List<Long>> pageLoader,
+                                                   Function<List<Long>, List<T>> itemsLoader) {
+        if (limit == null || limit <= 0) {
+            limit = DEFAULT_PAGE_LIMIT;
+        }
+        limit = Math.min(limit, MAX_PAGE_LIMIT);
+
+        List<Long> page = pageLoader.apply(limit + 1);
+        Long nextCursor = page.size() > limit ? page.get(limit - 1) : null;
+        List<Long> ids = page.size() > limit ? page.subList(0, limit) : page;
+        return new CursorPageResponse<>(itemsLoader.apply(ids), nextCursor);
     }
 }
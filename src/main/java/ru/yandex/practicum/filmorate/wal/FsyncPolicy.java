@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.wal;
+
+// Когда записи журнала сбрасываются на диск и когда запрос считается подтвержденным.
+public enum FsyncPolicy {
+    // Подтверждение после fsync. Один fsync покрывает все записи, накопленные за время предыдущего.
+    ALWAYS,
+    // Подтверждение после записи в файл, fsync не чаще раза в fsync-interval: при сбое питания теряется
+    // не больше этого интервала.
+    INTERVAL,
+    // Подтверждение после записи в файл, сброс на диск остается операционной системе.
+    NEVER
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.wal;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+// Изменения состояния репозиториев в памяти. Репозитории сообщают о каждом изменении под той же блокировкой,
+// под которой его применили, поэтому порядок записей совпадает с порядком изменений одних и тех же данных.
+// Все записи идемпотентны: повторное применение дает то же состояние. Вызов sync() после снятия блокировок
+// ждет, пока записи текущего потока станут надежными.
+public interface MutationLog {
+    MutationLog NONE = new MutationLog() {
+    };
+
+    // Фильм сохранен или обновлен целиком.
+    default void filmSaved(Film film) {
+    }
+
+    default void filmDeleted(long filmId) {
+    }
+
+    // Пользователь сохранен или обновлен целиком.
+    default void userSaved(User user) {
+    }
+
+    default void userDeleted(long userId) {
+    }
+
+    default void likeAdded(long filmId, long userId) {
+    }
+
+    default void likeDeleted(long filmId, long userId) {
+    }
+
+    default void filmLikesDeleted(long filmId) {
+    }
+
+    // Добавлено ребро userId -> friendId, как в FriendsRepository.sendFriendship.
+    default void friendshipSent(long userId, long friendId) {
+    }
+
+    // Удалены ребра в обе стороны, как в FriendsRepository.deleteFriendship.
+    default void friendshipDeleted(long userId, long friendId) {
+    }
+
+    default void sync() {
+    }
+}
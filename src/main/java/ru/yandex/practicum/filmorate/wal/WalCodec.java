@@ -0,0 +1,262 @@
+package ru.yandex.practicum.filmorate.wal;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+// Формат записи журнала и снимка: длина тела, CRC32 тела, затем тело - номер записи, тип и поля.
+// Строки - длина в байтах UTF-8 и байты, отсутствующие значения - длина -1 или Long.MIN_VALUE.
+// Снимок пишет лайки фильма и друзей пользователя пачками id, при чтении пачка разворачивается в отдельные
+// likeAdded и friendshipSent.
+final class WalCodec {
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+    static final int MAX_RECORD_SIZE = 1 << 20;
+    static final int MAX_IDS_PER_RECORD = (MAX_RECORD_SIZE - 64) / Long.BYTES;
+
+    private static final byte FILM_SAVED = 1;
+    private static final byte FILM_DELETED = 2;
+    private static final byte USER_SAVED = 3;
+    private static final byte USER_DELETED = 4;
+    private static final byte LIKE_ADDED = 5;
+    private static final byte LIKE_DELETED = 6;
+    private static final byte FILM_LIKES_DELETED = 7;
+    private static final byte FRIENDSHIP_SENT = 8;
+    private static final byte FRIENDSHIP_DELETED = 9;
+    private static final byte FILM_LIKES = 10;
+    private static final byte USER_FRIENDS = 11;
+    private static final long NULL = Long.MIN_VALUE;
+
+    private WalCodec() {
+    }
+
+    static byte[] film(Film film) {
+        byte[] name = utf8(film.getName());
+        byte[] description = utf8(film.getDescription());
+        ByteBuffer record = ByteBuffer.allocate(1 + Long.BYTES + stringSize(name) + stringSize(description)
+                + 2 * Long.BYTES + Integer.BYTES);
+        record.put(FILM_SAVED).putLong(film.getId());
+        putString(record, name);
+        putString(record, description);
+        record.putLong(film.getReleaseDate() == null ? NULL : film.getReleaseDate().toEpochDay());
+        Duration duration = film.getDuration();
+        record.putLong(duration == null ? NULL : duration.getSeconds())
+                .putInt(duration == null ? 0 : duration.getNano());
+        return record.array();
+    }
+
+    static byte[] user(User user) {
+        byte[] email = utf8(user.getEmail());
+        byte[] login = utf8(user.getLogin());
+        byte[] name = utf8(user.getName());
+        ByteBuffer record = ByteBuffer.allocate(1 + Long.BYTES + stringSize(email) + stringSize(login)
+                + stringSize(name) + Long.BYTES);
+        record.put(USER_SAVED).putLong(user.getId());
+        putString(record, email);
+        putString(record, login);
+        putString(record, name);
+        record.putLong(user.getBirthday() == null ? NULL : user.getBirthday().toEpochDay());
+        return record.array();
+    }
+
+    static byte[] filmDeleted(long filmId) {
+        return id(FILM_DELETED, filmId);
+    }
+
+    static byte[] userDeleted(long userId) {
+        return id(USER_DELETED, userId);
+    }
+
+    static byte[] filmLikesDeleted(long filmId) {
+        return id(FILM_LIKES_DELETED, filmId);
+    }
+
+    static byte[] likeAdded(long filmId, long userId) {
+        return pair(LIKE_ADDED, filmId, userId);
+    }
+
+    static byte[] likeDeleted(long filmId, long userId) {
+        return pair(LIKE_DELETED, filmId, userId);
+    }
+
+    static byte[] friendshipSent(long userId, long friendId) {
+        return pair(FRIENDSHIP_SENT, userId, friendId);
+    }
+
+    static byte[] friendshipDeleted(long userId, long friendId) {
+        return pair(FRIENDSHIP_DELETED, userId, friendId);
+    }
+
+    // Пачка лайков фильма: userIds[from, to), не больше MAX_IDS_PER_RECORD.
+    static byte[] filmLikes(long filmId, long[] userIds, int from, int to) {
+        return ids(FILM_LIKES, filmId, userIds, from, to);
+    }
+
+    // Пачка друзей пользователя: friendIds[from, to), не больше MAX_IDS_PER_RECORD.
+    static byte[] userFriends(long userId, long[] friendIds, int from, int to) {
+        return ids(USER_FRIENDS, userId, friendIds, from, to);
+    }
+
+    static int recordSize(byte[] record) {
+        return HEADER_SIZE + Long.BYTES + record.length;
+    }
+
+    // Пишет запись с номером seq, в buffer должно быть не меньше recordSize(record) свободных байт.
+    static void write(ByteBuffer buffer, long seq, byte[] record, CRC32 crc) {
+        int start = buffer.position();
+        buffer.putInt(Long.BYTES + record.length).putInt(0).putLong(seq).put(record);
+        crc.reset();
+        crc.update(buffer.array(), buffer.arrayOffset() + start + HEADER_SIZE, Long.BYTES + record.length);
+        buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+    }
+
+    // Применяет к target записи с номером больше afterSeq, пока не кончится поток или не встретится
+    // оборванная или испорченная запись: так выглядит хвост журнала после сбоя во время записи.
+    static ReadResult read(DataInputStream input, long afterSeq, MutationLog target) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] body = new byte[256];
+        long lastSeq = afterSeq;
+        long validBytes = 0;
+        while (true) {
+            int first = input.read();
+            if (first < 0) {
+                return new ReadResult(lastSeq, validBytes, false);
+            }
+            int length;
+            int checksum;
+            try {
+                length = first << 24 | input.readUnsignedByte() << 16 | input.readUnsignedShort();
+                checksum = input.readInt();
+                if (length <= Long.BYTES || length > MAX_RECORD_SIZE) {
+                    return new ReadResult(lastSeq, validBytes, true);
+                }
+                if (body.length < length) {
+                    body = new byte[Math.max(length, body.length * 2)];
+                }
+                input.readFully(body, 0, length);
+            } catch (EOFException e) {
+                return new ReadResult(lastSeq, validBytes, true);
+            }
+            crc.reset();
+            crc.update(body, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                return new ReadResult(lastSeq, validBytes, true);
+            }
+
+            ByteBuffer record = ByteBuffer.wrap(body, 0, length);
+            long seq = record.getLong();
+            if (seq > afterSeq) {
+                apply(record, target);
+                lastSeq = Math.max(lastSeq, seq);
+            }
+            validBytes += HEADER_SIZE + length;
+        }
+    }
+
+    private static void apply(ByteBuffer record, MutationLog target) throws IOException {
+        byte type = record.get();
+        switch (type) {
+            case FILM_SAVED -> target.filmSaved(Film.builder()
+                    .id(record.getLong())
+                    .name(getString(record))
+                    .description(getString(record))
+                    .releaseDate(getDate(record))
+                    .duration(getDuration(record))
+                    .build());
+            case USER_SAVED -> target.userSaved(User.builder()
+                    .id(record.getLong())
+                    .email(getString(record))
+                    .login(getString(record))
+                    .name(getString(record))
+                    .birthday(getDate(record))
+                    .build());
+            case FILM_DELETED -> target.filmDeleted(record.getLong());
+            case USER_DELETED -> target.userDeleted(record.getLong());
+            case FILM_LIKES_DELETED -> target.filmLikesDeleted(record.getLong());
+            case LIKE_ADDED -> target.likeAdded(record.getLong(), record.getLong());
+            case LIKE_DELETED -> target.likeDeleted(record.getLong(), record.getLong());
+            case FRIENDSHIP_SENT -> target.friendshipSent(record.getLong(), record.getLong());
+            case FRIENDSHIP_DELETED -> target.friendshipDeleted(record.getLong(), record.getLong());
+            case FILM_LIKES -> {
+                long filmId = record.getLong();
+                for (int i = record.getInt(); i > 0; i--) {
+                    target.likeAdded(filmId, record.getLong());
+                }
+            }
+            case USER_FRIENDS -> {
+                long userId = record.getLong();
+                for (int i = record.getInt(); i > 0; i--) {
+                    target.friendshipSent(userId, record.getLong());
+                }
+            }
+            default -> throw new IOException("Неизвестный тип записи журнала: " + type);
+        }
+    }
+
+    private static byte[] id(byte type, long id) {
+        return ByteBuffer.allocate(1 + Long.BYTES).put(type).putLong(id).array();
+    }
+
+    private static byte[] pair(byte type, long first, long second) {
+        return ByteBuffer.allocate(1 + 2 * Long.BYTES).put(type).putLong(first).putLong(second).array();
+    }
+
+    private static byte[] ids(byte type, long id, long[] ids, int from, int to) {
+        ByteBuffer record = ByteBuffer.allocate(1 + Long.BYTES + Integer.BYTES + (to - from) * Long.BYTES);
+        record.put(type).putLong(id).putInt(to - from);
+        for (int i = from; i < to; i++) {
+            record.putLong(ids[i]);
+        }
+        return record.array();
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(byte[] value) {
+        return Integer.BYTES + (value == null ? 0 : value.length);
+    }
+
+    private static void putString(ByteBuffer record, byte[] value) {
+        if (value == null) {
+            record.putInt(-1);
+        } else {
+            record.putInt(value.length).put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(record.array(), record.arrayOffset() + record.position(), length,
+                StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+
+    private static LocalDate getDate(ByteBuffer record) {
+        long epochDay = record.getLong();
+        return epochDay == NULL ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static Duration getDuration(ByteBuffer record) {
+        long seconds = record.getLong();
+        int nanos = record.getInt();
+        return seconds == NULL ? null : Duration.ofSeconds(seconds, nanos);
+    }
+
+    // lastSeq - номер последней примененной записи, validBytes - длина целых записей от начала потока,
+    // torn - чтение остановилось на испорченной записи, а не на конце потока.
+    record ReadResult(long lastSeq, long validBytes, boolean torn) {
+    }
+}
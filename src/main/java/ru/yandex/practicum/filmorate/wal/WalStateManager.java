@@ -0,0 +1,345 @@
+package ru.yandex.practicum.filmorate.wal;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.film.InMemoryFilmRepository;
+import ru.yandex.practicum.filmorate.repository.friends.InMemoryFriendsRepository;
+import ru.yandex.practicum.filmorate.repository.likes.InMemoryLikesRepository;
+import ru.yandex.practicum.filmorate.repository.user.InMemoryUserRepository;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Восстанавливает репозитории в памяти при старте и периодически пишет снимок их состояния.
+// Снимок снимается без остановки записи: журнал переключается на новый сегмент на записи S, затем репозитории
+// обходятся под их обычными блокировками. Изменения после S могут попасть в снимок, а могут и не попасть,
+// но все они есть в новых сегментах, а записи журнала идемпотентны, поэтому снимок плюс записи после S
+// дают точное состояние. После снимка старые сегменты и снимки удаляются.
+// В профиле mmap фильмы и пользователи хранятся в своих файлах: репозиториев фильмов и пользователей
+// здесь нет (null), журнал и снимок покрывают только лайки и дружбу.
+@Slf4j
+public class WalStateManager implements Closeable {
+    static final String SNAPSHOT_PREFIX = "snapshot-";
+    static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final int SNAPSHOT_MAGIC = 0x464D5353;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final WriteAheadLog writeAheadLog;
+    private final Path directory;
+    private final InMemoryFilmRepository filmRepository;
+    private final InMemoryUserRepository userRepository;
+    private final InMemoryLikesRepository likesRepository;
+    private final InMemoryFriendsRepository friendsRepository;
+    private final Duration snapshotInterval;
+    private ScheduledExecutorService scheduler;
+
+    public WalStateManager(WriteAheadLog writeAheadLog,
+                           InMemoryFilmRepository filmRepository,
+                           InMemoryUserRepository userRepository,
+                           InMemoryLikesRepository likesRepository,
+                           InMemoryFriendsRepository friendsRepository,
+                           Duration snapshotInterval) {
+        this.writeAheadLog = writeAheadLog;
+        this.directory = writeAheadLog.getDirectory();
+        this.filmRepository = filmRepository;
+        this.userRepository = userRepository;
+        this.likesRepository = likesRepository;
+        this.friendsRepository = friendsRepository;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    // Восстанавливает состояние, запускает журнал и, если задан интервал, периодические снимки.
+    public void start() throws IOException {
+        writeAheadLog.start(recover());
+        if (!snapshotInterval.isZero() && !snapshotInterval.isNegative()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = snapshotInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::scheduledSnapshot, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Загружает последний снимок и применяет записи журнала после него. Оборванный хвост сегмента
+    // обрезается. Возвращает номер последней примененной записи.
+    long recover() throws IOException {
+        Files.createDirectories(directory);
+        MutationLog replay = new Replay();
+        long lastSeq = 0;
+        Path snapshot = latest(listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX));
+        if (snapshot != null) {
+            lastSeq = readSnapshot(snapshot, replay);
+        }
+
+        long snapshotSeq = lastSeq;
+        long records = 0;
+        for (Path segment : listFiles(WriteAheadLog.SEGMENT_PREFIX, WriteAheadLog.SEGMENT_SUFFIX)) {
+            WalCodec.ReadResult result;
+            try (DataInputStream input = open(segment)) {
+                result = WalCodec.read(input, lastSeq, replay);
+            }
+            records += result.lastSeq() - lastSeq;
+            lastSeq = result.lastSeq();
+            if (result.torn()) {
+                log.warn("Сегмент {} оборван после {} байт, хвост отброшен", segment.getFileName(),
+                        result.validBytes());
+                try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                    channel.truncate(result.validBytes());
+                    channel.force(true);
+                }
+            }
+        }
+        log.info("Состояние восстановлено: снимок до записи {}, записей журнала после него {}", snapshotSeq, records);
+        return lastSeq;
+    }
+
+    // Пишет снимок во временный файл, сбрасывает на диск и атомарно переименовывает.
+    public synchronized Path snapshot() throws IOException {
+        long seq = writeAheadLog.rotate();
+        Path target = directory.resolve(fileName(SNAPSHOT_PREFIX, seq, SNAPSHOT_SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            SnapshotWriter writer = new SnapshotWriter(channel, seq);
+            writeState(writer);
+            writer.flush();
+            channel.force(true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory();
+        deleteObsolete(seq, target);
+        log.info("Снимок состояния {} записан", target.getFileName());
+        return target;
+    }
+
+    // Остановка приложения: последний снимок, чтобы следующий старт не разбирал журнал.
+    @Override
+    public void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        snapshot();
+    }
+
+    private void scheduledSnapshot() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Не удалось записать снимок состояния в {}", directory, e);
+        }
+    }
+
+    private void writeState(SnapshotWriter writer) {
+        if (userRepository != null && filmRepository != null) {
+            writeFilmsAndUsers(writer);
+        }
+        likesRepository.forEachFilmLikes((filmId, userIds) -> {
+            for (int from = 0; from < userIds.length; from += WalCodec.MAX_IDS_PER_RECORD) {
+                int to = Math.min(userIds.length, from + WalCodec.MAX_IDS_PER_RECORD);
+                writer.write(WalCodec.filmLikes(filmId, userIds, from, to));
+            }
+        });
+        friendsRepository.forEachFriends((userId, friendIds) -> {
+            for (int from = 0; from < friendIds.length; from += WalCodec.MAX_IDS_PER_RECORD) {
+                int to = Math.min(friendIds.length, from + WalCodec.MAX_IDS_PER_RECORD);
+                writer.write(WalCodec.userFriends(userId, friendIds, from, to));
+            }
+        });
+    }
+
+    private void writeFilmsAndUsers(SnapshotWriter writer) {
+        userRepository.forEachUser(user -> writer.write(WalCodec.user(user)));
+        // Удаленные записи с наибольшим id в снимок не попадают, поэтому их id сохраняется отдельно,
+        // чтобы после восстановления он не был выдан повторно.
+        long lastUserId = userRepository.getNextId() - 1;
+        if (lastUserId > 0 && userRepository.findById(lastUserId) == null) {
+            writer.write(WalCodec.userDeleted(lastUserId));
+        }
+        filmRepository.forEachFilm(film -> writer.write(WalCodec.film(film)));
+        long lastFilmId = filmRepository.getNextId() - 1;
+        if (lastFilmId > 0 && filmRepository.findById(lastFilmId) == null) {
+            writer.write(WalCodec.filmDeleted(lastFilmId));
+        }
+    }
+
+    private long readSnapshot(Path snapshot, MutationLog replay) throws IOException {
+        try (DataInputStream input = open(snapshot)) {
+            if (input.readInt() != SNAPSHOT_MAGIC || input.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Файл " + snapshot + " не является снимком состояния Filmorate");
+            }
+            long seq = input.readLong();
+            if (WalCodec.read(input, -1, replay).torn()) {
+                throw new IOException("Снимок состояния " + snapshot + " поврежден");
+            }
+            return seq;
+        }
+    }
+
+    private void deleteObsolete(long seq, Path keep) throws IOException {
+        for (Path segment : listFiles(WriteAheadLog.SEGMENT_PREFIX, WriteAheadLog.SEGMENT_SUFFIX)) {
+            if (seqOf(segment, WriteAheadLog.SEGMENT_PREFIX, WriteAheadLog.SEGMENT_SUFFIX) <= seq) {
+                Files.deleteIfExists(segment);
+            }
+        }
+        for (Path snapshot : listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (!snapshot.equals(keep)) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+    }
+
+    // Файлы с номером в имени по возрастанию номера.
+    private List<Path> listFiles(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> result = new ArrayList<>(files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(suffix);
+                    })
+                    .toList());
+            result.sort((first, second) -> Long.compare(seqOf(first, prefix, suffix), seqOf(second, prefix, suffix)));
+            return result;
+        }
+    }
+
+    private static Path latest(List<Path> files) {
+        return files.isEmpty() ? null : files.get(files.size() - 1);
+    }
+
+    private static long seqOf(Path path, String prefix, String suffix) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+
+    static String fileName(String prefix, long seq, String suffix) {
+        return String.format("%s%020d%s", prefix, seq, suffix);
+    }
+
+    private static DataInputStream open(Path path) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE));
+    }
+
+    // После переименования сбрасываем и каталог, иначе при сбое питания новое имя может потеряться.
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Каталог {} не поддерживает fsync", directory);
+        }
+    }
+
+    // Применяет записи журнала и снимка к репозиториям. Пока журнал не запущен, репозитории
+    // не пишут эти изменения обратно в него.
+    private final class Replay implements MutationLog {
+        @Override
+        public void filmSaved(Film film) {
+            if (filmRepository != null) {
+                filmRepository.restore(film);
+            }
+        }
+
+        @Override
+        public void filmDeleted(long filmId) {
+            if (filmRepository != null) {
+                filmRepository.deleteById(filmId);
+                filmRepository.reserveId(filmId);
+            }
+        }
+
+        @Override
+        public void userSaved(User user) {
+            if (userRepository != null) {
+                userRepository.restore(user);
+            }
+        }
+
+        @Override
+        public void userDeleted(long userId) {
+            if (userRepository != null) {
+                userRepository.deleteById(userId);
+                userRepository.reserveId(userId);
+            }
+        }
+
+        @Override
+        public void likeAdded(long filmId, long userId) {
+            likesRepository.addLike(filmId, userId);
+        }
+
+        @Override
+        public void likeDeleted(long filmId, long userId) {
+            likesRepository.deleteLike(filmId, userId);
+        }
+
+        @Override
+        public void filmLikesDeleted(long filmId) {
+            likesRepository.deleteLikesByFilmId(filmId);
+        }
+
+        @Override
+        public void friendshipSent(long userId, long friendId) {
+            friendsRepository.sendFriendship(userId, friendId);
+        }
+
+        @Override
+        public void friendshipDeleted(long userId, long friendId) {
+            friendsRepository.deleteFriendship(userId, friendId);
+        }
+    }
+
+    private static final class SnapshotWriter {
+        private final FileChannel channel;
+        private final long seq;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE + WalCodec.MAX_RECORD_SIZE);
+        private final CRC32 crc = new CRC32();
+
+        SnapshotWriter(FileChannel channel, long seq) {
+            this.channel = channel;
+            this.seq = seq;
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putLong(seq);
+        }
+
+        void write(byte[] record) {
+            WalCodec.write(buffer, seq, record, crc);
+            if (buffer.position() >= BUFFER_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            try {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package ru.yandex.practicum.filmorate.wal;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Журнал изменений с групповой фиксацией. Потоки запросов кодируют запись и под коротким замком дописывают ее
+// в активный буфер, поток записи забирает буфер целиком, пишет его в файл одним вызовом и, по политике,
+// сбрасывает на диск. Пока идет запись, новые записи копятся во втором буфере, поэтому один fsync
+// подтверждает всех, кто успел дописать за время предыдущего.
+// Журнал режется на сегменты wal-<номер первой записи>.log. До start() записи не принимаются: так при
+// восстановлении повторное применение записей к репозиториям не попадает обратно в журнал.
+@Slf4j
+public class WriteAheadLog implements MutationLog, Closeable {
+    static final String SEGMENT_PREFIX = "wal-";
+    static final String SEGMENT_SUFFIX = ".log";
+    private static final int BUFFER_SIZE = 4 << 20;
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final ThreadLocal<long[]> lastAppendedSeq = ThreadLocal.withInitial(() -> new long[1]);
+    private final CRC32 crc = new CRC32();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition recordsAppended = lock.newCondition();
+    private final Condition bufferReleased = lock.newCondition();
+    private final Condition recordsDurable = lock.newCondition();
+    private ByteBuffer activeBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private ByteBuffer writingBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long appendedSeq;
+    private long durableSeq;
+    private boolean rotationRequested;
+    private long rotatedSeq;
+    private boolean started;
+    private boolean closing;
+    private IOException failure;
+
+    private FileChannel segment;
+    private Thread writer;
+
+    public WriteAheadLog(Path directory, FsyncPolicy fsyncPolicy, Duration fsyncInterval) {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // Начинает прием записей с номера lastSeq + 1 в новом сегменте.
+    public void start(long lastSeq) throws IOException {
+        lock.lock();
+        try {
+            if (started) {
+                throw new IllegalStateException("Журнал изменений уже запущен");
+            }
+            Files.createDirectories(directory);
+            segment = openSegment(lastSeq + 1);
+            appendedSeq = lastSeq;
+            durableSeq = lastSeq;
+            rotatedSeq = lastSeq;
+            started = true;
+        } finally {
+            lock.unlock();
+        }
+        writer = new Thread(this::writeLoop, "wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Закрывает текущий сегмент и начинает новый. Возвращает номер последней записи закрытого сегмента:
+    // все записи с большими номерами попадут только в новые сегменты.
+    public long rotate() throws IOException {
+        lock.lock();
+        try {
+            checkRunning();
+            rotationRequested = true;
+            recordsAppended.signal();
+            while (rotationRequested) {
+                checkFailure();
+                recordsDurable.awaitUninterruptibly();
+            }
+            return rotatedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long lastSeq() {
+        lock.lock();
+        try {
+            return appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void filmSaved(Film film) {
+        append(WalCodec.film(film));
+    }
+
+    @Override
+    public void filmDeleted(long filmId) {
+        append(WalCodec.filmDeleted(filmId));
+    }
+
+    @Override
+    public void userSaved(User user) {
+        append(WalCodec.user(user));
+    }
+
+    @Override
+    public void userDeleted(long userId) {
+        append(WalCodec.userDeleted(userId));
+    }
+
+    @Override
+    public void likeAdded(long filmId, long userId) {
+        append(WalCodec.likeAdded(filmId, userId));
+    }
+
+    @Override
+    public void likeDeleted(long filmId, long userId) {
+        append(WalCodec.likeDeleted(filmId, userId));
+    }
+
+    @Override
+    public void filmLikesDeleted(long filmId) {
+        append(WalCodec.filmLikesDeleted(filmId));
+    }
+
+    @Override
+    public void friendshipSent(long userId, long friendId) {
+        append(WalCodec.friendshipSent(userId, friendId));
+    }
+
+    @Override
+    public void friendshipDeleted(long userId, long friendId) {
+        append(WalCodec.friendshipDeleted(userId, friendId));
+    }
+
+    // Ждет, пока последняя запись текущего потока будет записана в файл, а при политике ALWAYS - и на диск.
+    @Override
+    public void sync() {
+        long[] lastAppended = lastAppendedSeq.get();
+        long seq = lastAppended[0];
+        if (seq == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durableSeq < seq) {
+                checkFailure();
+                recordsDurable.awaitUninterruptibly();
+            }
+            lastAppended[0] = 0;
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось записать изменения в журнал", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (!started || closing) {
+                return;
+            }
+            closing = true;
+            recordsAppended.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.close();
+    }
+
+    private void append(byte[] record) {
+        int size = WalCodec.recordSize(record);
+        lock.lock();
+        try {
+            if (!started || closing) {
+                return;
+            }
+            while (activeBuffer.remaining() < size) {
+                checkFailure();
+                recordsAppended.signal();
+                bufferReleased.awaitUninterruptibly();
+            }
+            long seq = ++appendedSeq;
+            WalCodec.write(activeBuffer, seq, record, crc);
+            lastAppendedSeq.get()[0] = seq;
+            recordsAppended.signal();
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось записать изменения в журнал", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        long lastForce = System.nanoTime();
+        boolean unforced = false;
+        while (true) {
+            ByteBuffer buffer;
+            long seq;
+            boolean rotate;
+            boolean last;
+            lock.lock();
+            try {
+                while (activeBuffer.position() == 0 && !rotationRequested && !closing) {
+                    if (!unforced) {
+                        recordsAppended.awaitUninterruptibly();
+                        continue;
+                    }
+                    long remaining = lastForce + fsyncIntervalNanos - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    try {
+                        recordsAppended.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                buffer = activeBuffer;
+                activeBuffer = writingBuffer;
+                writingBuffer = buffer;
+                seq = appendedSeq;
+                rotate = rotationRequested;
+                last = closing;
+                bufferReleased.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    segment.write(buffer);
+                }
+                buffer.clear();
+                unforced = true;
+                long now = System.nanoTime();
+                if (fsyncPolicy == FsyncPolicy.ALWAYS || rotate || last
+                        || fsyncPolicy == FsyncPolicy.INTERVAL && now - lastForce >= fsyncIntervalNanos) {
+                    segment.force(false);
+                    lastForce = now;
+                    unforced = false;
+                } else if (fsyncPolicy == FsyncPolicy.NEVER) {
+                    unforced = false;
+                }
+                if (rotate) {
+                    segment.close();
+                    segment = openSegment(seq + 1);
+                }
+            } catch (IOException e) {
+                log.error("Журнал изменений остановлен: не удалось записать сегмент в {}", directory, e);
+                lock.lock();
+                try {
+                    failure = e;
+                    recordsDurable.signalAll();
+                    bufferReleased.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                durableSeq = seq;
+                if (rotate) {
+                    rotatedSeq = seq;
+                    rotationRequested = false;
+                }
+                recordsDurable.signalAll();
+                if (last && activeBuffer.position() == 0) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private FileChannel openSegment(long firstSeq) throws IOException {
+        Path path = directory.resolve(WalStateManager.fileName(SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        // Сегмент мог остаться от прошлого запуска, если после него не было ни одной записи.
+        channel.truncate(0);
+        return channel;
+    }
+
+    private void checkRunning() throws IOException {
+        checkFailure();
+        if (!started || closing) {
+            throw new IllegalStateException("Журнал изменений не запущен");
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Журнал изменений остановлен после ошибки записи", failure);
+        }
+    }
+}
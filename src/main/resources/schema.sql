@@ -0,0 +1,56 @@
+CREATE TABLE IF NOT EXISTS films (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name             VARCHAR(255) NOT NULL,
+    description      VARCHAR(200),
+    release_date     DATE,
+    duration_seconds BIGINT,
+    duration_nanos   INT NOT NULL DEFAULT 0
+);
+
+-- Базы, созданные до появления duration_nanos: дробная часть длительности у старых строк нулевая.
+ALTER TABLE films ADD COLUMN IF NOT EXISTS duration_nanos INT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email    VARCHAR(255) NOT NULL,
+    login    VARCHAR(255) NOT NULL,
+    name     VARCHAR(255),
+    birthday DATE
+);
+
+-- Первичный ключ покрывает лайки фильма по порядку user_id, обратный индекс - лайки пользователя.
+CREATE TABLE IF NOT EXISTS likes (
+    film_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    PRIMARY KEY (film_id, user_id)
+);
+CREATE INDEX IF NOT EXISTS likes_user_film ON likes (user_id, film_id);
+
+-- Счетчик лайков фильма меняется в одной транзакции с likes. Индекс по (likes, film_id) покрывает
+-- запрос популярных фильмов: топ читается из индекса без группировки лайков.
+CREATE TABLE IF NOT EXISTS film_like_counts (
+    film_id BIGINT PRIMARY KEY,
+    likes   BIGINT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS film_like_counts_top ON film_like_counts (likes DESC, film_id);
+
+-- Ребро user_id -> friend_id: пользователь добавил друга. Взаимная дружба - два ребра, ребро без обратного -
+-- заявка без ответа. Первичный ключ покрывает список друзей и пересечение для общих друзей,
+-- обратный индекс - входящие заявки и удаление пользователя.
+CREATE TABLE IF NOT EXISTS friendships (
+    user_id   BIGINT NOT NULL,
+    friend_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, friend_id)
+);
+CREATE INDEX IF NOT EXISTS friendships_friend_user ON friendships (friend_id, user_id);
+
+-- Корзины окон трендов: изменение лайков фильма за интервал корзины окна. Первичный ключ покрывает сумму
+-- по последним корзинам окна и удаление устаревших, индекс по film_id - удаление фильма.
+CREATE TABLE IF NOT EXISTS trending_likes (
+    trending_window VARCHAR(8) NOT NULL,
+    bucket          BIGINT     NOT NULL,
+    film_id         BIGINT     NOT NULL,
+    likes           INT        NOT NULL,
+    PRIMARY KEY (trending_window, bucket, film_id)
+);
+CREATE INDEX IF NOT EXISTS trending_likes_film ON trending_likes (film_id);
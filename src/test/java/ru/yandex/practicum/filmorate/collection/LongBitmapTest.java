@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.collection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что битовая карта совпадает с TreeSet на случайных операциях.
+// 2. Проверка, что плотный контейнер превращается обратно в разреженный без потери значений.
+// 3. Проверка, что итератор начинает обход с заданного значения.
+
+class LongBitmapTest {
+
+    @DisplayName("1. Проверка, что битовая карта совпадает с TreeSet на случайных операциях.")
+    @Test
+    void shouldMatchTreeSetOnRandomOperations() {
+        LongBitmap bitmap = new LongBitmap();
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200_000; i++) {
+            long value = random.nextInt(300_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(bitmap.remove(value)).isEqualTo(expected.remove(value));
+            } else {
+                assertThat(bitmap.add(value)).isEqualTo(expected.add(value));
+            }
+        }
+
+        assertThat(bitmap.cardinality()).isEqualTo(expected.size());
+        assertThat(bitmap.toArray()).containsExactly(expected.stream().mapToLong(Long::longValue).toArray());
+        for (long value = 0; value < 300_000; value += 997) {
+            assertThat(bitmap.contains(value)).isEqualTo(expected.contains(value));
+        }
+    }
+
+    @DisplayName("2. Проверка, что плотный контейнер превращается обратно в разреженный без потери значений.")
+    @Test
+    void shouldConvertDenseContainerBackToSparse() {
+        LongBitmap bitmap = new LongBitmap();
+        for (long value = 0; value < 10_000; value++) {
+            bitmap.add(value);
+        }
+        for (long value = 0; value < 9_000; value++) {
+            bitmap.remove(value);
+        }
+
+        assertThat(bitmap.cardinality()).isEqualTo(1_000);
+        assertThat(bitmap.contains(9_000)).isTrue();
+        assertThat(bitmap.contains(8_999)).isFalse();
+        assertThat(bitmap.toArray()).hasSize(1_000).startsWith(9_000L).endsWith(9_999L);
+    }
+
+    @DisplayName("3. Проверка, что итератор начинает обход с заданного значения.")
+    @Test
+    void shouldIterateFromValue() {
+        LongBitmap bitmap = new LongBitmap();
+        bitmap.add(3);
+        bitmap.add(70_000);
+        bitmap.add(70_005);
+        bitmap.add(1_000_000);
+
+        List<Long> values = new ArrayList<>();
+        PrimitiveIterator.OfLong iterator = bitmap.iteratorFrom(70_001);
+        iterator.forEachRemaining((long value) -> values.add(value));
+
+        assertThat(values).containsExactly(70_005L, 1_000_000L);
+        assertThat(bitmap.iteratorFrom(1_000_001).hasNext()).isFalse();
+    }
+}
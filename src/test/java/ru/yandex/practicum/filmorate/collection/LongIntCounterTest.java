@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.collection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что счетчики и лучшие ключи совпадают с подсчетом через HashMap.
+// 2. Проверка, что исключенные ключи не попадают в лучшие.
+
+class LongIntCounterTest {
+
+    @DisplayName("1. Проверка, что счетчики и лучшие ключи совпадают с подсчетом через HashMap.")
+    @Test
+    void shouldMatchHashMapCounts() {
+        LongIntCounter counter = new LongIntCounter(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(3);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(5_000) - 2_500L;
+            counter.increment(key);
+            expected.merge(key, 1, Integer::sum);
+        }
+
+        assertThat(counter.size()).isEqualTo(expected.size());
+        expected.forEach((key, count) -> assertThat(counter.get(key)).isEqualTo(count));
+        assertThat(counter.get(1_000_000L)).isZero();
+
+        long[] expectedTop = expected.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                .limit(20)
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+        assertThat(counter.topKeys(20)).containsExactly(expectedTop);
+    }
+
+    @DisplayName("2. Проверка, что исключенные ключи не попадают в лучшие.")
+    @Test
+    void shouldSkipExcludedKeys() {
+        LongIntCounter counter = new LongIntCounter(4);
+        counter.exclude(1L);
+        counter.increment(1L);
+        counter.increment(1L);
+        counter.increment(2L);
+        counter.increment(3L);
+        counter.increment(3L);
+        counter.exclude(3L);
+
+        assertThat(counter.topKeys(10)).containsExactly(2L);
+    }
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.collection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что фильтр не дает ложных отрицаний, а ложных срабатываний не больше нескольких процентов.
+
+class LongPairBloomFilterTest {
+
+    @DisplayName("1. Проверка, что фильтр не дает ложных отрицаний, а ложных срабатываний не больше нескольких процентов.")
+    @Test
+    void shouldHaveNoFalseNegativesAndFewFalsePositives() {
+        LongPairBloomFilter filter = new LongPairBloomFilter(100_000);
+        Random random = new Random(19);
+        long[][] pairs = new long[100_000][];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = new long[]{random.nextInt(10_000), random.nextInt(10_000)};
+            filter.add(pairs[i][0], pairs[i][1]);
+        }
+
+        for (long[] pair : pairs) {
+            assertThat(filter.mightContain(pair[0], pair[1])).isTrue();
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(20_000L + random.nextInt(10_000), random.nextInt(10_000))) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(3_000);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.collection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что блочный массив совпадает с TreeSet на случайных операциях, включая деление и удаление блоков.
+// 2. Проверка, что пересечение и постраничный обход блочного массива совпадают с плоским массивом.
+
+class SegmentedLongArrayTest {
+
+    @DisplayName("1. Проверка, что блочный массив совпадает с TreeSet на случайных операциях, включая деление и удаление блоков.")
+    @Test
+    void shouldMatchTreeSetOnRandomOperations() {
+        SegmentedLongArray array = new SegmentedLongArray();
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(17);
+
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextInt(200_000);
+            if (random.nextInt(4) == 0) {
+                assertThat(array.remove(value)).isEqualTo(expected.remove(value));
+            } else {
+                assertThat(array.add(value)).isEqualTo(expected.add(value));
+            }
+        }
+        assertMatches(array, expected);
+
+        // Удаляем целый диапазон, чтобы блоки в нем опустели и были убраны.
+        for (long value = 50_000; value < 150_000; value++) {
+            assertThat(array.remove(value)).isEqualTo(expected.remove(value));
+        }
+        assertMatches(array, expected);
+        for (long value = 0; value < 200_000; value += 101) {
+            assertThat(array.contains(value)).isEqualTo(expected.contains(value));
+        }
+    }
+
+    @DisplayName("2. Проверка, что пересечение и постраничный обход блочного массива совпадают с плоским массивом.")
+    @Test
+    void shouldIntersectAndPageLikeSortedArray() {
+        Random random = new Random(19);
+        SortedLongArray sorted = new SortedLongArray();
+        for (int i = 0; i < 30_000; i++) {
+            sorted.add(random.nextInt(100_000));
+        }
+        SegmentedLongArray segmented = SegmentedLongArray.ofSorted(sorted.toArray());
+
+        for (int otherSize : new int[]{0, 10, 20_000}) {
+            SortedLongArray other = new SortedLongArray();
+            for (int i = 0; i < otherSize; i++) {
+                other.add(random.nextInt(100_000));
+            }
+            long[] expected = sorted.intersect(other.toArray());
+
+            assertThat(segmented.intersect(other.toArray())).containsExactly(expected);
+            assertThat(segmented.intersectionSize(other.toArray())).isEqualTo(expected.length);
+        }
+
+        for (long after : new long[]{Long.MIN_VALUE, 0, 4_321, 99_999}) {
+            assertThat(segmented.pageAfter(after, 5_000)).containsExactly(sorted.pageAfter(after, 5_000));
+        }
+        assertThat(segmented.sample(100)).containsExactly(sorted.sample(100));
+    }
+
+    private void assertMatches(SegmentedLongArray array, TreeSet<Long> expected) {
+        assertThat(array.size()).isEqualTo(expected.size());
+        long[] expectedValues = expected.stream().mapToLong(Long::longValue).toArray();
+        assertThat(array.toArray()).containsExactly(expectedValues);
+        List<Long> iterated = new ArrayList<>();
+        array.forEach(iterated::add);
+        assertThat(iterated).containsExactlyElementsOf(expected);
+        for (int i = 0; i < expectedValues.length; i += 37) {
+            assertThat(array.get(i)).isEqualTo(expectedValues[i]);
+        }
+    }
+}
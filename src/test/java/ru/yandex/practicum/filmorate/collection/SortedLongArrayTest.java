@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.collection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что отсортированный массив совпадает с TreeSet на случайных операциях.
+// 2. Проверка, что пересечение слиянием и галопом совпадает с пересечением множеств.
+// 3. Проверка, что постраничный обход возвращает все значения по одному разу и по возрастанию.
+
+class SortedLongArrayTest {
+
+    @DisplayName("1. Проверка, что отсортированный массив совпадает с TreeSet на случайных операциях.")
+    @Test
+    void shouldMatchTreeSetOnRandomOperations() {
+        SortedLongArray array = new SortedLongArray();
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 50_000; i++) {
+            long value = random.nextInt(20_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(array.remove(value)).isEqualTo(expected.remove(value));
+            } else {
+                assertThat(array.add(value)).isEqualTo(expected.add(value));
+            }
+        }
+
+        assertThat(array.size()).isEqualTo(expected.size());
+        assertThat(array.toArray()).containsExactly(toArray(expected));
+        for (long value = 0; value < 20_000; value += 97) {
+            assertThat(array.contains(value)).isEqualTo(expected.contains(value));
+        }
+    }
+
+    @DisplayName("2. Проверка, что пересечение слиянием и галопом совпадает с пересечением множеств.")
+    @Test
+    void shouldIntersectByMergeAndGallop() {
+        Random random = new Random(11);
+        for (int smallSize : new int[]{0, 10, 5_000}) {
+            SortedLongArray small = new SortedLongArray();
+            SortedLongArray large = new SortedLongArray();
+            TreeSet<Long> smallSet = new TreeSet<>();
+            TreeSet<Long> largeSet = new TreeSet<>();
+            for (int i = 0; i < smallSize; i++) {
+                long value = random.nextInt(100_000);
+                small.add(value);
+                smallSet.add(value);
+            }
+            for (int i = 0; i < 20_000; i++) {
+                long value = random.nextInt(100_000);
+                large.add(value);
+                largeSet.add(value);
+            }
+
+            TreeSet<Long> expected = new TreeSet<>(smallSet);
+            expected.retainAll(largeSet);
+
+            assertThat(SortedLongArray.intersect(small, large)).containsExactly(toArray(expected));
+            assertThat(SortedLongArray.intersect(large, small)).containsExactly(toArray(expected));
+        }
+    }
+
+    @DisplayName("3. Проверка, что постраничный обход возвращает все значения по одному разу и по возрастанию.")
+    @Test
+    void shouldPageAfterCursor() {
+        SortedLongArray array = new SortedLongArray();
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(13);
+        for (int i = 0; i < 1_000; i++) {
+            long value = random.nextInt(10_000);
+            array.add(value);
+            expected.add(value);
+        }
+
+        TreeSet<Long> paged = new TreeSet<>();
+        long cursor = Long.MIN_VALUE;
+        long[] page = array.pageAfter(cursor, 64);
+        while (page.length > 0) {
+            assertThat(page.length).isLessThanOrEqualTo(64);
+            assertThat(page[0]).isGreaterThan(cursor);
+            for (long value : page) {
+                assertThat(paged.add(value)).isTrue();
+            }
+            // Курсор может указывать на значение, которого уже нет в массиве.
+            cursor = page[page.length - 1];
+            array.remove(cursor);
+            expected.remove(cursor);
+            paged.remove(cursor);
+            page = array.pageAfter(cursor, 64);
+        }
+
+        assertThat(paged).isEqualTo(expected);
+    }
+
+    private long[] toArray(TreeSet<Long> values) {
+        return values.stream().mapToLong(Long::longValue).toArray();
+    }
+}
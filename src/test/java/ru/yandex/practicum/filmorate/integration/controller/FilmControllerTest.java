@@ -1,24 +1,46 @@
 package ru.yandex.practicum.filmorate.integration.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.dto.BulkImportErrorDto;
+import ru.yandex.practicum.filmorate.dto.BulkImportResultDto;
+import ru.yandex.practicum.filmorate.dto.CursorPageResponse;
+import ru.yandex.practicum.filmorate.dto.ErrorResponse;
+import ru.yandex.practicum.filmorate.dto.LikeBatchResultDto;
+import ru.yandex.practicum.filmorate.dto.LikeBatchStatus;
+import ru.yandex.practicum.filmorate.dto.LikeSummaryDto;
 import ru.yandex.practicum.filmorate.dto.ValidationErrorResponse;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.repository.film.InMemoryFilmRepository;
 import ru.yandex.practicum.filmorate.repository.likes.InMemoryLikesRepository;
+import ru.yandex.practicum.filmorate.repository.likes.InMemoryTrendingLikesRepository;
+import ru.yandex.practicum.filmorate.repository.user.InMemoryUserRepository;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
 
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.util.ConcurrentRunner.runConcurrently;
 
 // Список тестов:
 // 1. Проверка, что добавляется фильм.
@@ -32,6 +54,20 @@ import static org.assertj.core.api.Assertions.assertThat;
 // 7. Проверка, что пользователь может ставить лайк фильму.
 // 8. Проверка, что пользователь может удалять лайк.
 // 9. Проверка, что выводится список фильмов по лайкам.
+// 10. Проверка, что пакет лайков применяется и возвращает статус каждой операции.
+// 11. Проверка, что выводится список трендовых фильмов за час.
+// 12. Проверка, что лайкнувшие фильм пользователи выводятся постранично.
+// 13. Проверка, что популярные фильмы отдаются с ETag и кэш сбрасывается после лайка.
+// 14. Проверка, что удаленный фильм пропадает из популярных и трендовых вместе со своими лайками.
+// 15. Проверка, что лайки удаленного пользователя снимаются с фильмов.
+// 16. Проверка, что лайк несуществующему фильму возвращает 404.
+// 17. Проверка, что NDJSON-импорт сохраняет корректные строки и возвращает ошибки остальных по номерам строк.
+// 18. Проверка, что фильмы выгружаются в NDJSON по записи на строку.
+// 19. Проверка, что лайк от несуществующего пользователя возвращает 404.
+// 20. Проверка, что limit больше 1000 в списке лайкнувших урезается до 1000, а не сбрасывается.
+// 21. Проверка, что NDJSON-импорт параллельно с одиночными добавлениями не выдает один id дважды.
+// 22. Проверка, что изменение фильма заменяет хранимый объект, а не меняет уже выданный.
+// 23. Проверка, что удаление лайка у несуществующего фильма или от несуществующего пользователя возвращает 404.
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -46,10 +82,38 @@ class FilmControllerTest {
     @Autowired
     private InMemoryLikesRepository likesRepository;
 
+    @Autowired
+    private InMemoryTrendingLikesRepository trendingLikesRepository;
+
+    @Autowired
+    private PopularFilmsCache popularFilmsCache;
+
+    @Autowired
+    private InMemoryUserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Лайки ставят пользователи с id 1..5.
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= 5; i++) {
+            userRepository.save(User.builder()
+                    .name("Name" + i)
+                    .email("Email" + i + "@gmail.com")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+    }
+
     @AfterEach
     void tearDown() {
         filmRepository.clear();
+        userRepository.clear();
         likesRepository.clear();
+        trendingLikesRepository.clear();
+        popularFilmsCache.clear();
     }
 
     @DisplayName("1. Проверка, что добавляется фильм.")
@@ -251,16 +315,18 @@ class FilmControllerTest {
 
         Long filmId = response.getBody().getId();
 
-        ResponseEntity<Long[]> likeResponse = testRestTemplate.exchange(
+        ResponseEntity<LikeSummaryDto> likeResponse = testRestTemplate.exchange(
                 "/films/{id}/like/{userId}",
                 HttpMethod.PUT,
                 null,
-                Long[].class,
+                LikeSummaryDto.class,
                 filmId,
                 1L);
 
         assertThat(likeResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(likeResponse.getBody()).containsExactly(1L);
+        assertThat(likeResponse.getBody().getLikes()).isEqualTo(1L);
+        assertThat(likeResponse.getBody().isLiked()).isTrue();
+        assertThat(likesRepository.findLikesByFilmId(filmId)).containsExactly(1L);
     }
 
     @DisplayName("8. Проверка, что пользователь может удалять лайк.")
@@ -282,16 +348,18 @@ class FilmControllerTest {
 
         testRestTemplate.put("/films/{id}/like/{userId}", null, filmId, 1L);
 
-        ResponseEntity<Long[]> afterDelete = testRestTemplate.exchange(
+        ResponseEntity<LikeSummaryDto> afterDelete = testRestTemplate.exchange(
                 "/films/{id}/like/{userId}",
                 HttpMethod.DELETE,
                 null,
-                Long[].class,
+                LikeSummaryDto.class,
                 filmId,
                 1L);
 
         assertThat(afterDelete.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(afterDelete.getBody()).isEmpty();
+        assertThat(afterDelete.getBody().getLikes()).isZero();
+        assertThat(afterDelete.getBody().isLiked()).isFalse();
+        assertThat(likesRepository.findLikesByFilmId(filmId)).isEmpty();
     }
 
     @DisplayName("9. Проверка, что выводится список фильмов по лайкам.")
@@ -330,4 +398,469 @@ class FilmControllerTest {
         assertThat(response.getBody()[0].getId()).isEqualTo(film1Id);
         assertThat(response.getBody()[1].getId()).isEqualTo(film2Id);
     }
+
+    @DisplayName("10. Проверка, что пакет лайков применяется и возвращает статус каждой операции.")
+    @Test
+    void shouldApplyLikesBatch() {
+        Film film = Film.builder()
+                .name("Film1")
+                .description("Description1")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(Duration.ofMinutes(120))
+                .build();
+
+        Long filmId = testRestTemplate.postForEntity("/films", film, Film.class).getBody().getId();
+
+        Map<String, Object> batch = Map.of("operations", List.of(
+                Map.of("filmId", filmId, "userId", 1L, "op", "ADD"),
+                Map.of("filmId", filmId, "userId", 2L, "op", "ADD"),
+                Map.of("filmId", filmId, "userId", 1L, "op", "ADD"),
+                Map.of("filmId", filmId, "userId", 2L, "op", "DELETE"),
+                Map.of("filmId", 999L, "userId", 1L, "op", "ADD"),
+                Map.of("filmId", filmId, "userId", 999L, "op", "ADD")
+        ));
+
+        ResponseEntity<LikeBatchResultDto> response = testRestTemplate.postForEntity(
+                "/films/likes/batch",
+                batch,
+                LikeBatchResultDto.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getApplied()).isEqualTo(3);
+        assertThat(response.getBody().getStatuses()).containsExactly(
+                LikeBatchStatus.APPLIED,
+                LikeBatchStatus.APPLIED,
+                LikeBatchStatus.UNCHANGED,
+                LikeBatchStatus.APPLIED,
+                LikeBatchStatus.FILM_NOT_FOUND,
+                LikeBatchStatus.USER_NOT_FOUND);
+        assertThat(likesRepository.findLikesByFilmId(filmId)).containsExactly(1L);
+        assertThat(likesRepository.findTopFilmsByLikes(10)).containsExactly(filmId);
+    }
+
+    @DisplayName("11. Проверка, что выводится список трендовых фильмов за час.")
+    @Test
+    void shouldReturnTrendingFilms() {
+        Film film1 = Film.builder()
+                .name("Film1")
+                .description("Description1")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(Duration.ofMinutes(120))
+                .build();
+
+        Film film2 = Film.builder()
+                .name("Film2")
+                .description("Description2")
+                .releaseDate(LocalDate.of(2005, 5, 5))
+                .duration(Duration.ofMinutes(90))
+                .build();
+
+        Long film1Id = testRestTemplate.postForEntity("/films", film1, Film.class).getBody().getId();
+        Long film2Id = testRestTemplate.postForEntity("/films", film2, Film.class).getBody().getId();
+
+        testRestTemplate.put("/films/{id}/like/{userId}", null, film1Id, 1L);
+        testRestTemplate.put("/films/{id}/like/{userId}", null, film2Id, 1L);
+        testRestTemplate.put("/films/{id}/like/{userId}", null, film2Id, 2L);
+        testRestTemplate.delete("/films/{id}/like/{userId}", film1Id, 1L);
+
+        ResponseEntity<Film[]> response = testRestTemplate.getForEntity(
+                "/films/popular?count=10&window=HOUR",
+                Film[].class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).hasSize(1);
+        assertThat(response.getBody()[0].getId()).isEqualTo(film2Id);
+    }
+
+    @DisplayName("12. Проверка, что лайкнувшие фильм пользователи выводятся постранично.")
+    @Test
+    void shouldReturnFilmLikesPage() {
+        Film film = Film.builder()
+                .name("Film1")
+                .description("Description1")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(Duration.ofMinutes(120))
+                .build();
+
+        Long filmId = testRestTemplate.postForEntity("/films", film, Film.class).getBody().getId();
+        for (long userId = 1; userId <= 5; userId++) {
+            testRestTemplate.put("/films/{id}/like/{userId}", null, filmId, userId);
+        }
+
+        ParameterizedTypeReference<CursorPageResponse<Long>> pageType = new ParameterizedTypeReference<>() {
+        };
+
+        ResponseEntity<CursorPageResponse<Long>> firstPage = testRestTemplate.exchange(
+                "/films/{id}/likes?limit=3",
+                HttpMethod.GET,
+                null,
+                pageType,
+                filmId);
+
+        assertThat(firstPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(firstPage.getBody().getItems()).containsExactly(1L, 2L, 3L);
+        assertThat(firstPage.getBody().getNextCursor()).isEqualTo(3L);
+
+        ResponseEntity<CursorPageResponse<Long>> secondPage = testRestTemplate.exchange(
+                "/films/{id}/likes?limit=3&cursor={cursor}",
+                HttpMethod.GET,
+                null,
+                pageType,
+                filmId,
+                firstPage.getBody().getNextCursor());
+
+        assertThat(secondPage.getBody().getItems()).containsExactly(4L, 5L);
+        assertThat(secondPage.getBody().getNextCursor()).isNull();
+    }
+
+    @DisplayName("13. Проверка, что популярные фильмы отдаются с ETag и кэш сбрасывается после лайка.")
+    @Test
+    void shouldServePopularFilmsWithEtag() {
+        Film film1 = Film.builder()
+                .name("Film1")
+                .description("Description1")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(Duration.ofMinutes(120))
+                .build();
+
+        Film film2 = Film.builder()
+                .name("Film2")
+                .description("Description2")
+                .releaseDate(LocalDate.of(2005, 5, 5))
+                .duration(Duration.ofMinutes(90))
+                .build();
+
+        Long film1Id = testRestTemplate.postForEntity("/films", film1, Film.class).getBody().getId();
+        Long film2Id = testRestTemplate.postForEntity("/films", film2, Film.class).getBody().getId();
+        testRestTemplate.put("/films/{id}/like/{userId}", null, film1Id, 1L);
+
+        ResponseEntity<Film[]> first = testRestTemplate.getForEntity("/films/popular?count=1", Film[].class);
+        String etag = first.getHeaders().getETag();
+
+        assertThat(etag).isNotNull();
+        assertThat(first.getBody()[0].getId()).isEqualTo(film1Id);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<Film[]> notModified = testRestTemplate.exchange(
+                "/films/popular?count=1",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                Film[].class);
+
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        testRestTemplate.put("/films/{id}/like/{userId}", null, film2Id, 1L);
+        testRestTemplate.put("/films/{id}/like/{userId}", null, film2Id, 2L);
+
+        ResponseEntity<Film[]> modified = testRestTemplate.exchange(
+                "/films/popular?count=1",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                Film[].class);
+
+        assertThat(modified.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(modified.getHeaders().getETag()).isNotEqualTo(etag);
+        assertThat(modified.getBody()[0].getId()).isEqualTo(film2Id);
+    }
+
+    @DisplayName("14. Проверка, что удаленный фильм пропадает из популярных и трендовых вместе со своими лайками.")
+    @Test
+    void shouldRemoveDeletedFilmFromPopular() {
+        Film film1 = Film.builder()
+                .name("Film1")
+                .description("Description1")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(Duration.ofMinutes(120))
+                .build();
+
+        Film film2 = Film.builder()
+                .name("Film2")
+                .description("Description2")
+                .releaseDate(LocalDate.of(2005, 5, 5))
+                .duration(Duration.ofMinutes(90))
+                .build();
+
+        Long film1Id = testRestTemplate.postForEntity("/films", film1, Film.class).getBody().getId();
+        Long film2Id = testRestTemplate.postForEntity("/films", film2, Film.class).getBody().getId();
+
+        testRestTemplate.put("/films/{id}/like/{userId}", null, film1Id, 1L);
+        testRestTemplate.put("/films/{id}/like/{userId}", null, film1Id, 2L);
+        testRestTemplate.put("/films/{id}/like/{userId}", null, film2Id, 1L);
+        testRestTemplate.getForEntity("/films/popular?count=10", Film[].class);
+
+        testRestTemplate.delete("/films/{id}", film1Id);
+
+        ResponseEntity<Film[]> popular = testRestTemplate.getForEntity("/films/popular?count=10", Film[].class);
+        ResponseEntity<Film[]> trending = testRestTemplate.getForEntity(
+                "/films/popular?count=10&window=HOUR",
+                Film[].class);
+
+        assertThat(popular.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(popular.getBody()).extracting(Film::getId).containsExactly(film2Id);
+        assertThat(trending.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(trending.getBody()).extracting(Film::getId).containsExactly(film2Id);
+        assertThat(likesRepository.findLikesByFilmId(film1Id)).isEmpty();
+        assertThat(likesRepository.countLikes()).isEqualTo(1);
+    }
+
+    @DisplayName("15. Проверка, что лайки удаленного пользователя снимаются с фильмов.")
+    @Test
+    void shouldRemoveLikesOfDeletedUser() {
+        Film film = Film.builder()
+                .name("Film1")
+                .description("Description1")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(Duration.ofMinutes(120))
+                .build();
+
+        User user = User.builder()
+                .name("Name1")
+                .email("Email1@gmail.com")
+                .login("Login1")
+                .birthday(LocalDate.of(2000, 1, 1))
+                .build();
+
+        Long filmId = testRestTemplate.postForEntity("/films", film, Film.class).getBody().getId();
+        Long userId = testRestTemplate.postForEntity("/users", user, User.class).getBody().getId();
+
+        testRestTemplate.put("/films/{id}/like/{userId}", null, filmId, userId);
+        testRestTemplate.put("/films/{id}/like/{userId}", null, filmId, 1L);
+
+        testRestTemplate.delete("/users/{id}", userId);
+
+        assertThat(likesRepository.findLikesByFilmId(filmId)).containsExactly(1L);
+        assertThat(likesRepository.countLikesByFilmId(filmId)).isEqualTo(1);
+    }
+
+    @DisplayName("16. Проверка, что лайк несуществующему фильму возвращает 404.")
+    @Test
+    void shouldRejectLikeForUnknownFilm() {
+        ResponseEntity<String> response = testRestTemplate.exchange(
+                "/films/{id}/like/{userId}",
+                HttpMethod.PUT,
+                null,
+                String.class,
+                9999L,
+                1L);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(likesRepository.countLikes()).isZero();
+    }
+
+    @DisplayName("17. Проверка, что NDJSON-импорт сохраняет корректные строки и возвращает ошибки остальных по номерам строк.")
+    @Test
+    void shouldImportFilmsFromNdjson() {
+        String body = """
+                {"name":"Film1","description":"Description1","releaseDate":"2000-01-01","duration":"PT2H"}
+                {"name":"Film2","description":"Description2","releaseDate":"1800-01-01","duration":"PT2H"}
+
+                {"name":"Film3","releaseDate":"2000-01-01","duration":"oops"}
+                {"name":"","description":"Description4","releaseDate":"2000-01-01","duration":"PT0S"}
+                {"name":"Film5","description":"Description5","releaseDate":"2001-01-01","duration":"PT90M"}
+                """;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+
+        ResponseEntity<BulkImportResultDto> response = testRestTemplate.postForEntity(
+                "/films/bulk",
+                new HttpEntity<>(body, headers),
+                BulkImportResultDto.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getImported()).isEqualTo(2);
+        assertThat(response.getBody().getFailed()).isEqualTo(3);
+        assertThat(response.getBody().getErrors()).extracting(BulkImportErrorDto::getLine).containsExactly(2L, 4L, 5L);
+        assertThat(response.getBody().getErrors().get(0).getErrors())
+                .extracting(ErrorResponse::getField).containsExactly("releaseDate");
+        assertThat(response.getBody().getErrors().get(1).getErrors())
+                .extracting(ErrorResponse::getField).containsExactly("duration");
+        assertThat(response.getBody().getErrors().get(2).getErrors())
+                .extracting(ErrorResponse::getField).containsExactly("duration", "name");
+        assertThat(filmRepository.findAll()).extracting(Film::getName).containsExactly("Film1", "Film5");
+    }
+
+    @DisplayName("18. Проверка, что фильмы выгружаются в NDJSON по записи на строку.")
+    @Test
+    void shouldExportFilmsAsNdjson() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            filmRepository.save(Film.builder()
+                    .name("Film" + i)
+                    .description("Description" + i)
+                    .releaseDate(LocalDate.of(2000, 1, i))
+                    .duration(Duration.ofMinutes(90 + i))
+                    .build());
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON));
+
+        ResponseEntity<String> response = testRestTemplate.exchange(
+                "/films",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType().isCompatibleWith(MediaType.APPLICATION_NDJSON)).isTrue();
+        List<Film> films = new ArrayList<>();
+        for (String line : response.getBody().split("\n")) {
+            films.add(objectMapper.readValue(line, Film.class));
+        }
+        assertThat(films).containsExactlyInAnyOrderElementsOf(filmRepository.findAll());
+    }
+
+    @DisplayName("19. Проверка, что лайк от несуществующего пользователя возвращает 404.")
+    @Test
+    void shouldRejectLikeFromUnknownUser() {
+        Film film = Film.builder()
+                .name("Film1")
+                .description("Description1")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(Duration.ofMinutes(120))
+                .build();
+        Long filmId = testRestTemplate.postForEntity("/films", film, Film.class).getBody().getId();
+
+        ResponseEntity<String> response = testRestTemplate.exchange(
+                "/films/{id}/like/{userId}",
+                HttpMethod.PUT,
+                null,
+                String.class,
+                filmId,
+                9999L);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(likesRepository.countLikes()).isZero();
+    }
+
+    @DisplayName("20. Проверка, что limit больше 1000 в списке лайкнувших урезается до 1000, а не сбрасывается.")
+    @Test
+    void shouldClampFilmLikesPageLimit() {
+        Film film = Film.builder()
+                .name("Film1")
+                .description("Description1")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(Duration.ofMinutes(120))
+                .build();
+        Long filmId = testRestTemplate.postForEntity("/films", film, Film.class).getBody().getId();
+        for (long userId = 1; userId <= 1001; userId++) {
+            likesRepository.addLike(filmId, userId);
+        }
+
+        ParameterizedTypeReference<CursorPageResponse<Long>> pageType = new ParameterizedTypeReference<>() {
+        };
+
+        for (int limit : new int[]{1000, 1001, 5000}) {
+            ResponseEntity<CursorPageResponse<Long>> page = testRestTemplate.exchange(
+                    "/films/{id}/likes?limit={limit}",
+                    HttpMethod.GET,
+                    null,
+                    pageType,
+                    filmId,
+                    limit);
+
+            assertThat(page.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(page.getBody().getItems()).hasSize(1000);
+            assertThat(page.getBody().getNextCursor()).isEqualTo(1000L);
+        }
+    }
+
+    @DisplayName("21. Проверка, что NDJSON-импорт параллельно с одиночными добавлениями не выдает один id дважды.")
+    @Test
+    void shouldAssignUniqueIdsWhenImportRunsAlongsideSingleAdds() throws Exception {
+        int imported = 5_000;
+        int singleThreads = 3;
+        int singlePerThread = 100;
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < imported; i++) {
+            body.append("{\"name\":\"Bulk").append(i)
+                    .append("\",\"description\":\"Description\",\"releaseDate\":\"2000-01-01\",\"duration\":\"PT2H\"}\n");
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+        Map<Long, String> singleFilms = new ConcurrentHashMap<>();
+
+        // Поток 0 импортирует пачку, остальные в это время добавляют фильмы по одному.
+        runConcurrently(singleThreads + 1, thread -> {
+            if (thread == 0) {
+                ResponseEntity<BulkImportResultDto> response = testRestTemplate.postForEntity(
+                        "/films/bulk",
+                        new HttpEntity<>(body.toString(), headers),
+                        BulkImportResultDto.class);
+                assertThat(response.getBody().getImported()).isEqualTo(imported);
+                return;
+            }
+            for (int i = 0; i < singlePerThread; i++) {
+                Film film = Film.builder()
+                        .name("Single" + thread + "-" + i)
+                        .description("Description")
+                        .releaseDate(LocalDate.of(2000, 1, 1))
+                        .duration(Duration.ofMinutes(120))
+                        .build();
+                Film saved = testRestTemplate.postForEntity("/films", film, Film.class).getBody();
+                assertThat(singleFilms.put(saved.getId(), saved.getName())).isNull();
+            }
+        });
+
+        int total = imported + singleThreads * singlePerThread;
+        assertThat(filmRepository.count()).isEqualTo(total);
+        assertThat(filmRepository.getNextId()).isEqualTo(total + 1L);
+        assertThat(filmRepository.findAll()).extracting(Film::getName).doesNotHaveDuplicates();
+        singleFilms.forEach((id, name) -> assertThat(filmRepository.findById(id).getName()).isEqualTo(name));
+    }
+
+    @DisplayName("22. Проверка, что изменение фильма заменяет хранимый объект, а не меняет уже выданный.")
+    @Test
+    void shouldReplaceFilmOnUpdate() {
+        Film film = Film.builder()
+                .name("Film1")
+                .description("Description1")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(Duration.ofMinutes(120))
+                .build();
+        Long filmId = testRestTemplate.postForEntity("/films", film, Film.class).getBody().getId();
+        Film before = filmRepository.findById(filmId);
+
+        Film update = Film.builder()
+                .name("Film2")
+                .description("Description2")
+                .releaseDate(LocalDate.of(2010, 1, 1))
+                .duration(Duration.ofMinutes(90))
+                .build();
+        testRestTemplate.put("/films/{id}", update, filmId);
+
+        assertThat(before.getName()).isEqualTo("Film1");
+        assertThat(before.getDuration()).isEqualTo(Duration.ofMinutes(120));
+        update.setId(filmId);
+        assertThat(filmRepository.findById(filmId)).isEqualTo(update);
+    }
+
+    @DisplayName("23. Проверка, что удаление лайка у несуществующего фильма или от несуществующего пользователя возвращает 404.")
+    @Test
+    void shouldRejectLikeDeleteForUnknownFilmOrUser() {
+        Film film = Film.builder()
+                .name("Film1")
+                .description("Description1")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(Duration.ofMinutes(120))
+                .build();
+        Long filmId = testRestTemplate.postForEntity("/films", film, Film.class).getBody().getId();
+
+        ResponseEntity<String> unknownFilm = testRestTemplate.exchange(
+                "/films/{id}/like/{userId}",
+                HttpMethod.DELETE,
+                null,
+                String.class,
+                filmId + 1000,
+                1L);
+        ResponseEntity<String> unknownUser = testRestTemplate.exchange(
+                "/films/{id}/like/{userId}",
+                HttpMethod.DELETE,
+                null,
+                String.class,
+                filmId,
+                9999L);
+
+        assertThat(unknownFilm.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(unknownUser.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
 }
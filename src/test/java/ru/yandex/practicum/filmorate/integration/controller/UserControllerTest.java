@@ -7,12 +7,25 @@ import org.junit.jupiter.api.TestInstance;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.dto.BulkImportErrorDto;
+import ru.yandex.practicum.filmorate.dto.BulkImportResultDto;
+import ru.yandex.practicum.filmorate.dto.CursorPageResponse;
+import ru.yandex.practicum.filmorate.dto.FriendRecommendationDto;
+import ru.yandex.practicum.filmorate.dto.MutualFriendsCountDto;
+import ru.yandex.practicum.filmorate.dto.MutualFriendsCountRequestDto;
+import ru.yandex.practicum.filmorate.dto.UserShortDto;
 import ru.yandex.practicum.filmorate.dto.ValidationErrorResponse;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.repository.friends.InMemoryFriendsRepository;
 import ru.yandex.practicum.filmorate.repository.user.InMemoryUserRepository;
+import ru.yandex.practicum.filmorate.service.FriendRecommendationsCache;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -33,6 +46,15 @@ import static org.assertj.core.api.Assertions.assertThat;
 // 10. Проверка, что пользователь может удалить друга.
 // 11. Проверка, что возвращается список друзей.
 // 12. Проверка, что возвращается список общих друзей.
+// 13. Проверка, что друзья друзей рекомендуются по числу общих друзей и рекомендации обновляются после новой дружбы.
+// 14. Проверка, что входящие и исходящие заявки выводятся постранично и не попадают в список друзей.
+// 15. Проверка, что друзья выводятся постранично по курсору в полном, кратком и id-представлении.
+// 16. Проверка, что число общих друзей считается пакетом для списка пользователей в порядке запроса.
+// 17. Проверка, что удаление не друга возвращает 404, а удаление друга убирает его у обоих пользователей.
+// 18. Проверка, что удаленный пользователь пропадает из друзей и заявок, а заявка ему возвращает 404.
+// 19. Проверка, что NDJSON-импорт регистрирует корректных пользователей и пропускает строки с ошибками.
+// 20. Проверка, что limit больше 1000 в списке друзей урезается до 1000, а не сбрасывается.
+// 21. Проверка, что изменение пользователя заменяет хранимый объект, а не меняет уже выданный.
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -47,10 +69,14 @@ class UserControllerTest {
     @Autowired
     private InMemoryFriendsRepository friendsRepository;
 
+    @Autowired
+    private FriendRecommendationsCache friendRecommendationsCache;
+
     @AfterEach
     void tearDown() {
         userRepository.clear();
         friendsRepository.clear();
+        friendRecommendationsCache.clear();
     }
 
     @DisplayName("1. Проверка, что регистрирует пользователя.")
@@ -479,4 +505,354 @@ class UserControllerTest {
         assertThat(commonFriendsResponse.getBody()).hasSize(1);
         assertThat(commonFriendsResponse.getBody()[0].getId()).isEqualTo(user3Id);
     }
+
+    @DisplayName("13. Проверка, что друзья друзей рекомендуются по числу общих друзей и рекомендации обновляются после новой дружбы.")
+    @Test
+    void shouldRecommendFriendsOfFriends() {
+        Long[] ids = new Long[6];
+        for (int i = 1; i <= 5; i++) {
+            User user = User.builder()
+                    .name("Name" + i)
+                    .email("Email" + i + "@gmail.com")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build();
+            ids[i] = testRestTemplate.postForEntity("/users", user, User.class).getBody().getId();
+        }
+
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[1], ids[2]);
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[1], ids[3]);
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[2], ids[4]);
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[3], ids[4]);
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[3], ids[5]);
+
+        ResponseEntity<FriendRecommendationDto[]> response = testRestTemplate.getForEntity(
+                "/users/{id}/friends/recommendations",
+                FriendRecommendationDto[].class,
+                ids[1]);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).extracting(r -> r.getUser().getId()).containsExactly(ids[4], ids[5]);
+        assertThat(response.getBody()).extracting(FriendRecommendationDto::getMutualFriends).containsExactly(2, 1);
+
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[1], ids[4]);
+
+        FriendRecommendationDto[] updated = testRestTemplate.getForObject(
+                "/users/{id}/friends/recommendations?limit=5",
+                FriendRecommendationDto[].class,
+                ids[1]);
+
+        assertThat(updated).extracting(r -> r.getUser().getId()).containsExactly(ids[5]);
+    }
+
+    @DisplayName("14. Проверка, что входящие и исходящие заявки выводятся постранично и не попадают в список друзей.")
+    @Test
+    void shouldPageFriendRequests() {
+        Long[] ids = new Long[5];
+        for (int i = 1; i <= 4; i++) {
+            User user = User.builder()
+                    .name("Name" + i)
+                    .email("Email" + i + "@gmail.com")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build();
+            ids[i] = testRestTemplate.postForEntity("/users", user, User.class).getBody().getId();
+        }
+
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[2], ids[1]);
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[3], ids[1]);
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[4], ids[1]);
+
+        ParameterizedTypeReference<CursorPageResponse<User>> pageType = new ParameterizedTypeReference<>() {
+        };
+
+        ResponseEntity<CursorPageResponse<User>> firstPage = testRestTemplate.exchange(
+                "/users/{id}/friends/requests/incoming?limit=2",
+                HttpMethod.GET,
+                null,
+                pageType,
+                ids[1]);
+
+        assertThat(firstPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(firstPage.getBody().getItems()).extracting(User::getId).containsExactly(ids[2], ids[3]);
+        assertThat(firstPage.getBody().getNextCursor()).isEqualTo(ids[3]);
+
+        ResponseEntity<CursorPageResponse<User>> secondPage = testRestTemplate.exchange(
+                "/users/{id}/friends/requests/incoming?limit=2&cursor={cursor}",
+                HttpMethod.GET,
+                null,
+                pageType,
+                ids[1],
+                firstPage.getBody().getNextCursor());
+
+        assertThat(secondPage.getBody().getItems()).extracting(User::getId).containsExactly(ids[4]);
+        assertThat(secondPage.getBody().getNextCursor()).isNull();
+
+        ResponseEntity<CursorPageResponse<User>> outgoing = testRestTemplate.exchange(
+                "/users/{id}/friends/requests/outgoing",
+                HttpMethod.GET,
+                null,
+                pageType,
+                ids[2]);
+
+        assertThat(outgoing.getBody().getItems()).extracting(User::getId).containsExactly(ids[1]);
+        assertThat(friendsRepository.findFriendsById(ids[1])).isEmpty();
+
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[1], ids[2]);
+
+        ResponseEntity<CursorPageResponse<User>> afterAccept = testRestTemplate.exchange(
+                "/users/{id}/friends/requests/incoming",
+                HttpMethod.GET,
+                null,
+                pageType,
+                ids[1]);
+
+        assertThat(afterAccept.getBody().getItems()).extracting(User::getId).containsExactly(ids[3], ids[4]);
+        assertThat(friendsRepository.findFriendsById(ids[1])).containsExactly(ids[2]);
+    }
+
+    @DisplayName("15. Проверка, что друзья выводятся постранично по курсору в полном, кратком и id-представлении.")
+    @Test
+    void shouldPageUserFriends() {
+        Long[] ids = new Long[5];
+        for (int i = 1; i <= 4; i++) {
+            User user = User.builder()
+                    .name("Name" + i)
+                    .email("Email" + i + "@gmail.com")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build();
+            ids[i] = testRestTemplate.postForEntity("/users", user, User.class).getBody().getId();
+        }
+        for (int i = 2; i <= 4; i++) {
+            testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[i], ids[1]);
+            testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[1], ids[i]);
+        }
+
+        ResponseEntity<CursorPageResponse<User>> fullPage = testRestTemplate.exchange(
+                "/users/{id}/friends?limit=2",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                },
+                ids[1]);
+
+        assertThat(fullPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(fullPage.getBody().getItems()).extracting(User::getId).containsExactly(ids[2], ids[3]);
+        assertThat(fullPage.getBody().getItems()).extracting(User::getEmail)
+                .containsExactly("Email2@gmail.com", "Email3@gmail.com");
+        assertThat(fullPage.getBody().getNextCursor()).isEqualTo(ids[3]);
+
+        ResponseEntity<CursorPageResponse<UserShortDto>> shortPage = testRestTemplate.exchange(
+                "/users/{id}/friends?limit=2&cursor={cursor}&view=SHORT",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                },
+                ids[1],
+                fullPage.getBody().getNextCursor());
+
+        assertThat(shortPage.getBody().getItems()).containsExactly(new UserShortDto(ids[4], "Name4"));
+        assertThat(shortPage.getBody().getNextCursor()).isNull();
+
+        ResponseEntity<CursorPageResponse<Long>> idPage = testRestTemplate.exchange(
+                "/users/{id}/friends?limit=10&view=ID",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                },
+                ids[1]);
+
+        assertThat(idPage.getBody().getItems()).containsExactly(ids[2], ids[3], ids[4]);
+        assertThat(idPage.getBody().getNextCursor()).isNull();
+
+        ResponseEntity<User[]> allFriends = testRestTemplate.getForEntity("/users/{id}/friends", User[].class, ids[1]);
+
+        assertThat(allFriends.getBody()).extracting(User::getId).containsExactly(ids[2], ids[3], ids[4]);
+    }
+
+    @DisplayName("16. Проверка, что число общих друзей считается пакетом для списка пользователей в порядке запроса.")
+    @Test
+    void shouldCountMutualFriendsInBatch() {
+        Long[] ids = new Long[5];
+        for (int i = 1; i <= 4; i++) {
+            User user = User.builder()
+                    .name("Name" + i)
+                    .email("Email" + i + "@gmail.com")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build();
+            ids[i] = testRestTemplate.postForEntity("/users", user, User.class).getBody().getId();
+        }
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[1], ids[3]);
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[1], ids[4]);
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[2], ids[3]);
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[2], ids[4]);
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[3], ids[4]);
+
+        MutualFriendsCountRequestDto request = new MutualFriendsCountRequestDto();
+        request.setUserIds(List.of(ids[3], ids[2], 9999L));
+
+        ResponseEntity<MutualFriendsCountDto[]> response = testRestTemplate.postForEntity(
+                "/users/{id}/friends/common/counts", request, MutualFriendsCountDto[].class, ids[1]);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).containsExactly(
+                new MutualFriendsCountDto(ids[3], 1),
+                new MutualFriendsCountDto(ids[2], 2),
+                new MutualFriendsCountDto(9999L, 0));
+
+        ResponseEntity<String> withoutIds = testRestTemplate.postForEntity(
+                "/users/{id}/friends/common/counts", new MutualFriendsCountRequestDto(), String.class, ids[1]);
+
+        assertThat(withoutIds.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @DisplayName("17. Проверка, что удаление не друга возвращает 404, а удаление друга убирает его у обоих пользователей.")
+    @Test
+    void shouldDeleteOnlyExistingFriend() {
+        Long[] ids = new Long[4];
+        for (int i = 1; i <= 3; i++) {
+            User user = User.builder()
+                    .name("Name" + i)
+                    .email("Email" + i + "@gmail.com")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build();
+            ids[i] = testRestTemplate.postForEntity("/users", user, User.class).getBody().getId();
+        }
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[1], ids[2]);
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[2], ids[1]);
+
+        ResponseEntity<String> notFriend = testRestTemplate.exchange(
+                "/users/{id}/friends/{friendId}", HttpMethod.DELETE, null, String.class, ids[1], ids[3]);
+
+        assertThat(notFriend.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        ResponseEntity<String> deleted = testRestTemplate.exchange(
+                "/users/{id}/friends/{friendId}", HttpMethod.DELETE, null, String.class, ids[1], ids[2]);
+
+        assertThat(deleted.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(friendsRepository.areFriends(ids[1], ids[2])).isFalse();
+        assertThat(friendsRepository.areFriends(ids[2], ids[1])).isFalse();
+    }
+
+    @DisplayName("18. Проверка, что удаленный пользователь пропадает из друзей и заявок, а заявка ему возвращает 404.")
+    @Test
+    void shouldCascadeUserDeleteToFriends() {
+        Long[] ids = new Long[4];
+        for (int i = 1; i <= 3; i++) {
+            User user = User.builder()
+                    .name("Name" + i)
+                    .email("Email" + i + "@gmail.com")
+                    .login("Login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build();
+            ids[i] = testRestTemplate.postForEntity("/users", user, User.class).getBody().getId();
+        }
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[1], ids[2]);
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[2], ids[1]);
+        testRestTemplate.put("/users/{id}/friends/{friendId}", null, ids[1], ids[3]);
+
+        testRestTemplate.delete("/users/{id}", ids[1]);
+
+        ResponseEntity<User[]> friends = testRestTemplate.getForEntity("/users/{id}/friends", User[].class, ids[2]);
+        ResponseEntity<CursorPageResponse<User>> incoming = testRestTemplate.exchange(
+                "/users/{id}/friends/requests/incoming",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                },
+                ids[3]);
+
+        assertThat(friends.getBody()).isEmpty();
+        assertThat(incoming.getBody().getItems()).isEmpty();
+        assertThat(friendsRepository.countFriendships()).isZero();
+
+        ResponseEntity<String> request = testRestTemplate.exchange(
+                "/users/{id}/friends/{friendId}", HttpMethod.PUT, null, String.class, ids[2], ids[1]);
+
+        assertThat(request.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(friendsRepository.countFriendships()).isZero();
+    }
+
+    @DisplayName("19. Проверка, что NDJSON-импорт регистрирует корректных пользователей и пропускает строки с ошибками.")
+    @Test
+    void shouldImportUsersFromNdjson() {
+        String body = """
+                {"email":"Email1@gmail.com","login":"Login1","name":"","birthday":"2000-01-01"}
+                {"email":"Email2gmail.com","login":"Login2","name":"Name2","birthday":"2000-01-01"}
+                not a json
+                {"email":"Email4@gmail.com","login":"Login4","name":"Name4","birthday":"2000-01-01"}
+                """;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+
+        ResponseEntity<BulkImportResultDto> response = testRestTemplate.postForEntity(
+                "/users/bulk",
+                new HttpEntity<>(body, headers),
+                BulkImportResultDto.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getImported()).isEqualTo(2);
+        assertThat(response.getBody().getFailed()).isEqualTo(2);
+        assertThat(response.getBody().getErrors()).extracting(BulkImportErrorDto::getLine).containsExactly(2L, 3L);
+        assertThat(userRepository.findAll()).extracting(User::getName).containsExactlyInAnyOrder("Login1", "Name4");
+    }
+
+    @DisplayName("20. Проверка, что limit больше 1000 в списке друзей урезается до 1000, а не сбрасывается.")
+    @Test
+    void shouldClampFriendsPageLimit() {
+        Long userId = userRepository.save(User.builder()
+                .name("Name1")
+                .email("Email1@gmail.com")
+                .login("Login1")
+                .birthday(LocalDate.of(2000, 1, 1))
+                .build()).getId();
+        for (long friendId = 1001; friendId <= 2001; friendId++) {
+            friendsRepository.sendFriendship(userId, friendId);
+        }
+
+        ParameterizedTypeReference<CursorPageResponse<Long>> pageType = new ParameterizedTypeReference<>() {
+        };
+
+        for (int limit : new int[]{1000, 1001, 5000}) {
+            ResponseEntity<CursorPageResponse<Long>> page = testRestTemplate.exchange(
+                    "/users/{id}/friends?limit={limit}&view=ID",
+                    HttpMethod.GET,
+                    null,
+                    pageType,
+                    userId,
+                    limit);
+
+            assertThat(page.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(page.getBody().getItems()).hasSize(1000);
+            assertThat(page.getBody().getNextCursor()).isEqualTo(2000L);
+        }
+    }
+
+    @DisplayName("21. Проверка, что изменение пользователя заменяет хранимый объект, а не меняет уже выданный.")
+    @Test
+    void shouldReplaceUserOnUpdate() {
+        Long userId = userRepository.save(User.builder()
+                .name("NameOld")
+                .email("EmailOld@gmail.com")
+                .login("LoginOld")
+                .birthday(LocalDate.of(2000, 1, 1))
+                .build()).getId();
+        User before = userRepository.findById(userId);
+
+        User update = User.builder()
+                .name("NameNew")
+                .email("EmailNew@gmail.com")
+                .login("LoginNew")
+                .birthday(LocalDate.of(2010, 1, 1))
+                .build();
+        testRestTemplate.put("/users/{id}", update, userId);
+
+        assertThat(before.getName()).isEqualTo("NameOld");
+        assertThat(before.getEmail()).isEqualTo("EmailOld@gmail.com");
+        update.setId(userId);
+        assertThat(userRepository.findById(userId)).isEqualTo(update);
+    }
 }
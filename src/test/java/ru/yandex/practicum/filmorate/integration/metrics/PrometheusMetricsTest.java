@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.integration.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.dto.ValidationErrorResponse;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.user.InMemoryUserRepository;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что таймеры сервисов и репозиториев и размеры хранилищ отдаются в формате Prometheus.
+// 2. Проверка, что ошибки "не найден" и ошибки валидации считаются счетчиками.
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PrometheusMetricsTest {
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private InMemoryUserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.clear();
+    }
+
+    @DisplayName("1. Проверка, что таймеры сервисов и репозиториев и размеры хранилищ отдаются в формате Prometheus.")
+    @Test
+    void shouldExposeTimersAndGauges() {
+        User user = User.builder()
+                .name("Name1")
+                .email("Email1@gmail.com")
+                .login("Login1")
+                .birthday(LocalDate.of(2000, 1, 1))
+                .build();
+        testRestTemplate.postForEntity("/users", user, User.class);
+
+        ResponseEntity<String> response = testRestTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody())
+                .contains("filmorate_service_seconds_bucket{class=\"ru.yandex.practicum.filmorate.service.UserService\"")
+                .contains("method=\"registerUser\"")
+                .contains("filmorate_repository_seconds_count{class=\"ru.yandex.practicum.filmorate.repository.user.InMemoryUserRepository\"")
+                .contains("filmorate_users_size 1.0")
+                .contains("filmorate_likes_size")
+                .contains("filmorate_friendships_size")
+                .contains("filmorate_friends_degree_users{max_degree=\"1\"")
+                .contains("filmorate_friends_high_degree_users");
+    }
+
+    @DisplayName("2. Проверка, что ошибки \"не найден\" и ошибки валидации считаются счетчиками.")
+    @Test
+    void shouldCountErrors() {
+        User user = User.builder()
+                .email("Email1gmail.com")
+                .login("Login1")
+                .birthday(LocalDate.of(2000, 1, 1))
+                .build();
+        testRestTemplate.postForEntity("/users", user, ValidationErrorResponse.class);
+        testRestTemplate.getForEntity("/users/999", ValidationErrorResponse.class);
+
+        String body = testRestTemplate.getForObject("/actuator/prometheus", String.class);
+
+        assertThat(body)
+                .contains("filmorate_errors_total{entity=\"user\",type=\"not_found\"")
+                .contains("filmorate_errors_total{entity=\"userRegisterDto\",type=\"validation\"");
+    }
+}
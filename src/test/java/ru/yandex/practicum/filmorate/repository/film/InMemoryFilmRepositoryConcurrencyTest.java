@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.wal.MutationLog;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.util.ConcurrentRunner.runConcurrently;
+
+// Список тестов:
+// 1. Проверка, что параллельные save и saveAll не выдают один id дважды.
+// 2. Проверка, что журнал параллельных обновлений и удалений воспроизводит итоговое состояние.
+
+class InMemoryFilmRepositoryConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int FILMS_PER_THREAD = 2_000;
+    private static final int BATCH_SIZE = 100;
+
+    @DisplayName("1. Проверка, что параллельные save и saveAll не выдают один id дважды.")
+    @Test
+    void shouldAssignUniqueIdsUnderConcurrentSaves() throws Exception {
+        InMemoryFilmRepository filmRepository = new InMemoryFilmRepository();
+
+        // Четные потоки сохраняют по одному фильму, нечетные - пачками.
+        runConcurrently(THREADS, thread -> {
+            if (thread % 2 == 0) {
+                for (int i = 0; i < FILMS_PER_THREAD; i++) {
+                    filmRepository.save(film("film-" + thread + "-" + i));
+                }
+            } else {
+                for (int from = 0; from < FILMS_PER_THREAD; from += BATCH_SIZE) {
+                    List<Film> batch = new ArrayList<>(BATCH_SIZE);
+                    for (int i = from; i < from + BATCH_SIZE; i++) {
+                        batch.add(film("film-" + thread + "-" + i));
+                    }
+                    filmRepository.saveAll(batch);
+                }
+            }
+        });
+
+        long total = (long) THREADS * FILMS_PER_THREAD;
+        assertThat(filmRepository.count()).isEqualTo(total);
+        assertThat(filmRepository.getNextId()).isEqualTo(total + 1);
+        Set<String> names = new HashSet<>();
+        filmRepository.forEachFilm(film -> names.add(film.getName()));
+        assertThat(names).hasSize((int) total);
+    }
+
+    @DisplayName("2. Проверка, что журнал параллельных обновлений и удалений воспроизводит итоговое состояние.")
+    @Test
+    void shouldLogChangesInApplyOrder() throws Exception {
+        Map<Long, String> replayed = new HashMap<>();
+        MutationLog mutationLog = new MutationLog() {
+            @Override
+            public void filmSaved(Film film) {
+                synchronized (replayed) {
+                    replayed.put(film.getId(), film.getName());
+                }
+            }
+
+            @Override
+            public void filmDeleted(long filmId) {
+                synchronized (replayed) {
+                    replayed.remove(filmId);
+                }
+            }
+        };
+        InMemoryFilmRepository filmRepository = new InMemoryFilmRepository(mutationLog);
+        for (int i = 0; i < FILMS_PER_THREAD; i++) {
+            filmRepository.save(film("film-" + i));
+        }
+
+        // Все потоки обновляют одни и те же фильмы, последний поток удаляет каждый третий.
+        runConcurrently(THREADS, thread -> {
+            for (long id = 1; id <= FILMS_PER_THREAD; id++) {
+                if (thread == THREADS - 1 && id % 3 == 0) {
+                    filmRepository.deleteById(id);
+                } else {
+                    Film film = film("film-" + id + "-" + thread);
+                    film.setId(id);
+                    filmRepository.update(film);
+                }
+            }
+        });
+
+        Map<Long, String> actual = new HashMap<>();
+        filmRepository.forEachFilm(film -> actual.put(film.getId(), film.getName()));
+        assertThat(actual).hasSize(FILMS_PER_THREAD - FILMS_PER_THREAD / 3);
+        assertThat(replayed).isEqualTo(actual);
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("description")
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что фильм сохраняется, читается, обновляется и удаляется без потери полей, включая доли секунды.
+// 2. Проверка, что после очистки id новых фильмов снова начинаются с 1.
+// 3. Проверка, что пачка фильмов сохраняется одним вызовом и получает id в порядке списка.
+
+@JdbcTest
+@ActiveProfiles("prod")
+@Import(JdbcFilmRepository.class)
+class JdbcFilmRepositoryTest {
+    @Autowired
+    private JdbcFilmRepository filmRepository;
+
+    @DisplayName("1. Проверка, что фильм сохраняется, читается, обновляется и удаляется без потери полей, включая доли секунды.")
+    @Test
+    void shouldRoundTripFilm() {
+        Film film = filmRepository.save(film("Film1"));
+
+        assertThat(filmRepository.findById(film.getId())).isEqualTo(film);
+
+        film.setDescription("Updated");
+        film.setDuration(Duration.ofMinutes(95).plusMillis(250).plusNanos(7));
+        assertThat(filmRepository.update(film)).isEqualTo(film);
+        assertThat(filmRepository.findAll()).containsExactly(film);
+        assertThat(filmRepository.count()).isEqualTo(1);
+
+        assertThat(filmRepository.deleteById(film.getId())).isEqualTo(film);
+        assertThat(filmRepository.findById(film.getId())).isNull();
+        assertThat(filmRepository.deleteById(film.getId())).isNull();
+    }
+
+    @DisplayName("2. Проверка, что после очистки id новых фильмов снова начинаются с 1.")
+    @Test
+    void shouldRestartIdsAfterClear() {
+        filmRepository.save(film("Film1"));
+        filmRepository.save(film("Film2"));
+
+        filmRepository.clear();
+
+        assertThat(filmRepository.save(film("Film3")).getId()).isEqualTo(1L);
+    }
+
+    @DisplayName("3. Проверка, что пачка фильмов сохраняется одним вызовом и получает id в порядке списка.")
+    @Test
+    void shouldSaveFilmsInBatch() {
+        List<Film> films = filmRepository.saveAll(List.of(film("Film1"), film("Film2"), film("Film3")));
+
+        assertThat(films).extracting(Film::getId).isSorted().doesNotHaveDuplicates().doesNotContainNull();
+        assertThat(filmRepository.findAll()).containsExactlyElementsOf(films);
+    }
+
+    private Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(Duration.ofHours(2))
+                .build();
+    }
+}
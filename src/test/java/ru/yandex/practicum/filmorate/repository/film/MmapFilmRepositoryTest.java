@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что сохранение, изменение и удаление фильмов переживают повторное открытие файлов.
+// 2. Проверка, что список всех фильмов - снимок на момент вызова без удаленных фильмов.
+// 3. Проверка, что удаленный фильм не возвращается изменением и пропадает из следующих выборок.
+
+class MmapFilmRepositoryTest {
+    @TempDir
+    Path tempDir;
+
+    @DisplayName("1. Проверка, что сохранение, изменение и удаление фильмов переживают повторное открытие файлов.")
+    @Test
+    void shouldKeepFilmsAfterReopen() throws IOException {
+        try (MmapFilmRepository filmRepository = new MmapFilmRepository(tempDir)) {
+            filmRepository.save(film("Первый"));
+            Film second = filmRepository.save(film("Второй"));
+            filmRepository.save(Film.builder().name("Без даты").build());
+            second.setDescription("Новое описание");
+            filmRepository.update(second);
+            assertThat(filmRepository.deleteById(1L).getName()).isEqualTo("Первый");
+            assertThat(filmRepository.deleteById(1L)).isNull();
+        }
+
+        try (MmapFilmRepository filmRepository = new MmapFilmRepository(tempDir)) {
+            assertThat(filmRepository.count()).isEqualTo(2);
+            assertThat(filmRepository.findById(1L)).isNull();
+            assertThat(filmRepository.findById(2L)).isEqualTo(Film.builder()
+                    .id(2L)
+                    .name("Второй")
+                    .description("Новое описание")
+                    .releaseDate(LocalDate.of(1999, 3, 31))
+                    .duration(Duration.ofMinutes(136))
+                    .build());
+            assertThat(filmRepository.findById(3L)).isEqualTo(Film.builder().id(3L).name("Без даты").build());
+            assertThat(filmRepository.save(film("Четвертый")).getId()).isEqualTo(4L);
+        }
+    }
+
+    @DisplayName("2. Проверка, что список всех фильмов - снимок на момент вызова без удаленных фильмов.")
+    @Test
+    void shouldListFilmsSnapshot() throws IOException {
+        try (MmapFilmRepository filmRepository = new MmapFilmRepository(tempDir)) {
+            for (int i = 0; i < 1_000; i++) {
+                filmRepository.save(film("Фильм " + i));
+            }
+            filmRepository.deleteById(10L);
+
+            List<Film> films = filmRepository.findAll();
+            Film updated = film("Изменен после выборки");
+            updated.setId(11L);
+            filmRepository.update(updated);
+
+            assertThat(films).hasSize(999);
+            assertThat(films.get(0).getName()).isEqualTo("Фильм 0");
+            assertThat(films.get(9).getId()).isEqualTo(11L);
+            assertThat(films.get(9).getName()).isEqualTo("Фильм 10");
+            assertThat(filmRepository.findById(11L).getName()).isEqualTo("Изменен после выборки");
+            assertThat(films).extracting(Film::getId).doesNotContain(10L);
+
+            filmRepository.clear();
+            assertThat(filmRepository.findAll()).isEmpty();
+            assertThat(filmRepository.save(film("Снова первый")).getId()).isEqualTo(1L);
+        }
+    }
+
+    @DisplayName("3. Проверка, что удаленный фильм не возвращается изменением и пропадает из следующих выборок.")
+    @Test
+    void shouldNotResurrectDeletedFilm() throws IOException {
+        try (MmapFilmRepository filmRepository = new MmapFilmRepository(tempDir)) {
+            Film first = filmRepository.save(film("Первый"));
+            filmRepository.save(film("Второй"));
+            List<Film> films = filmRepository.findAll();
+
+            filmRepository.deleteById(first.getId());
+            first.setName("Изменен после удаления");
+
+            assertThat(filmRepository.update(first)).isNull();
+            assertThat(filmRepository.findById(first.getId())).isNull();
+            assertThat(filmRepository.count()).isEqualTo(1);
+            assertThat(films).extracting(Film::getName).containsExactly("Первый", "Второй");
+            assertThat(filmRepository.findAll()).extracting(Film::getName).containsExactly("Второй");
+        }
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Описание")
+                .releaseDate(LocalDate.of(1999, 3, 31))
+                .duration(Duration.ofMinutes(136))
+                .build();
+    }
+}
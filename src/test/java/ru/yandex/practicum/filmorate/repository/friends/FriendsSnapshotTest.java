@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.repository.friends;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Список тестов:
+// 1. Проверка, что после экспорта и импорта снимка совпадают друзья, заявки и счетчики.
+// 2. Проверка, что чтение маленькими окнами mmap дает тот же граф, а чужой файл отклоняется.
+
+class FriendsSnapshotTest {
+    @TempDir
+    Path tempDir;
+
+    @DisplayName("1. Проверка, что после экспорта и импорта снимка совпадают друзья, заявки и счетчики.")
+    @Test
+    void shouldRestoreGraphFromSnapshot() throws IOException {
+        InMemoryFriendsRepository source = randomGraph();
+        Path snapshot = tempDir.resolve("friends.csr");
+
+        source.exportSnapshot(snapshot);
+        InMemoryFriendsRepository restored = new InMemoryFriendsRepository(10_000);
+        restored.sendFriendship(99_999L, 1L);
+        long edges = restored.importSnapshot(snapshot);
+
+        assertThat(edges).isEqualTo(source.countFriendships() - countIncoming(source));
+        assertThat(restored.countFriendships()).isEqualTo(source.countFriendships());
+        assertThat(restored.findFriendsById(99_999L)).isEmpty();
+        for (long userId = -5; userId < 600; userId++) {
+            assertThat(restored.findFriendsById(userId)).isEqualTo(source.findFriendsById(userId));
+            assertThat(restored.findIncomingRequestsPage(userId, null, Integer.MAX_VALUE))
+                    .isEqualTo(source.findIncomingRequestsPage(userId, null, Integer.MAX_VALUE));
+            assertThat(restored.findOutgoingRequestsPage(userId, null, Integer.MAX_VALUE))
+                    .isEqualTo(source.findOutgoingRequestsPage(userId, null, Integer.MAX_VALUE));
+        }
+        assertThat(restored.areFriends(1L, 2L)).isEqualTo(source.areFriends(1L, 2L));
+    }
+
+    @DisplayName("2. Проверка, что чтение маленькими окнами mmap дает тот же граф, а чужой файл отклоняется.")
+    @Test
+    void shouldReadWithSmallWindowsAndRejectForeignFile() throws IOException {
+        InMemoryFriendsRepository source = randomGraph();
+        Path snapshot = tempDir.resolve("friends.csr");
+        source.exportSnapshot(snapshot);
+
+        Map<Long, List<Long>> read = new HashMap<>();
+        FriendsSnapshot.read(snapshot, 16, (userId, friendIds) ->
+                read.put(userId, Arrays.stream(friendIds).boxed().toList()));
+
+        for (long userId = -5; userId < 600; userId++) {
+            assertThat(read.getOrDefault(userId, List.of())).isEqualTo(source.findFriendsById(userId));
+        }
+
+        Path foreign = tempDir.resolve("foreign.csr");
+        Files.write(foreign, new byte[64]);
+
+        assertThatThrownBy(() -> new InMemoryFriendsRepository().importSnapshot(foreign))
+                .isInstanceOf(IOException.class);
+    }
+
+    private InMemoryFriendsRepository randomGraph() {
+        InMemoryFriendsRepository repository = new InMemoryFriendsRepository();
+        Random random = new Random(23);
+        for (int i = 0; i < 20_000; i++) {
+            long userId = random.nextInt(600) - 5L;
+            long friendId = random.nextInt(600) - 5L;
+            if (userId == friendId) {
+                continue;
+            }
+            if (random.nextInt(5) == 0) {
+                repository.deleteFriendship(userId, friendId);
+            } else {
+                repository.sendFriendship(userId, friendId);
+            }
+        }
+        // Пользователь с очень большими id, чтобы разности не помещались в один байт.
+        repository.sendFriendship(Long.MAX_VALUE - 1, 1L);
+        repository.sendFriendship(1L, Long.MAX_VALUE - 1);
+        return repository;
+    }
+
+    private long countIncoming(InMemoryFriendsRepository repository) {
+        long incoming = 0;
+        for (long userId = -5; userId < 600; userId++) {
+            incoming += repository.findIncomingRequestsPage(userId, null, Integer.MAX_VALUE).size();
+        }
+        return incoming;
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.repository.friends;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.util.ConcurrentRunner.runConcurrently;
+
+// Список тестов:
+// 1. Проверка, что параллельные заявки, подтверждения и удаления не оставляют односторонних связей.
+// 2. Проверка, что параллельные встречные заявки всегда дают подтвержденную дружбу с обеих сторон.
+
+class InMemoryFriendsRepositoryConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int USERS = 64;
+    private static final int OPERATIONS_PER_THREAD = 50_000;
+
+    @DisplayName("1. Проверка, что параллельные заявки, подтверждения и удаления не оставляют односторонних связей.")
+    @Test
+    void shouldKeepGraphSymmetricUnderConcurrentChanges() throws Exception {
+        InMemoryFriendsRepository friendsRepository = new InMemoryFriendsRepository();
+
+        runConcurrently(THREADS, thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                long userId = random.nextInt(USERS) + 1;
+                long friendId = random.nextInt(USERS) + 1;
+                if (userId == friendId) {
+                    continue;
+                }
+                switch (random.nextInt(3)) {
+                    case 0 -> friendsRepository.sendFriendship(userId, friendId);
+                    case 1 -> friendsRepository.acceptFriendship(userId, friendId);
+                    default -> friendsRepository.deleteFriendship(userId, friendId);
+                }
+            }
+        });
+
+        for (long userId = 1; userId <= USERS; userId++) {
+            // У каждой связи пользователя есть обратная связь или входящая заявка у друга.
+            for (Long friendId : friendsRepository.findFriendsById(userId)) {
+                boolean confirmed = friendsRepository.findFriendsById(friendId).contains(userId);
+                boolean requested = incoming(friendsRepository, friendId).contains(userId);
+                assertThat(confirmed ^ requested)
+                        .as("связь %d -> %d", userId, friendId)
+                        .isTrue();
+            }
+            // Каждая входящая заявка соответствует связи отправителя и его исходящей заявке.
+            for (Long requesterId : incoming(friendsRepository, userId)) {
+                assertThat(friendsRepository.findFriendsById(requesterId)).contains(userId);
+                assertThat(friendsRepository.findFriendsById(userId)).doesNotContain(requesterId);
+                assertThat(friendsRepository.findOutgoingRequestsPage(requesterId, null, USERS)).contains(userId);
+            }
+            for (Long receiverId : friendsRepository.findOutgoingRequestsPage(userId, null, USERS)) {
+                assertThat(incoming(friendsRepository, receiverId)).contains(userId);
+            }
+        }
+    }
+
+    @DisplayName("2. Проверка, что параллельные встречные заявки всегда дают подтвержденную дружбу с обеих сторон.")
+    @Test
+    void shouldConfirmCrossRequests() throws Exception {
+        InMemoryFriendsRepository friendsRepository = new InMemoryFriendsRepository();
+
+        // Четные потоки отправляют заявки "вперед", нечетные - "назад" по тем же парам.
+        runConcurrently(THREADS, thread -> {
+            for (long userId = 1; userId <= OPERATIONS_PER_THREAD / 10; userId++) {
+                if (thread % 2 == 0) {
+                    friendsRepository.sendFriendship(userId, userId + 1);
+                } else {
+                    friendsRepository.sendFriendship(userId + 1, userId);
+                }
+            }
+        });
+
+        for (long userId = 1; userId <= OPERATIONS_PER_THREAD / 10; userId++) {
+            assertThat(friendsRepository.findFriendsById(userId)).contains(userId + 1);
+            assertThat(friendsRepository.findFriendsById(userId + 1)).contains(userId);
+            assertThat(incoming(friendsRepository, userId)).isEmpty();
+        }
+    }
+
+    private List<Long> incoming(InMemoryFriendsRepository friendsRepository, Long userId) {
+        return friendsRepository.findIncomingRequestsPage(userId, null, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,167 @@
+package ru.yandex.practicum.filmorate.repository.friends;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что заявка добавляет друга отправителю, а получатель видит его только после подтверждения.
+// 2. Проверка, что общие друзья считаются пересечением списков друзей.
+// 3. Проверка, что удаление дружбы чистит обе стороны, включая неподтвержденную заявку.
+// 4. Проверка, что пакетный подсчет общих друзей совпадает с размером пересечения и для большого пакета.
+// 5. Проверка, что проверка дружбы одинакова с фильтром Блума и без него, в том числе после удаления.
+// 6. Проверка, что удаление пользователя убирает его из друзей и заявок всех связанных пользователей.
+// 7. Проверка, что пользователь с огромным числом друзей переезжает в блочное хранение и обратно без потери друзей.
+
+class InMemoryFriendsRepositoryTest {
+    private InMemoryFriendsRepository friendsRepository;
+
+    @BeforeEach
+    void setUp() {
+        friendsRepository = new InMemoryFriendsRepository();
+    }
+
+    @DisplayName("1. Проверка, что заявка добавляет друга отправителю, а получатель видит его только после подтверждения.")
+    @Test
+    void shouldConfirmFriendshipOnlyAfterAccept() {
+        friendsRepository.sendFriendship(1L, 2L);
+
+        assertThat(friendsRepository.findFriendsById(1L)).containsExactly(2L);
+        assertThat(friendsRepository.findFriendsById(2L)).isEmpty();
+
+        friendsRepository.acceptFriendship(2L, 1L);
+
+        assertThat(friendsRepository.findFriendsById(2L)).containsExactly(1L);
+        assertThat(friendsRepository.countFriendships()).isEqualTo(2);
+    }
+
+    @DisplayName("2. Проверка, что общие друзья считаются пересечением списков друзей.")
+    @Test
+    void shouldFindMutualFriends() {
+        for (long friendId = 10; friendId < 20; friendId++) {
+            friendsRepository.sendFriendship(1L, friendId);
+        }
+        friendsRepository.sendFriendship(2L, 15L);
+        friendsRepository.sendFriendship(2L, 12L);
+        friendsRepository.sendFriendship(2L, 30L);
+
+        assertThat(friendsRepository.findMutualFriendIds(1L, 2L)).containsExactly(12L, 15L);
+        assertThat(friendsRepository.findMutualFriendIds(1L, 3L)).isEmpty();
+    }
+
+    @DisplayName("3. Проверка, что удаление дружбы чистит обе стороны, включая неподтвержденную заявку.")
+    @Test
+    void shouldDeleteBothSides() {
+        friendsRepository.sendFriendship(1L, 2L);
+        friendsRepository.deleteFriendship(1L, 2L);
+
+        assertThat(friendsRepository.findFriendsById(1L)).isEmpty();
+        assertThat(friendsRepository.countFriendships()).isZero();
+    }
+
+    @DisplayName("4. Проверка, что пакетный подсчет общих друзей совпадает с размером пересечения и для большого пакета.")
+    @Test
+    void shouldCountMutualFriendsInBatch() {
+        Random random = new Random(17);
+        for (int i = 0; i < 500; i++) {
+            friendsRepository.sendFriendship(1L, 1_000L + random.nextInt(2_000));
+        }
+        List<Long> otherIds = new ArrayList<>();
+        for (long otherId = 2; otherId < 1_002; otherId++) {
+            for (int i = random.nextInt(50); i > 0; i--) {
+                friendsRepository.sendFriendship(otherId, 1_000L + random.nextInt(4_000));
+            }
+            otherIds.add(otherId);
+        }
+        otherIds.add(99_999L);
+
+        int[] counts = friendsRepository.countMutualFriends(1L, otherIds);
+
+        assertThat(counts).hasSize(otherIds.size());
+        for (int i = 0; i < otherIds.size(); i++) {
+            assertThat(counts[i]).isEqualTo(friendsRepository.findMutualFriendIds(1L, otherIds.get(i)).size());
+        }
+        assertThat(friendsRepository.countMutualFriends(1L, otherIds.subList(0, 10)))
+                .containsExactly(Arrays.copyOf(counts, 10));
+    }
+
+    @DisplayName("5. Проверка, что проверка дружбы одинакова с фильтром Блума и без него, в том числе после удаления.")
+    @Test
+    void shouldCheckFriendshipWithAndWithoutBloomFilter() {
+        InMemoryFriendsRepository filteredRepository = new InMemoryFriendsRepository(10_000);
+        for (InMemoryFriendsRepository repository : List.of(friendsRepository, filteredRepository)) {
+            for (long friendId = 2; friendId < 1_000; friendId += 3) {
+                repository.sendFriendship(1L, friendId);
+            }
+            repository.deleteFriendship(1L, 5L);
+
+            for (long friendId = 2; friendId < 1_000; friendId++) {
+                assertThat(repository.areFriends(1L, friendId))
+                        .isEqualTo(friendId % 3 == 2 && friendId != 5L);
+                assertThat(repository.areFriends(friendId, 1L)).isFalse();
+            }
+
+            repository.clear();
+
+            assertThat(repository.areFriends(1L, 2L)).isFalse();
+        }
+    }
+
+    @DisplayName("6. Проверка, что удаление пользователя убирает его из друзей и заявок всех связанных пользователей.")
+    @Test
+    void shouldDeleteAllFriendshipsOfUser() {
+        friendsRepository.sendFriendship(1L, 2L);
+        friendsRepository.acceptFriendship(2L, 1L);
+        friendsRepository.sendFriendship(1L, 3L);
+        friendsRepository.sendFriendship(4L, 1L);
+        friendsRepository.sendFriendship(2L, 3L);
+
+        assertThat(friendsRepository.deleteFriendshipsByUserId(1L)).containsExactlyInAnyOrder(2L, 3L, 4L);
+
+        for (long userId = 2; userId <= 4; userId++) {
+            assertThat(friendsRepository.areFriends(userId, 1L)).isFalse();
+            assertThat(friendsRepository.findIncomingRequestsPage(userId, null, 10)).doesNotContain(1L);
+            assertThat(friendsRepository.findOutgoingRequestsPage(userId, null, 10)).doesNotContain(1L);
+        }
+        assertThat(friendsRepository.findFriendsById(1L)).isEmpty();
+        assertThat(friendsRepository.findFriendsById(2L)).containsExactly(3L);
+        assertThat(friendsRepository.findIncomingRequestsPage(3L, null, 10)).containsExactly(2L);
+    }
+
+    @DisplayName("7. Проверка, что пользователь с огромным числом друзей переезжает в блочное хранение и обратно без потери друзей.")
+    @Test
+    void shouldMoveHighDegreeUserBetweenStorageTiers() {
+        int degree = InMemoryFriendsRepository.HOT_DEGREE + 100;
+        for (long friendId = 2; friendId < degree + 2; friendId++) {
+            friendsRepository.sendFriendship(1L, friendId);
+        }
+        friendsRepository.sendFriendship(2L, 3L);
+        friendsRepository.sendFriendship(2L, degree + 10L);
+
+        assertThat(friendsRepository.countHighDegreeUsers()).isEqualTo(1);
+        assertThat(friendsRepository.countUsersByDegreeBucket(14)).isEqualTo(1);
+        assertThat(friendsRepository.countUsersByDegreeBucket(1)).isEqualTo(1);
+        assertThat(friendsRepository.findFriendsById(1L)).hasSize(degree);
+        assertThat(friendsRepository.findFriendsPage(1L, 100L, 3)).containsExactly(101L, 102L, 103L);
+        assertThat(friendsRepository.findMutualFriendIds(1L, 2L)).containsExactly(3L);
+        assertThat(friendsRepository.findMutualFriendIds(2L, 1L)).containsExactly(3L);
+        assertThat(friendsRepository.countMutualFriends(1L, List.of(2L, 3L))).containsExactly(1, 0);
+
+        for (long friendId = 2; friendId < degree + 2 - 1_000; friendId++) {
+            friendsRepository.deleteFriendship(1L, friendId);
+        }
+
+        assertThat(friendsRepository.countHighDegreeUsers()).isZero();
+        assertThat(friendsRepository.countUsersByDegreeBucket(14)).isZero();
+        assertThat(friendsRepository.countUsersByDegreeBucket(10)).isEqualTo(1);
+        assertThat(friendsRepository.findFriendsById(1L)).hasSize(1_000).startsWith((long) degree + 2 - 1_000);
+        assertThat(friendsRepository.areFriends(1L, (long) degree + 1)).isTrue();
+    }
+}
@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.repository.friends;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что заявки, подтверждение и удаление дружбы в базе ведут себя как в памяти.
+// 2. Проверка, что общие друзья, их пакетный подсчет и рекомендации из запросов совпадают с памятью.
+// 3. Проверка, что удаление пользователя убирает все его ребра и возвращает связанных пользователей.
+// 4. Проверка, что выборка друзей равномерна и ограничена размером, а степени попадают в свои ячейки.
+
+@JdbcTest
+@ActiveProfiles("prod")
+@Import(JdbcFriendsRepository.class)
+class JdbcFriendsRepositoryTest {
+    @Autowired
+    private JdbcFriendsRepository friendsRepository;
+
+    @DisplayName("1. Проверка, что заявки, подтверждение и удаление дружбы в базе ведут себя как в памяти.")
+    @Test
+    void shouldHandleRequestsLikeInMemory() {
+        friendsRepository.sendFriendship(1L, 2L);
+        friendsRepository.sendFriendship(1L, 2L);
+        friendsRepository.sendFriendship(3L, 2L);
+
+        assertThat(friendsRepository.findFriendsById(1L)).containsExactly(2L);
+        assertThat(friendsRepository.findFriendsById(2L)).isEmpty();
+        assertThat(friendsRepository.findIncomingRequestsPage(2L, null, 10)).containsExactly(1L, 3L);
+        assertThat(friendsRepository.findIncomingRequestsPage(2L, 1L, 10)).containsExactly(3L);
+        assertThat(friendsRepository.findOutgoingRequestsPage(1L, null, 10)).containsExactly(2L);
+        assertThat(friendsRepository.countFriendships()).isEqualTo(4);
+
+        friendsRepository.acceptFriendship(2L, 1L);
+
+        assertThat(friendsRepository.areFriends(2L, 1L)).isTrue();
+        assertThat(friendsRepository.findIncomingRequestsPage(2L, null, 10)).containsExactly(3L);
+        assertThat(friendsRepository.findOutgoingRequestsPage(1L, null, 10)).isEmpty();
+        assertThat(friendsRepository.findFriendsPage(2L, null, 10)).containsExactly(1L);
+        assertThat(friendsRepository.countFriendships()).isEqualTo(4);
+
+        friendsRepository.deleteFriendship(2L, 1L);
+
+        assertThat(friendsRepository.areFriends(1L, 2L)).isFalse();
+        assertThat(friendsRepository.areFriends(2L, 1L)).isFalse();
+        assertThat(friendsRepository.countFriendships()).isEqualTo(2);
+    }
+
+    @DisplayName("2. Проверка, что общие друзья, их пакетный подсчет и рекомендации из запросов совпадают с памятью.")
+    @Test
+    void shouldMatchInMemoryMutualFriendsAndRecommendations() {
+        InMemoryFriendsRepository expected = new InMemoryFriendsRepository();
+        for (long userId = 1; userId <= 30; userId++) {
+            for (long friendId = userId % 3 + 1; friendId <= 40; friendId += userId % 4 + 2) {
+                if (friendId != userId) {
+                    friendsRepository.sendFriendship(userId, friendId);
+                    expected.sendFriendship(userId, friendId);
+                }
+            }
+        }
+        List<Long> otherIds = List.of(2L, 3L, 3L, 17L, 100L);
+
+        assertThat(friendsRepository.findMutualFriendIds(1L, 5L)).isEqualTo(expected.findMutualFriendIds(1L, 5L));
+        assertThat(friendsRepository.countMutualFriends(1L, otherIds))
+                .containsExactly(expected.countMutualFriends(1L, otherIds));
+
+        List<Long> viaFriendIds = friendsRepository.findFriendsById(4L);
+        List<FriendRecommendation> recommendations = friendsRepository.findFriendsOfFriends(4L, viaFriendIds, 5, 100);
+        assertThat(recommendations).isEqualTo(expected.findFriendsOfFriends(4L, viaFriendIds, 5, 100));
+    }
+
+    @DisplayName("3. Проверка, что удаление пользователя убирает все его ребра и возвращает связанных пользователей.")
+    @Test
+    void shouldDeleteAllFriendshipsOfUser() {
+        friendsRepository.sendFriendship(1L, 2L);
+        friendsRepository.acceptFriendship(2L, 1L);
+        friendsRepository.sendFriendship(1L, 3L);
+        friendsRepository.sendFriendship(4L, 1L);
+        friendsRepository.sendFriendship(2L, 3L);
+
+        assertThat(friendsRepository.deleteFriendshipsByUserId(1L)).containsExactlyInAnyOrder(2L, 3L, 4L);
+
+        assertThat(friendsRepository.findFriendsById(1L)).isEmpty();
+        assertThat(friendsRepository.findFriendsById(2L)).containsExactly(3L);
+        assertThat(friendsRepository.findFriendsById(4L)).isEmpty();
+        assertThat(friendsRepository.findIncomingRequestsPage(3L, null, 10)).containsExactly(2L);
+    }
+
+    @DisplayName("4. Проверка, что выборка друзей равномерна и ограничена размером, а степени попадают в свои ячейки.")
+    @Test
+    void shouldSampleFriendsAndCountDegrees() {
+        for (long friendId = 1; friendId <= 100; friendId++) {
+            friendsRepository.sendFriendship(1000L, friendId);
+        }
+        friendsRepository.sendFriendship(2000L, 1L);
+        friendsRepository.sendFriendship(2000L, 2L);
+        friendsRepository.sendFriendship(2000L, 3L);
+
+        List<Long> sample = friendsRepository.findFriendsSample(1000L, 10);
+        assertThat(sample).hasSize(10).isSorted().doesNotHaveDuplicates().contains(100L);
+        assertThat(sample.get(9) - sample.get(0)).isGreaterThanOrEqualTo(80);
+        assertThat(friendsRepository.findFriendsSample(2000L, 10)).containsExactly(1L, 2L, 3L);
+
+        assertThat(friendsRepository.countUsersByDegreeBucket(7)).isEqualTo(1);
+        assertThat(friendsRepository.countUsersByDegreeBucket(2)).isEqualTo(1);
+        assertThat(friendsRepository.countHighDegreeUsers()).isZero();
+    }
+}
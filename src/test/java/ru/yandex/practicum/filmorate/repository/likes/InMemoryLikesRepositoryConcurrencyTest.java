@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.repository.likes;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.util.ConcurrentRunner.runConcurrently;
+
+// Список тестов:
+// 1. Проверка, что при параллельных лайках ни один лайк не теряется.
+// 2. Проверка, что параллельные лайки и их удаление оставляют топ согласованным.
+
+class InMemoryLikesRepositoryConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int FILMS = 16;
+    private static final int USERS_PER_THREAD = 2_000;
+
+    @DisplayName("1. Проверка, что при параллельных лайках ни один лайк не теряется.")
+    @Test
+    void shouldNotLoseConcurrentLikes() throws Exception {
+        InMemoryLikesRepository likesRepository = new InMemoryLikesRepository();
+
+        runConcurrently(THREADS, thread -> {
+            for (long user = 0; user < USERS_PER_THREAD; user++) {
+                long userId = thread * USERS_PER_THREAD + user;
+                for (long filmId = 1; filmId <= FILMS; filmId++) {
+                    likesRepository.addLike(filmId, userId);
+                }
+            }
+        });
+
+        for (long filmId = 1; filmId <= FILMS; filmId++) {
+            assertThat(likesRepository.findLikesByFilmId(filmId)).hasSize(THREADS * USERS_PER_THREAD);
+        }
+        assertThat(likesRepository.findTopFilmsByLikes(FILMS)).hasSize(FILMS);
+    }
+
+    @DisplayName("2. Проверка, что параллельные лайки и их удаление оставляют топ согласованным.")
+    @Test
+    void shouldKeepTopConsistentUnderConcurrentAddAndDelete() throws Exception {
+        InMemoryLikesRepository likesRepository = new InMemoryLikesRepository();
+
+        // Каждый поток ставит лайк фильму с id = номер потока + 1 и снимает лайки с нечетных пользователей.
+        runConcurrently(THREADS, thread -> {
+            long filmId = thread + 1;
+            for (long userId = 0; userId < USERS_PER_THREAD * (thread + 1); userId++) {
+                likesRepository.addLike(filmId, userId);
+                likesRepository.addLike(FILMS + 1L, thread * 1_000_000L + userId);
+                if (userId % 2 == 1) {
+                    likesRepository.deleteLike(filmId, userId);
+                }
+            }
+        });
+
+        List<Long> top = likesRepository.findTopFilmsByLikes(THREADS + 1);
+        assertThat(top.get(0)).isEqualTo(FILMS + 1L);
+        for (int i = 1; i < top.size(); i++) {
+            assertThat(top.get(i)).isEqualTo((long) THREADS - i + 1);
+        }
+        for (long filmId = 1; filmId <= THREADS; filmId++) {
+            assertThat(likesRepository.findLikesByFilmId(filmId)).hasSize((int) (USERS_PER_THREAD * filmId / 2));
+        }
+    }
+}
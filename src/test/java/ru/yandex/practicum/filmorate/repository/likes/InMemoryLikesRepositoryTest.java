@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.repository.likes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что топ фильмов упорядочен по количеству лайков.
+// 2. Проверка, что удаление лайка опускает фильм в топе.
+// 3. Проверка, что фильм без лайков не попадает в топ.
+// 4. Проверка, что повторный лайк не меняет позицию фильма.
+// 5. Проверка, что пакет изменений обновляет лайки и топ.
+// 6. Проверка, что удаление фильма и пользователя снимает их лайки и обновляет топ.
+
+class InMemoryLikesRepositoryTest {
+    private InMemoryLikesRepository likesRepository;
+
+    @BeforeEach
+    void setUp() {
+        likesRepository = new InMemoryLikesRepository();
+    }
+
+    @DisplayName("1. Проверка, что топ фильмов упорядочен по количеству лайков.")
+    @Test
+    void shouldReturnTopFilmsOrderedByLikes() {
+        likesRepository.addLike(1L, 1L);
+        likesRepository.addLike(2L, 1L);
+        likesRepository.addLike(2L, 2L);
+        likesRepository.addLike(3L, 1L);
+        likesRepository.addLike(3L, 2L);
+        likesRepository.addLike(3L, 3L);
+
+        assertThat(likesRepository.findTopFilmsByLikes(2)).containsExactly(3L, 2L);
+        assertThat(likesRepository.findTopFilmsByLikes(10)).containsExactly(3L, 2L, 1L);
+    }
+
+    @DisplayName("2. Проверка, что удаление лайка опускает фильм в топе.")
+    @Test
+    void shouldMoveFilmDownAfterLikeDeleted() {
+        likesRepository.addLike(1L, 1L);
+        likesRepository.addLike(1L, 2L);
+        likesRepository.addLike(2L, 1L);
+
+        likesRepository.deleteLike(1L, 1L);
+        likesRepository.deleteLike(1L, 2L);
+
+        assertThat(likesRepository.findTopFilmsByLikes(10)).containsExactly(2L);
+    }
+
+    @DisplayName("3. Проверка, что фильм без лайков не попадает в топ.")
+    @Test
+    void shouldSkipFilmsWithoutLikes() {
+        likesRepository.deleteLike(5L, 1L);
+
+        assertThat(likesRepository.findTopFilmsByLikes(10)).isEmpty();
+    }
+
+    @DisplayName("4. Проверка, что повторный лайк не меняет позицию фильма.")
+    @Test
+    void shouldIgnoreRepeatedLike() {
+        likesRepository.addLike(1L, 1L);
+        likesRepository.addLike(1L, 1L);
+        likesRepository.addLike(2L, 1L);
+        likesRepository.addLike(2L, 2L);
+
+        assertThat(likesRepository.findTopFilmsByLikes(10)).containsExactly(2L, 1L);
+    }
+
+    @DisplayName("5. Проверка, что пакет изменений обновляет лайки и топ.")
+    @Test
+    void shouldApplyBatchOfChanges() {
+        likesRepository.addLike(1L, 1L);
+
+        List<Boolean> results = likesRepository.applyLikes(List.of(
+                change(2L, 1L, LikeOperation.ADD),
+                change(2L, 2L, LikeOperation.ADD),
+                change(2L, 2L, LikeOperation.ADD),
+                change(1L, 1L, LikeOperation.DELETE),
+                change(3L, 1L, LikeOperation.DELETE)
+        ));
+
+        assertThat(results).containsExactly(true, true, false, true, false);
+        assertThat(likesRepository.findLikesByFilmId(2L)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(likesRepository.findTopFilmsByLikes(10)).containsExactly(2L);
+    }
+
+    @DisplayName("6. Проверка, что удаление фильма и пользователя снимает их лайки и обновляет топ.")
+    @Test
+    void shouldDeleteLikesByFilmAndUser() {
+        likesRepository.addLike(1L, 1L);
+        likesRepository.addLike(1L, 2L);
+        likesRepository.addLike(2L, 1L);
+        likesRepository.applyLikes(List.of(
+                change(3L, 1L, LikeOperation.ADD),
+                change(3L, 2L, LikeOperation.ADD),
+                change(3L, 3L, LikeOperation.ADD)
+        ));
+
+        assertThat(likesRepository.deleteLikesByFilmId(3L)).isEqualTo(3);
+        assertThat(likesRepository.findTopFilmsByLikes(10)).containsExactly(1L, 2L);
+
+        assertThat(likesRepository.deleteLikesByUserId(1L)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(likesRepository.findLikesByFilmId(1L)).containsExactly(2L);
+        assertThat(likesRepository.findTopFilmsByLikes(10)).containsExactly(1L);
+        assertThat(likesRepository.countLikes()).isEqualTo(1);
+        assertThat(likesRepository.countFilmsWithLikes()).isEqualTo(1);
+        assertThat(likesRepository.deleteLikesByUserId(3L)).isEmpty();
+    }
+
+    private LikeChange change(Long filmId, Long userId, LikeOperation operation) {
+        return LikeChange.builder()
+                .filmId(filmId)
+                .userId(userId)
+                .operation(operation)
+                .build();
+    }
+}
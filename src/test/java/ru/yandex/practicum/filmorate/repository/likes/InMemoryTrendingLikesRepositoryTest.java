@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.repository.likes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что трендовые фильмы упорядочены по лайкам внутри окна.
+// 2. Проверка, что лайки старше окна перестают учитываться.
+// 3. Проверка, что снятый лайк, поставленный до окна, не уводит фильм в минус.
+
+class InMemoryTrendingLikesRepositoryTest {
+    private MutableClock clock;
+    private InMemoryTrendingLikesRepository trendingLikesRepository;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        trendingLikesRepository = new InMemoryTrendingLikesRepository(clock);
+    }
+
+    @DisplayName("1. Проверка, что трендовые фильмы упорядочены по лайкам внутри окна.")
+    @Test
+    void shouldOrderTrendingFilmsByLikesInWindow() {
+        trendingLikesRepository.recordLikes(Map.of(1L, 1, 2L, 3));
+        clock.advance(Duration.ofMinutes(10));
+        trendingLikesRepository.recordLikes(Map.of(1L, 1, 3L, 1));
+
+        assertThat(trendingLikesRepository.findTopFilmsByLikes(TrendingWindow.HOUR, 2)).containsExactly(2L, 1L);
+        assertThat(trendingLikesRepository.findTopFilmsByLikes(TrendingWindow.DAY, 10)).hasSize(3);
+    }
+
+    @DisplayName("2. Проверка, что лайки старше окна перестают учитываться.")
+    @Test
+    void shouldExpireLikesOutsideWindow() {
+        trendingLikesRepository.recordLikes(Map.of(1L, 5));
+        clock.advance(Duration.ofMinutes(30));
+        trendingLikesRepository.recordLikes(Map.of(2L, 1));
+        clock.advance(Duration.ofMinutes(45));
+
+        assertThat(trendingLikesRepository.findTopFilmsByLikes(TrendingWindow.HOUR, 10)).containsExactly(2L);
+        assertThat(trendingLikesRepository.findTopFilmsByLikes(TrendingWindow.DAY, 10)).containsExactly(1L, 2L);
+
+        clock.advance(Duration.ofDays(2));
+
+        assertThat(trendingLikesRepository.findTopFilmsByLikes(TrendingWindow.HOUR, 10)).isEmpty();
+        assertThat(trendingLikesRepository.findTopFilmsByLikes(TrendingWindow.DAY, 10)).isEmpty();
+    }
+
+    @DisplayName("3. Проверка, что снятый лайк, поставленный до окна, не уводит фильм в минус.")
+    @Test
+    void shouldIgnoreNegativeBalanceInWindow() {
+        trendingLikesRepository.recordLikes(Map.of(1L, -1));
+        trendingLikesRepository.recordLikes(Map.of(2L, 1));
+
+        assertThat(trendingLikesRepository.findTopFilmsByLikes(TrendingWindow.HOUR, 10)).containsExactly(2L);
+
+        trendingLikesRepository.recordLikes(Map.of(1L, 3));
+
+        assertThat(trendingLikesRepository.findTopFilmsByLikes(TrendingWindow.HOUR, 10)).containsExactly(1L, 2L);
+    }
+}
@@ -0,0 +1,187 @@
+package ru.yandex.practicum.filmorate.repository.likes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.util.ConcurrentRunner.runConcurrently;
+
+// Список тестов:
+// 1. Проверка, что лайки и счетчики фильмов меняются вместе, а топ читается по счетчикам.
+// 2. Проверка, что пакет изменений применяется по порядку с теми же результатами, что и в памяти.
+// 3. Проверка, что удаление лайков пользователя возвращает его фильмы и уменьшает их счетчики.
+// 4. Проверка, что лайк фильму, которого нет в films, не ставится.
+// 5. Проверка, что параллельные лайки, пачки и удаления оставляют счетчики равными числу лайков.
+// 6. Проверка, что удаление лайков фильма убирает и лайки, и счетчик.
+
+@JdbcTest
+@ActiveProfiles("prod")
+@Import(JdbcLikesRepository.class)
+class JdbcLikesRepositoryTest {
+    // Фильм проверяется по таблице films под блокировкой строки, предикат сервиса не используется.
+    private static final LongPredicate ANY_FILM = id -> true;
+
+    @Autowired
+    private JdbcLikesRepository likesRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        for (long filmId = 0; filmId < 10; filmId++) {
+            jdbcTemplate.update("INSERT INTO films (id, name) VALUES (?, ?)", filmId, "Film" + filmId);
+        }
+    }
+
+    @DisplayName("1. Проверка, что лайки и счетчики фильмов меняются вместе, а топ читается по счетчикам.")
+    @Test
+    void shouldKeepCountsWithLikes() {
+        assertThat(likesRepository.addLike(1L, 10L, ANY_FILM)).isTrue();
+        assertThat(likesRepository.addLike(1L, 10L, ANY_FILM)).isFalse();
+        likesRepository.addLike(1L, 11L, ANY_FILM);
+        likesRepository.addLike(2L, 10L, ANY_FILM);
+        likesRepository.addLike(3L, 10L, ANY_FILM);
+        assertThat(likesRepository.deleteLike(3L, 10L)).isTrue();
+        assertThat(likesRepository.deleteLike(3L, 10L)).isFalse();
+
+        assertThat(likesRepository.countLikesByFilmId(1L)).isEqualTo(2);
+        assertThat(likesRepository.countLikesByFilmId(3L)).isZero();
+        assertThat(likesRepository.findLikesByFilmId(1L)).containsExactly(10L, 11L);
+        assertThat(likesRepository.findLikesPageByFilmId(1L, 10L, 10)).containsExactly(11L);
+        assertThat(likesRepository.findTopFilmsByLikes(5)).containsExactly(1L, 2L);
+        assertThat(likesRepository.countFilmsWithLikes()).isEqualTo(2);
+        assertThat(likesRepository.countLikes()).isEqualTo(3);
+
+        assertThat(likesRepository.deleteLikesByFilmId(1L)).isEqualTo(2);
+        assertThat(likesRepository.findTopFilmsByLikes(5)).containsExactly(2L);
+    }
+
+    @DisplayName("2. Проверка, что пакет изменений применяется по порядку с теми же результатами, что и в памяти.")
+    @Test
+    void shouldApplyBatchLikeInMemory() {
+        InMemoryLikesRepository expected = new InMemoryLikesRepository();
+        Random random = new Random(23);
+        for (int batch = 0; batch < 5; batch++) {
+            List<LikeChange> changes = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                changes.add(LikeChange.builder()
+                        .filmId((long) random.nextInt(10))
+                        .userId((long) random.nextInt(20))
+                        .operation(random.nextInt(3) == 0 ? LikeOperation.DELETE : LikeOperation.ADD)
+                        .build());
+            }
+
+            assertThat(likesRepository.applyLikes(changes, ANY_FILM)).isEqualTo(expected.applyLikes(changes));
+        }
+
+        for (long filmId = 0; filmId < 10; filmId++) {
+            assertThat(likesRepository.findLikesByFilmId(filmId)).isEqualTo(expected.findLikesByFilmId(filmId));
+            assertThat(likesRepository.countLikesByFilmId(filmId)).isEqualTo(expected.countLikesByFilmId(filmId));
+        }
+        assertThat(likesRepository.countLikes()).isEqualTo(expected.countLikes());
+    }
+
+    @DisplayName("3. Проверка, что удаление лайков пользователя возвращает его фильмы и уменьшает их счетчики.")
+    @Test
+    void shouldDeleteLikesByUser() {
+        likesRepository.addLike(1L, 10L, ANY_FILM);
+        likesRepository.addLike(2L, 10L, ANY_FILM);
+        likesRepository.addLike(2L, 11L, ANY_FILM);
+
+        assertThat(likesRepository.deleteLikesByUserId(10L)).containsExactly(1L, 2L);
+
+        assertThat(likesRepository.countLikesByFilmId(1L)).isZero();
+        assertThat(likesRepository.countLikesByFilmId(2L)).isEqualTo(1);
+        assertThat(likesRepository.findTopFilmsByLikes(5)).containsExactly(2L);
+        assertThat(likesRepository.deleteLikesByUserId(10L)).isEmpty();
+    }
+
+    @DisplayName("4. Проверка, что лайк фильму, которого нет в films, не ставится.")
+    @Test
+    void shouldRejectLikeForMissingFilm() {
+        jdbcTemplate.update("DELETE FROM films WHERE id = 1");
+
+        assertThat(likesRepository.addLike(1L, 10L, ANY_FILM)).isFalse();
+        assertThat(likesRepository.applyLikes(List.of(
+                LikeChange.builder().filmId(1L).userId(11L).operation(LikeOperation.ADD).build(),
+                LikeChange.builder().filmId(2L).userId(11L).operation(LikeOperation.ADD).build()), ANY_FILM))
+                .containsExactly(false, true);
+
+        assertThat(likesRepository.countLikesByFilmId(1L)).isZero();
+        assertThat(likesRepository.countLikes()).isEqualTo(1);
+    }
+
+    // Транзакции потоков должны видеть фильмы и друг друга, поэтому тест идет без общей транзакции
+    // и сам очищает таблицы.
+    @DisplayName("5. Проверка, что параллельные лайки, пачки и удаления оставляют счетчики равными числу лайков.")
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldKeepCountsUnderConcurrentChanges() throws Exception {
+        try {
+            runConcurrently(8, thread -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 200; i++) {
+                    long filmId = random.nextInt(3);
+                    long userId = random.nextInt(20);
+                    switch (random.nextInt(4)) {
+                        case 0 -> likesRepository.addLike(filmId, userId, ANY_FILM);
+                        case 1 -> likesRepository.deleteLike(filmId, userId);
+                        case 2 -> likesRepository.deleteLikesByUserId(userId);
+                        default -> {
+                            List<LikeChange> changes = new ArrayList<>();
+                            for (int j = 0; j < 10; j++) {
+                                changes.add(LikeChange.builder()
+                                        .filmId((long) random.nextInt(3))
+                                        .userId((long) random.nextInt(20))
+                                        .operation(random.nextBoolean() ? LikeOperation.ADD : LikeOperation.DELETE)
+                                        .build());
+                            }
+                            likesRepository.applyLikes(changes, ANY_FILM);
+                        }
+                    }
+                }
+            });
+
+            long likes = 0;
+            for (long filmId = 0; filmId < 3; filmId++) {
+                int filmLikes = likesRepository.findLikesByFilmId(filmId).size();
+                assertThat(likesRepository.countLikesByFilmId(filmId)).isEqualTo(filmLikes);
+                likes += filmLikes;
+            }
+            assertThat(likesRepository.countLikes()).isEqualTo(likes);
+        } finally {
+            likesRepository.clear();
+            jdbcTemplate.update("DELETE FROM films");
+        }
+    }
+
+    @DisplayName("6. Проверка, что удаление лайков фильма убирает и лайки, и счетчик.")
+    @Test
+    void shouldDeleteLikesAndCountOfFilm() {
+        likesRepository.addLike(1L, 10L, ANY_FILM);
+        likesRepository.addLike(1L, 11L, ANY_FILM);
+
+        assertThat(likesRepository.deleteLikesByFilmId(1L)).isEqualTo(2);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM film_like_counts WHERE film_id = 1",
+                Long.class)).isZero();
+        assertThat(likesRepository.findLikesByFilmId(1L)).isEmpty();
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.repository.likes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что корзины в базе дают те же тренды, что и в памяти, в том числе после сдвига окна.
+// 2. Проверка, что удаленный фильм пропадает из трендов.
+
+@JdbcTest
+@ActiveProfiles("prod")
+class JdbcTrendingLikesRepositoryTest {
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    private MutableClock clock;
+    private JdbcTrendingLikesRepository trendingLikesRepository;
+    private InMemoryTrendingLikesRepository expected;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        trendingLikesRepository = new JdbcTrendingLikesRepository(jdbc, clock);
+        expected = new InMemoryTrendingLikesRepository(clock);
+    }
+
+    @DisplayName("1. Проверка, что корзины в базе дают те же тренды, что и в памяти, в том числе после сдвига окна.")
+    @Test
+    void shouldMatchInMemoryWindows() {
+        record(Map.of(1L, 5, 2L, -1));
+        clock.advance(Duration.ofMinutes(30));
+        record(Map.of(2L, 3, 3L, 1));
+        clock.advance(Duration.ofMinutes(45));
+        record(Map.of(3L, 1));
+
+        for (TrendingWindow window : TrendingWindow.values()) {
+            assertThat(trendingLikesRepository.findTopFilmsByLikes(window, 10))
+                    .isEqualTo(expected.findTopFilmsByLikes(window, 10));
+        }
+        assertThat(trendingLikesRepository.findTopFilmsByLikes(TrendingWindow.HOUR, 10)).containsExactly(2L, 3L);
+
+        clock.advance(Duration.ofDays(2));
+
+        assertThat(trendingLikesRepository.findTopFilmsByLikes(TrendingWindow.DAY, 10)).isEmpty();
+    }
+
+    @DisplayName("2. Проверка, что удаленный фильм пропадает из трендов.")
+    @Test
+    void shouldDeleteFilm() {
+        trendingLikesRepository.recordLikes(Map.of(1L, 2, 2L, 1));
+
+        trendingLikesRepository.deleteFilm(1L);
+
+        assertThat(trendingLikesRepository.findTopFilmsByLikes(TrendingWindow.HOUR, 10)).containsExactly(2L);
+        assertThat(trendingLikesRepository.findTopFilmsByLikes(TrendingWindow.DAY, 10)).containsExactly(2L);
+    }
+
+    private void record(Map<Long, Integer> deltasByFilmId) {
+        trendingLikesRepository.recordLikes(deltasByFilmId);
+        expected.recordLikes(deltasByFilmId);
+    }
+}
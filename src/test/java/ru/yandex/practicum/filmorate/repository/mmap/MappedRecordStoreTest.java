@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.repository.mmap;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Список тестов:
+// 1. Проверка, что записи и строки на границах кусков читаются обратно, в том числе после повторного открытия.
+// 2. Проверка, что файлы с другим размером записи не открываются.
+// 3. Проверка, что освобожденные блоки строк занимаются строками того же размера и арена не растет.
+
+class MappedRecordStoreTest {
+    private static final int RECORD_SIZE = 32;
+    private static final int CHUNK_SIZE = 100;
+
+    @TempDir
+    Path tempDir;
+
+    @DisplayName("1. Проверка, что записи и строки на границах кусков читаются обратно, в том числе после повторного открытия.")
+    @Test
+    void shouldKeepRecordsAcrossChunksAndReopen() throws IOException {
+        try (MappedRecordStore store = new MappedRecordStore(tempDir, "test", RECORD_SIZE, CHUNK_SIZE)) {
+            for (int i = 1; i <= 20; i++) {
+                long id = store.allocateId();
+                store.putLong(id, 8, store.putString("строка " + "x".repeat(i)));
+                store.putLong(id, 16, i == 7 ? MappedRecordStore.NO_STRING : store.putString(null));
+                store.markPresent(id);
+            }
+            store.markDeleted(5);
+            store.markDeleted(5);
+        }
+
+        try (MappedRecordStore store = new MappedRecordStore(tempDir, "test", RECORD_SIZE, CHUNK_SIZE)) {
+            assertThat(store.nextId()).isEqualTo(21);
+            assertThat(store.count()).isEqualTo(19);
+            assertThat(store.isPresent(5)).isFalse();
+            assertThat(store.isPresent(21)).isFalse();
+            for (int i = 1; i <= 20; i++) {
+                assertThat(store.getString(store.getLong(i, 8))).isEqualTo("строка " + "x".repeat(i));
+                assertThat(store.getString(store.getLong(i, 16))).isNull();
+            }
+
+            store.clear();
+            assertThat(store.count()).isZero();
+            assertThat(store.isPresent(1)).isFalse();
+            assertThat(store.allocateId()).isEqualTo(1);
+        }
+    }
+
+    @DisplayName("2. Проверка, что файлы с другим размером записи не открываются.")
+    @Test
+    void shouldRejectForeignLayout() throws IOException {
+        new MappedRecordStore(tempDir, "test", RECORD_SIZE, CHUNK_SIZE).close();
+
+        assertThatThrownBy(() -> new MappedRecordStore(tempDir, "test", RECORD_SIZE * 2, CHUNK_SIZE))
+                .isInstanceOf(IOException.class);
+    }
+
+    @DisplayName("3. Проверка, что освобожденные блоки строк занимаются строками того же размера и арена не растет.")
+    @Test
+    void shouldReuseFreedStrings() throws IOException {
+        try (MappedRecordStore store = new MappedRecordStore(tempDir, "test", RECORD_SIZE, CHUNK_SIZE)) {
+            long shortString = store.putString("короткая");
+            long longString = store.putString("длинная " + "y".repeat(20));
+            long arenaEnd = store.arenaEnd();
+
+            for (int i = 0; i < 1_000; i++) {
+                store.freeString(shortString);
+                store.freeString(longString);
+                longString = store.putString("длинная " + "z".repeat(20));
+                shortString = store.putString("другая строка");
+            }
+            store.freeString(MappedRecordStore.NO_STRING);
+
+            assertThat(store.arenaEnd()).isEqualTo(arenaEnd);
+            assertThat(store.getString(shortString)).isEqualTo("другая строка");
+            assertThat(store.getString(longString)).isEqualTo("длинная " + "z".repeat(20));
+
+            store.freeString(shortString);
+            assertThat(store.putString("x".repeat(40))).isGreaterThanOrEqualTo(arenaEnd);
+            assertThat(store.putString("другой текст")).isEqualTo(shortString);
+        }
+    }
+}
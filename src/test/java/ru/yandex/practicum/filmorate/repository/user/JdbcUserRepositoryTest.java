@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.repository.user;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что пользователи по списку id возвращаются в порядке списка без отсутствующих, в том числе пачками.
+
+@JdbcTest
+@ActiveProfiles("prod")
+@Import(JdbcUserRepository.class)
+class JdbcUserRepositoryTest {
+    @Autowired
+    private JdbcUserRepository userRepository;
+
+    @DisplayName("1. Проверка, что пользователи по списку id возвращаются в порядке списка без отсутствующих, в том числе пачками.")
+    @Test
+    void shouldFindUsersByIdsInRequestedOrder() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 1_500; i++) {
+            ids.add(userRepository.save(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("user" + i)
+                    .name("User" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build()).getId());
+        }
+
+        List<User> users = userRepository.findByIds(List.of(ids.get(1_200), 100_000L, ids.get(3), ids.get(1_200)));
+
+        assertThat(users).extracting(User::getId).containsExactly(ids.get(1_200), ids.get(3), ids.get(1_200));
+        assertThat(users.get(1).getLogin()).isEqualTo("user3");
+        assertThat(users.get(1).getBirthday()).isEqualTo(LocalDate.of(2000, 1, 1));
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что при переполнении вытесняется запись, которую дольше всех не читали.
+// 2. Проверка, что удаление пользователя убирает его запись.
+
+class FriendRecommendationsCacheTest {
+    private FriendRecommendationsCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new FriendRecommendationsCache(new SimpleMeterRegistry(), 2);
+        loads = new AtomicInteger();
+    }
+
+    @DisplayName("1. Проверка, что при переполнении вытесняется запись, которую дольше всех не читали.")
+    @Test
+    void shouldEvictLeastRecentlyUsed() {
+        get(1L);
+        get(2L);
+        get(1L);
+        get(3L);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(loads).hasValue(3);
+
+        get(1L);
+        get(3L);
+        assertThat(loads).hasValue(3);
+
+        get(2L);
+        assertThat(loads).hasValue(4);
+    }
+
+    @DisplayName("2. Проверка, что удаление пользователя убирает его запись.")
+    @Test
+    void shouldDropDeletedUser() {
+        get(1L);
+        get(2L);
+
+        cache.onUserDeleted(1L);
+
+        assertThat(cache.size()).isEqualTo(1);
+        get(2L);
+        assertThat(loads).hasValue(2);
+    }
+
+    private void get(Long userId) {
+        cache.get(userId, 10, id -> List.of(), viaFriendIds -> {
+            loads.incrementAndGet();
+            return List.<FriendRecommendation>of();
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что лайк фильму вне списка во время загрузки не сбрасывает загруженную запись.
+// 2. Проверка, что лайк, сдвигающий границу списка во время загрузки, сбрасывает загруженную запись.
+
+class PopularFilmsCacheTest {
+    private static final int COUNT = 3;
+    private static final long MIN_LIKES = 5;
+
+    private PopularFilmsCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PopularFilmsCache(new SimpleMeterRegistry());
+        loads = new AtomicInteger();
+    }
+
+    @DisplayName("1. Проверка, что лайк фильму вне списка во время загрузки не сбрасывает загруженную запись.")
+    @Test
+    void shouldKeepEntryAfterUnrelatedLikeDuringLoad() {
+        get(() -> cache.onLikesChanged(100L, MIN_LIKES - 1, true));
+        get(() -> {
+        });
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @DisplayName("2. Проверка, что лайк, сдвигающий границу списка во время загрузки, сбрасывает загруженную запись.")
+    @Test
+    void shouldDropEntryAfterBoundaryLikeDuringLoad() {
+        get(() -> cache.onLikesChanged(100L, MIN_LIKES, true));
+        get(() -> cache.onLikesChanged(1L, MIN_LIKES + 10, false));
+        get(() -> {
+        });
+
+        assertThat(loads).hasValue(3);
+    }
+
+    // Загрузка запускает likeDuringLoad, как лайк из другого потока между чтением индекса и записью в кэш.
+    private void get(Runnable likeDuringLoad) {
+        cache.get(COUNT, count -> {
+            loads.incrementAndGet();
+            likeDuringLoad.run();
+            return LongStream.rangeClosed(1, count)
+                    .mapToObj(id -> Film.builder().id(id).name("Film" + id).build())
+                    .toList();
+        }, filmId -> MIN_LIKES);
+    }
+}
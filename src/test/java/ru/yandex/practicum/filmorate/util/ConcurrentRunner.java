@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Запускает задачу в нескольких потоках одновременно и ждет все потоки. Исключение любого потока
+// пробрасывается из runConcurrently, поэтому тест падает, а не теряет ошибку.
+public final class ConcurrentRunner {
+    private ConcurrentRunner() {
+    }
+
+    public static void runConcurrently(int threads, ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < threads; thread++) {
+                long threadNumber = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(threadNumber);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public interface ThreadTask {
+        void run(long thread) throws Exception;
+    }
+}
@@ -0,0 +1,199 @@
+package ru.yandex.practicum.filmorate.wal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.film.InMemoryFilmRepository;
+import ru.yandex.practicum.filmorate.repository.friends.InMemoryFriendsRepository;
+import ru.yandex.practicum.filmorate.repository.likes.InMemoryLikesRepository;
+import ru.yandex.practicum.filmorate.repository.user.InMemoryUserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Список тестов:
+// 1. Проверка, что после сбоя без снимка состояние восстанавливается из журнала.
+// 2. Проверка, что снимок плюс хвост журнала дают то же состояние, а старые сегменты удаляются.
+// 3. Проверка, что оборванная последняя запись отбрасывается, а журнал продолжает работать.
+
+class WalStateManagerTest {
+    @TempDir
+    Path tempDir;
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (Node node : nodes) {
+            node.writeAheadLog.close();
+        }
+    }
+
+    @DisplayName("1. Проверка, что после сбоя без снимка состояние восстанавливается из журнала.")
+    @Test
+    void shouldRecoverFromLogWithoutSnapshot() throws IOException {
+        Node node = start();
+        fill(node);
+        crash(node);
+
+        Node recovered = start();
+
+        assertSameState(recovered, node);
+        assertThat(recovered.filmRepository.findById(2L).getName()).isEqualTo("Обновленный");
+    }
+
+    @DisplayName("2. Проверка, что снимок плюс хвост журнала дают то же состояние, а старые сегменты удаляются.")
+    @Test
+    void shouldRecoverFromSnapshotAndLogTail() throws IOException {
+        Node node = start();
+        fill(node);
+        node.stateManager.snapshot();
+        node.likesRepository.deleteLike(1L, 1L);
+        node.likesRepository.addLike(3L, 2L);
+        node.friendsRepository.deleteFriendship(1L, 2L);
+        node.friendsRepository.sendFriendship(3L, 1L);
+        node.filmRepository.deleteById(3L);
+        node.userRepository.save(user("после снимка"));
+        crash(node);
+
+        assertThat(files("wal-")).hasSize(1);
+        assertThat(files("snapshot-")).hasSize(1);
+        Node recovered = start();
+
+        assertSameState(recovered, node);
+        assertThat(recovered.filmRepository.findById(3L)).isNull();
+        assertThat(recovered.filmRepository.save(film("новый")).getId()).isEqualTo(4L);
+    }
+
+    @DisplayName("3. Проверка, что оборванная последняя запись отбрасывается, а журнал продолжает работать.")
+    @Test
+    void shouldDropTornTail() throws IOException {
+        Node node = start();
+        fill(node);
+        crash(node);
+        Path segment = files("wal-").get(0);
+        long validSize = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 0, 30, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        Node recovered = start();
+        assertSameState(recovered, node);
+        assertThat(Files.size(segment)).isEqualTo(validSize);
+
+        recovered.likesRepository.addLike(3L, 3L);
+        crash(recovered);
+        Node recoveredAgain = start();
+        assertSameState(recoveredAgain, recovered);
+    }
+
+    private Node start() throws IOException {
+        Node node = new Node(new WriteAheadLog(tempDir, FsyncPolicy.ALWAYS, Duration.ofMillis(10)));
+        node.stateManager.start();
+        nodes.add(node);
+        return node;
+    }
+
+    // Сбой: журнал закрывается без финального снимка.
+    private void crash(Node node) throws IOException {
+        node.writeAheadLog.close();
+    }
+
+    private void fill(Node node) {
+        for (int i = 1; i <= 3; i++) {
+            node.userRepository.save(user("user" + i));
+            node.filmRepository.save(film("film" + i));
+        }
+        Film updated = film("Обновленный");
+        updated.setId(2L);
+        node.filmRepository.update(updated);
+        node.userRepository.deleteById(3L);
+        node.likesRepository.addLike(1L, 1L);
+        node.likesRepository.addLike(1L, 2L);
+        node.likesRepository.addLike(2L, 1L);
+        node.likesRepository.applyLikes(List.of(
+                LikeChange.builder().filmId(3L).userId(1L).operation(LikeOperation.ADD).build(),
+                LikeChange.builder().filmId(2L).userId(1L).operation(LikeOperation.DELETE).build()));
+        node.likesRepository.deleteLikesByUserId(2L);
+        node.friendsRepository.sendFriendship(1L, 2L);
+        node.friendsRepository.acceptFriendship(2L, 1L);
+        node.friendsRepository.sendFriendship(1L, 3L);
+        node.friendsRepository.sendFriendship(2L, 3L);
+        node.friendsRepository.deleteFriendship(3L, 2L);
+    }
+
+    private void assertSameState(Node actual, Node expected) {
+        assertThat(actual.filmRepository.findAll())
+                .containsExactlyInAnyOrderElementsOf(expected.filmRepository.findAll());
+        assertThat(actual.userRepository.findAll())
+                .containsExactlyInAnyOrderElementsOf(expected.userRepository.findAll());
+        assertThat(actual.filmRepository.getNextId()).isEqualTo(expected.filmRepository.getNextId());
+        assertThat(actual.userRepository.getNextId()).isEqualTo(expected.userRepository.getNextId());
+        assertThat(actual.likesRepository.countLikes()).isEqualTo(expected.likesRepository.countLikes());
+        assertThat(actual.friendsRepository.countFriendships())
+                .isEqualTo(expected.friendsRepository.countFriendships());
+        for (long id = 1; id <= 4; id++) {
+            assertThat(actual.likesRepository.findLikesByFilmId(id))
+                    .isEqualTo(expected.likesRepository.findLikesByFilmId(id));
+            assertThat(actual.friendsRepository.findFriendsById(id))
+                    .isEqualTo(expected.friendsRepository.findFriendsById(id));
+            assertThat(actual.friendsRepository.findIncomingRequestsPage(id, null, Integer.MAX_VALUE))
+                    .isEqualTo(expected.friendsRepository.findIncomingRequestsPage(id, null, Integer.MAX_VALUE));
+        }
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Описание " + name)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(Duration.ofMinutes(90))
+                .build();
+    }
+
+    private static User user(String login) {
+        return User.builder()
+                .email(login + "@mail.ru")
+                .login(login)
+                .name(null)
+                .birthday(LocalDate.of(1990, 5, 17))
+                .build();
+    }
+
+    private static final class Node {
+        final WriteAheadLog writeAheadLog;
+        final InMemoryFilmRepository filmRepository;
+        final InMemoryUserRepository userRepository;
+        final InMemoryLikesRepository likesRepository;
+        final InMemoryFriendsRepository friendsRepository;
+        final WalStateManager stateManager;
+
+        Node(WriteAheadLog writeAheadLog) {
+            this.writeAheadLog = writeAheadLog;
+            this.filmRepository = new InMemoryFilmRepository(writeAheadLog);
+            this.userRepository = new InMemoryUserRepository(writeAheadLog);
+            this.likesRepository = new InMemoryLikesRepository(writeAheadLog);
+            this.friendsRepository = new InMemoryFriendsRepository(0, writeAheadLog);
+            this.stateManager = new WalStateManager(writeAheadLog, filmRepository, userRepository, likesRepository,
+                    friendsRepository, Duration.ZERO);
+        }
+    }
+}